@@ -48,7 +48,7 @@ CREATE TABLE IF NOT EXISTS usuarios (
     ativo BOOLEAN DEFAULT TRUE,
     grupo_usuario_id INT NOT NULL,
     data_criacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    data_atualizacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    data_atualizacao TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     
     FOREIGN KEY (grupo_usuario_id) REFERENCES grupos_usuarios(id) ON DELETE RESTRICT,
     INDEX idx_email (email),
@@ -66,15 +66,18 @@ CREATE TABLE IF NOT EXISTS turmas (
     serie VARCHAR(50) NOT NULL,
     turno ENUM('MATUTINO', 'VESPERTINO', 'NOTURNO') NOT NULL,
     capacidade INT NOT NULL DEFAULT 30,
+    ocupacao INT NOT NULL DEFAULT 0,
+    versao BIGINT NOT NULL DEFAULT 0,
     professor_id INT,
     ativo BOOLEAN DEFAULT TRUE,
     data_criacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    data_atualizacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    data_atualizacao TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     
     FOREIGN KEY (professor_id) REFERENCES usuarios(id) ON DELETE SET NULL,
     INDEX idx_serie (serie),
     INDEX idx_turno (turno),
-    INDEX idx_ativo (ativo)
+    INDEX idx_ativo (ativo),
+    INDEX idx_data_atualizacao_id (data_atualizacao, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- Tabela: alunos
@@ -95,14 +98,17 @@ CREATE TABLE IF NOT EXISTS alunos (
     turno ENUM('MATUTINO', 'VESPERTINO', 'NOTURNO') NOT NULL,
     status ENUM('ATIVO', 'INATIVO', 'CANCELADO') DEFAULT 'ATIVO',
     data_matricula TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    data_atualizacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    data_atualizacao TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     
     FOREIGN KEY (turma_id) REFERENCES turmas(id) ON DELETE SET NULL,
     INDEX idx_cpf (cpf),
-    INDEX idx_email (email),
+    UNIQUE INDEX idx_email (email),
     INDEX idx_turma_id (turma_id),
     INDEX idx_turno (turno),
     INDEX idx_status (status),
+    INDEX idx_status_nome (status, nome),
+    INDEX idx_status_data_atualizacao (status, data_atualizacao),
+    INDEX idx_data_atualizacao_id (data_atualizacao, id),
     INDEX idx_data_matricula (data_matricula)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
@@ -118,7 +124,7 @@ CREATE TABLE IF NOT EXISTS matriculas (
     status ENUM('ATIVA', 'CANCELADA', 'SUSPENSA') DEFAULT 'ATIVA',
     motivo_cancelamento TEXT,
     usuario_responsavel_id INT,
-    data_atualizacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    data_atualizacao TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     
     FOREIGN KEY (aluno_id) REFERENCES alunos(id) ON DELETE CASCADE,
     FOREIGN KEY (turma_id) REFERENCES turmas(id) ON DELETE RESTRICT,
@@ -126,7 +132,11 @@ CREATE TABLE IF NOT EXISTS matriculas (
     UNIQUE KEY uk_aluno_turma (aluno_id, turma_id),
     INDEX idx_aluno_id (aluno_id),
     INDEX idx_turma_id (turma_id),
+    INDEX idx_turma_status (turma_id, status),
     INDEX idx_status (status),
+    INDEX idx_status_data_matricula (status, data_matricula),
+    INDEX idx_status_data_atualizacao (status, data_atualizacao),
+    INDEX idx_data_atualizacao_id (data_atualizacao, id),
     INDEX idx_data_matricula (data_matricula)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
@@ -151,6 +161,17 @@ CREATE TABLE IF NOT EXISTS logs_auditoria (
     INDEX idx_data_operacao (data_operacao)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- Tabela: outbox_eventos
+-- Descrição: Eventos de matrícula pendentes de publicação nas filas do Redis
+-- Justificativa: Gravados na mesma transação da matrícula (transactional outbox);
+-- o relay da aplicação publica em lote e remove as linhas após a publicação
+CREATE TABLE IF NOT EXISTS outbox_eventos (
+    id BIGINT PRIMARY KEY,
+    fila VARCHAR(100) NOT NULL,
+    payload MEDIUMBLOB NOT NULL,
+    data_criacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- ============================================================================
 -- ÍNDICES ADICIONAIS (JUSTIFICATIVA)
 -- ============================================================================
@@ -167,6 +188,7 @@ CREATE TABLE IF NOT EXISTS logs_auditoria (
 
 -- TRIGGER 1: Atualizar data_atualizacao automaticamente
 -- Descrição: Atualiza o timestamp de modificação sempre que um registro é alterado
+-- Precisão de microssegundos: o timestamp compõe os ETags das respostas da API
 -- Função: Manter rastreabilidade de quando cada registro foi modificado
 DELIMITER $$
 
@@ -174,28 +196,28 @@ CREATE TRIGGER tr_usuarios_update_timestamp
 BEFORE UPDATE ON usuarios
 FOR EACH ROW
 BEGIN
-    SET NEW.data_atualizacao = CURRENT_TIMESTAMP;
+    SET NEW.data_atualizacao = CURRENT_TIMESTAMP(6);
 END$$
 
 CREATE TRIGGER tr_alunos_update_timestamp
 BEFORE UPDATE ON alunos
 FOR EACH ROW
 BEGIN
-    SET NEW.data_atualizacao = CURRENT_TIMESTAMP;
+    SET NEW.data_atualizacao = CURRENT_TIMESTAMP(6);
 END$$
 
 CREATE TRIGGER tr_turmas_update_timestamp
 BEFORE UPDATE ON turmas
 FOR EACH ROW
 BEGIN
-    SET NEW.data_atualizacao = CURRENT_TIMESTAMP;
+    SET NEW.data_atualizacao = CURRENT_TIMESTAMP(6);
 END$$
 
 CREATE TRIGGER tr_matriculas_update_timestamp
 BEFORE UPDATE ON matriculas
 FOR EACH ROW
 BEGIN
-    SET NEW.data_atualizacao = CURRENT_TIMESTAMP;
+    SET NEW.data_atualizacao = CURRENT_TIMESTAMP(6);
 END$$
 
 -- TRIGGER 2: Registrar operações em logs_auditoria
@@ -397,6 +419,7 @@ CREATE PROCEDURE sp_registrar_matricula(
 BEGIN
     DECLARE v_capacidade INT;
     DECLARE v_ocupacao INT;
+    DECLARE v_id INT;
     DECLARE EXIT HANDLER FOR SQLEXCEPTION
     BEGIN
         SET p_mensagem = 'Erro ao registrar matrícula';
@@ -432,16 +455,23 @@ BEGIN
                     SET p_matricula_id = -1;
                     ROLLBACK;
                 ELSE
+                    -- Obter ID da tabela de sequência (compartilhada com o Hibernate)
+                    SELECT next_val INTO v_id FROM matriculas_seq FOR UPDATE;
+                    UPDATE matriculas_seq SET next_val = next_val + 1;
+                    
                     -- Registrar matrícula
-                    INSERT INTO matriculas (aluno_id, turma_id, turno, status)
-                    VALUES (p_aluno_id, p_turma_id, p_turno, 'ATIVA');
+                    INSERT INTO matriculas (id, aluno_id, turma_id, turno, status)
+                    VALUES (v_id, p_aluno_id, p_turma_id, p_turno, 'ATIVA');
                     
-                    SET p_matricula_id = LAST_INSERT_ID();
+                    SET p_matricula_id = v_id;
                     SET p_mensagem = 'Matrícula registrada com sucesso';
                     
                     -- Atualizar aluno com turma
                     UPDATE alunos SET turma_id = p_turma_id, turno = p_turno WHERE id = p_aluno_id;
                     
+                    -- Atualizar ocupação (versao invalida cópias otimistas da aplicação)
+                    UPDATE turmas SET ocupacao = ocupacao + 1, versao = versao + 1 WHERE id = p_turma_id;
+                    
                     COMMIT;
                 END IF;
             END IF;
@@ -460,6 +490,7 @@ CREATE PROCEDURE sp_cancelar_matricula(
 )
 BEGIN
     DECLARE v_aluno_id INT;
+    DECLARE v_turma_id INT;
     DECLARE EXIT HANDLER FOR SQLEXCEPTION
     BEGIN
         SET p_sucesso = FALSE;
@@ -474,8 +505,8 @@ BEGIN
         SET p_mensagem = 'Matrícula não encontrada ou já foi cancelada';
         ROLLBACK;
     ELSE
-        -- Obter ID do aluno
-        SELECT aluno_id INTO v_aluno_id FROM matriculas WHERE id = p_matricula_id;
+        -- Obter ID do aluno e da turma
+        SELECT aluno_id, turma_id INTO v_aluno_id, v_turma_id FROM matriculas WHERE id = p_matricula_id;
         
         -- Cancelar matrícula
         UPDATE matriculas 
@@ -489,6 +520,11 @@ BEGIN
         SET status = 'INATIVO', turma_id = NULL
         WHERE id = v_aluno_id;
         
+        -- Atualizar ocupação da turma
+        UPDATE turmas
+        SET ocupacao = GREATEST(ocupacao - 1, 0), versao = versao + 1
+        WHERE id = v_turma_id;
+        
         SET p_sucesso = TRUE;
         SET p_mensagem = 'Matrícula cancelada com sucesso';
         
@@ -556,6 +592,31 @@ VALUES
     ('Ana Santos', '22222222222', 'ana.santos@email.com', '11987654322', 'Rua B, 200', 12, '2011-08-20', 'Carlos Santos', '11987654322', 'carlos@email.com', 1, 'MATUTINO', 'ATIVO'),
     ('Pedro Oliveira', '33333333333', 'pedro.oliveira@email.com', '11987654323', 'Rua C, 300', 13, '2010-03-10', 'Lucia Oliveira', '11987654323', 'lucia@email.com', 2, 'VESPERTINO', 'ATIVO');
 
+-- ============================================================================
+-- TABELAS DE SEQUÊNCIA
+-- ============================================================================
+-- Descrição: Emulam sequências para o Hibernate (MySQL não possui SEQUENCE)
+-- Justificativa: IDs alocados em blocos de 50 (otimizador pooled-lo) permitem
+-- INSERTs em lote via JDBC, o que não é possível com AUTO_INCREMENT
+-- Obs.: next_val é inicializado com MAX(id) + 1 da tabela correspondente
+CREATE TABLE IF NOT EXISTS alunos_seq (
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB;
+
+INSERT INTO alunos_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM alunos;
+
+CREATE TABLE IF NOT EXISTS matriculas_seq (
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB;
+
+INSERT INTO matriculas_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM matriculas;
+
+CREATE TABLE IF NOT EXISTS outbox_eventos_seq (
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB;
+
+INSERT INTO outbox_eventos_seq (next_val) VALUES (1);
+
 -- ============================================================================
 -- CONFIRMAÇÃO
 -- ============================================================================
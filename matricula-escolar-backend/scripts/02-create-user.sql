@@ -13,6 +13,10 @@ CREATE USER IF NOT EXISTS 'matricula_user'@'localhost' IDENTIFIED BY 'matricula_
 GRANT SELECT, INSERT, UPDATE, DELETE ON matricula_escolar.* TO 'matricula_user'@'localhost';
 GRANT EXECUTE ON matricula_escolar.* TO 'matricula_user'@'localhost';
 
+-- Leitura de information_schema.innodb_trx: o feed de alterações não avança além das
+-- transações de escrita ainda abertas (privilégio global)
+GRANT PROCESS ON *.* TO 'matricula_user'@'localhost';
+
 -- Aplicar as mudanças
 FLUSH PRIVILEGES;
 
@@ -22,6 +22,7 @@ public class CorsConfig implements WebMvcConfigurer {
                 )
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH")
                 .allowedHeaders("*")
+                .exposedHeaders("Link", "X-Proximo-Cursor", "ETag", "Last-Modified")
                 .allowCredentials(true)
                 .maxAge(3600);
     }
@@ -0,0 +1,79 @@
+package com.matricula.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuração dos DataSources: primário (escritas) e réplicas de leitura
+ * Transações @Transactional(readOnly = true) são roteadas às réplicas; nelas o Hibernate usa
+ * FlushMode.MANUAL e carrega as entidades como somente leitura (sem dirty checking).
+ * Sem réplicas configuradas tudo vai ao primário.
+ */
+@Configuration
+@Slf4j
+public class DataSourceConfig {
+
+    /**
+     * Pool do primário, configurado por spring.datasource.* e spring.datasource.hikari.*
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties propriedades) {
+        HikariDataSource primario = propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primario.setPoolName("primario");
+        return primario;
+    }
+
+    /**
+     * Roteamento primário/réplicas; um pool somente leitura por URL de réplica
+     */
+    @Bean
+    public RoteamentoDataSource roteamentoDataSource(HikariDataSource primarioDataSource,
+                                                     DataSourceProperties propriedades,
+                                                     LeituraAposEscrita leituraAposEscrita,
+                                                     @Value("${datasource.replicas.urls:}") List<String> urls,
+                                                     @Value("${datasource.replicas.username:${spring.datasource.username}}") String usuario,
+                                                     @Value("${datasource.replicas.password:${spring.datasource.password}}") String senha,
+                                                     @Value("${datasource.replicas.pool-maximo:10}") int poolMaximo) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+
+            HikariDataSource replica = propriedades.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(usuario)
+                    .password(senha)
+                    .build();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(poolMaximo);
+            replicas.add(replica);
+        }
+
+        log.info("DataSource com {} réplica(s) de leitura", replicas.size());
+        return new RoteamentoDataSource(primarioDataSource, replicas, leituraAposEscrita);
+    }
+
+    /**
+     * DataSource usado pelo JPA: a conexão física só é obtida na primeira instrução, depois
+     * que a transação já foi marcada como readOnly
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(RoteamentoDataSource roteamentoDataSource) {
+        return new LazyConnectionDataSourceProxy(roteamentoDataSource);
+    }
+}
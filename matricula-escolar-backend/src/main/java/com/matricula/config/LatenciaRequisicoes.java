@@ -0,0 +1,117 @@
+package com.matricula.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latência das requisições, separada entre o login e os demais endpoints
+ * Registrada antes da cadeia de segurança, de modo que inclui a autenticação. Cada grupo é um
+ * histograma de faixas fixas (percentis aproximados pelo limite superior da faixa). Respostas
+ * assíncronas (exportações, streams SSE) não entram: a requisição inicial só abre o stream.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class LatenciaRequisicoes extends OncePerRequestFilter {
+
+    private static final String LOGIN = "/auth/login";
+
+    private final Histograma login = new Histograma();
+    private final Histograma demais = new Histograma();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long inicio = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!request.isAsyncStarted()) {
+                (LOGIN.equals(request.getServletPath()) ? login : demais).registrar(System.nanoTime() - inicio);
+            }
+        }
+    }
+
+    /**
+     * Requisições, média e percentis (ms) do login e dos demais endpoints nesta instância
+     */
+    public Map<String, Object> obterEstatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("login", login.resumo());
+        estatisticas.put("demais", demais.resumo());
+        return estatisticas;
+    }
+
+    private static class Histograma {
+
+        /**
+         * Limites superiores (ms) das faixas; a última faixa recebe o que passar de 10 s
+         */
+        private static final long[] LIMITES_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+        private final LongAdder[] faixas = new LongAdder[LIMITES_MS.length + 1];
+        private final LongAdder total = new LongAdder();
+        private final LongAdder somaNanos = new LongAdder();
+
+        Histograma() {
+            for (int i = 0; i < faixas.length; i++) {
+                faixas[i] = new LongAdder();
+            }
+        }
+
+        void registrar(long nanos) {
+            long ms = nanos / 1_000_000;
+            int faixa = 0;
+            while (faixa < LIMITES_MS.length && ms >= LIMITES_MS[faixa]) {
+                faixa++;
+            }
+            faixas[faixa].increment();
+            total.increment();
+            somaNanos.add(nanos);
+        }
+
+        Map<String, Object> resumo() {
+            long[] contagens = new long[faixas.length];
+            long quantidade = 0;
+            for (int i = 0; i < faixas.length; i++) {
+                contagens[i] = faixas[i].sum();
+                quantidade += contagens[i];
+            }
+
+            Map<String, Object> resumo = new LinkedHashMap<>();
+            resumo.put("requisicoes", quantidade);
+            resumo.put("mediaMs", total.sum() == 0 ? 0 : Math.round(somaNanos.sum() / (double) total.sum() / 100_000) / 10.0);
+            resumo.put("p50Ms", percentil(contagens, quantidade, 0.50));
+            resumo.put("p95Ms", percentil(contagens, quantidade, 0.95));
+            resumo.put("p99Ms", percentil(contagens, quantidade, 0.99));
+            return resumo;
+        }
+
+        /**
+         * Limite superior da faixa que contém o percentil (null acima da última faixa)
+         */
+        private static Long percentil(long[] contagens, long quantidade, double fracao) {
+            if (quantidade == 0) {
+                return 0L;
+            }
+            long alvo = (long) Math.ceil(quantidade * fracao);
+            long acumulado = 0;
+            for (int i = 0; i < contagens.length; i++) {
+                acumulado += contagens[i];
+                if (acumulado >= alvo) {
+                    return i < LIMITES_MS.length ? LIMITES_MS[i] : null;
+                }
+            }
+            return null;
+        }
+    }
+}
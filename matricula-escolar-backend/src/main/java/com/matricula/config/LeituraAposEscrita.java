@@ -0,0 +1,127 @@
+package com.matricula.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Proteção contra o atraso de replicação (read-your-writes)
+ * Após o commit de uma transação de escrita (ex.: uma matrícula), as leituras do mesmo usuário
+ * vão ao primário durante a janela configurada. A marca fica nesta instância e, se
+ * compartilhada, também no Redis (com TTL), para valer em qualquer instância atrás do
+ * balanceador. Se o Redis falhar, a leitura vai ao primário.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LeituraAposEscrita {
+
+    private static final String PREFIXO = "leitura:primario:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * Usuário -> instante (ms) até o qual suas leituras vão ao primário
+     */
+    private final Map<String, Long> escritasRecentes = new ConcurrentHashMap<>();
+
+    @Value("${datasource.leitura-apos-escrita.janela-ms:5000}")
+    private long janelaMs;
+
+    @Value("${datasource.leitura-apos-escrita.compartilhada:true}")
+    private boolean compartilhada;
+
+    /**
+     * Chamado ao abrir a conexão de uma transação de escrita: marca o usuário após o commit
+     */
+    void registrarEscrita() {
+        String usuario = usuarioAtual();
+        if (usuario == null || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(this, usuario);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                marcar(usuario);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(LeituraAposEscrita.this);
+            }
+        });
+    }
+
+    /**
+     * Marca o usuário da requisição após uma escrita já commitada por outra thread (ex.:
+     * partições de matrícula), cuja transação não conhece o usuário e não o marcou
+     */
+    public void registrarEscritaConcluida() {
+        String usuario = usuarioAtual();
+        if (usuario != null) {
+            marcar(usuario);
+        }
+    }
+
+    /**
+     * Indica se o usuário da requisição escreveu dentro da janela
+     */
+    boolean exigePrimario() {
+        String usuario = usuarioAtual();
+        if (usuario == null) {
+            return false;
+        }
+
+        Long expiraEm = escritasRecentes.get(usuario);
+        if (expiraEm != null) {
+            if (expiraEm > System.currentTimeMillis()) {
+                return true;
+            }
+            escritasRecentes.remove(usuario, expiraEm);
+        }
+
+        if (!compartilhada) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(PREFIXO + usuario));
+        } catch (Exception e) {
+            log.warn("Falha ao consultar escrita recente de {} no Redis; lendo do primário", usuario, e);
+            return true;
+        }
+    }
+
+    private void marcar(String usuario) {
+        escritasRecentes.put(usuario, System.currentTimeMillis() + janelaMs);
+        if (!compartilhada) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForValue().set(PREFIXO + usuario, "1", Duration.ofMillis(janelaMs));
+        } catch (Exception e) {
+            log.warn("Falha ao registrar escrita recente de {} no Redis", usuario, e);
+        }
+    }
+
+    private static String usuarioAtual() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacao == null || !autenticacao.isAuthenticated()
+                || autenticacao instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return autenticacao.getName();
+    }
+}
@@ -4,10 +4,13 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matricula.fila.evento.EventoRedisSerializer;
 
 /**
  * Configuração do Redis para fila de requisições
@@ -18,15 +21,37 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class RedisConfig {
 
     /**
-     * Configura o RedisTemplate para serialização JSON
+     * Configura o RedisTemplate com o serializer de valores da aplicação
      * @param connectionFactory Factory de conexão com Redis
+     * @param redisValueSerializer Serializer dos valores (eventos binários + JSON)
      * @return RedisTemplate configurado
      */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       RedisSerializer<Object> redisValueSerializer) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
+        // String serializer
+        StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
+
+        // Configurar serializers
+        template.setKeySerializer(stringRedisSerializer);
+        template.setValueSerializer(redisValueSerializer);
+        template.setHashKeySerializer(stringRedisSerializer);
+        template.setHashValueSerializer(redisValueSerializer);
+
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * Serializer de valores do Redis
+     * Eventos de matrícula usam o codec binário compacto; demais valores usam JSON
+     * Pode ser substituído por outro bean de mesmo nome para trocar o formato
+     */
+    @Bean
+    public RedisSerializer<Object> redisValueSerializer() {
         // Configurar Jackson para serialização
         Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = 
             new Jackson2JsonRedisSerializer<>(Object.class);
@@ -40,16 +65,18 @@ public class RedisConfig {
         
         jackson2JsonRedisSerializer.setObjectMapper(objectMapper);
 
-        // String serializer
-        StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
-
-        // Configurar serializers
-        template.setKeySerializer(stringRedisSerializer);
-        template.setValueSerializer(jackson2JsonRedisSerializer);
-        template.setHashKeySerializer(stringRedisSerializer);
-        template.setHashValueSerializer(jackson2JsonRedisSerializer);
+        return new EventoRedisSerializer(jackson2JsonRedisSerializer);
+    }
 
-        template.afterPropertiesSet();
-        return template;
+    /**
+     * Container de assinaturas pub/sub do Redis (mensagens entre instâncias da aplicação)
+     * @param connectionFactory Factory de conexão com Redis
+     * @return Container compartilhado pelos listeners de canais
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
     }
 }
@@ -0,0 +1,82 @@
+package com.matricula.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * DataSource que envia as transações readOnly às réplicas (rodízio) e as demais ao primário
+ * A decisão é tomada ao abrir a conexão física, por isso fica atrás de um
+ * LazyConnectionDataSourceProxy: quando a primeira instrução é executada o Spring já marcou a
+ * transação como readOnly. Leituras vão ao primário quando não há réplicas, quando o usuário
+ * escreveu há pouco (ver LeituraAposEscrita) ou dentro de noPrimario().
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARIO = "primario";
+
+    private static final ThreadLocal<Boolean> FORCAR_PRIMARIO = ThreadLocal.withInitial(() -> false);
+
+    private final List<HikariDataSource> replicas;
+    private final LeituraAposEscrita leituraAposEscrita;
+    private final AtomicInteger proxima = new AtomicInteger();
+
+    public RoteamentoDataSource(HikariDataSource primario, List<HikariDataSource> replicas,
+                                LeituraAposEscrita leituraAposEscrita) {
+        this.replicas = List.copyOf(replicas);
+        this.leituraAposEscrita = leituraAposEscrita;
+
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIO, primario);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            destinos.put(i, this.replicas.get(i));
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+        setLenientFallback(false);
+    }
+
+    /**
+     * Executa a operação lendo do primário mesmo em transações readOnly
+     * Usado por quem não pode ver dados atrasados (ex.: montagem de caches e índices)
+     */
+    public static <T> T noPrimario(Supplier<T> operacao) {
+        boolean anterior = FORCAR_PRIMARIO.get();
+        FORCAR_PRIMARIO.set(true);
+        try {
+            return operacao.get();
+        } finally {
+            FORCAR_PRIMARIO.set(anterior);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARIO;
+        }
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            leituraAposEscrita.registrarEscrita();
+            return PRIMARIO;
+        }
+
+        if (replicas.isEmpty() || FORCAR_PRIMARIO.get() || leituraAposEscrita.exigePrimario()) {
+            return PRIMARIO;
+        }
+        return Math.floorMod(proxima.getAndIncrement(), replicas.size());
+    }
+
+    /**
+     * Fecha os pools das réplicas (o primário é um bean e é fechado pelo Spring)
+     */
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
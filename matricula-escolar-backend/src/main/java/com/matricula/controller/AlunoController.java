@@ -1,14 +1,21 @@
 package com.matricula.controller;
 
 import com.matricula.dto.AlunoDTO;
+import com.matricula.model.Aluno;
 import com.matricula.service.AlunoService;
+import com.matricula.service.BuscaAlunoService;
+import com.matricula.service.EscritorExportacao;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.List;
 
 /**
@@ -23,27 +30,100 @@ import java.util.List;
 public class AlunoController {
 
     private final AlunoService alunoService;
+    private final BuscaAlunoService buscaAlunoService;
 
     /**
-     * Endpoint: GET /alunos
-     * Lista todos os alunos
+     * Endpoint: GET /alunos?cursor=&limite=
+     * Lista os alunos ativos por nome, paginados por cursor
+     * A próxima página vem nos cabeçalhos X-Proximo-Cursor e Link
+     * Responde 304 se If-None-Match/If-Modified-Since corresponder à versão atual
      */
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<AlunoDTO>> listarTodos() {
-        log.info("Listando todos os alunos");
-        List<AlunoDTO> alunos = alunoService.listarTodos();
-        return ResponseEntity.ok(alunos);
+    public ResponseEntity<?> listarTodos(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limite,
+                                         ServletWebRequest request) {
+        try {
+            if (RespostaCondicional.naoModificado(request, alunoService.obterVersaoAtivos())) {
+                return null;
+            }
+            log.info("Listando alunos ativos");
+            return RespostaPaginada.ok(alunoService.listarTodos(cursor, limite));
+        } catch (Exception e) {
+            log.error("Erro ao listar alunos", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint: GET /alunos/export?formato=ndjson|csv&status=
+     * Exporta todos os alunos (ou os de um status) em streaming
+     * A resposta é escrita à medida que as linhas são lidas do banco (gzip via server.compression)
+     */
+    @GetMapping("/export")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> exportar(@RequestParam(defaultValue = "ndjson") String formato,
+                                      @RequestParam(required = false) String status) {
+        try {
+            EscritorExportacao.Formato formatoExportacao = EscritorExportacao.Formato.de(formato);
+            Aluno.Status filtro = status != null ? converterStatus(status) : null;
+            log.info("Exportando alunos em {}", formatoExportacao);
+
+            StreamingResponseBody corpo = saida -> alunoService.exportar(saida, formatoExportacao, filtro);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(formatoExportacao.getContentType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"alunos." + formatoExportacao.getExtensao() + "\"")
+                    .body(corpo);
+        } catch (Exception e) {
+            log.error("Erro ao exportar alunos", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    private Aluno.Status converterStatus(String status) {
+        try {
+            return Aluno.Status.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Status inválido: " + status);
+        }
+    }
+
+    /**
+     * Endpoint: GET /alunos/busca?q=&limite=
+     * Busca incremental (typeahead) por nome, CPF ou nome do responsável, sem diferenciar acentos
+     * Responde 503 enquanto o índice de busca é construído na subida da aplicação
+     */
+    @GetMapping("/busca")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> buscar(@RequestParam String q, @RequestParam(required = false) Integer limite) {
+        try {
+            return ResponseEntity.ok(buscaAlunoService.buscar(q, limite));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Erro ao buscar alunos", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
     }
 
     /**
      * Endpoint: GET /alunos/{id}
      * Busca um aluno por ID
+     * Responde 304 se If-None-Match/If-Modified-Since corresponder à versão atual
      */
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> buscarPorId(@PathVariable Integer id) {
+    public ResponseEntity<?> buscarPorId(@PathVariable Integer id, ServletWebRequest request) {
         try {
+            if (RespostaCondicional.naoModificado(request, alunoService.obterVersao(id))) {
+                return null;
+            }
             log.info("Buscando aluno com ID: {}", id);
             AlunoDTO aluno = alunoService.buscarPorId(id);
             return ResponseEntity.ok(aluno);
@@ -57,10 +137,14 @@ public class AlunoController {
     /**
      * Endpoint: GET /alunos/turma/{turmaId}
      * Lista alunos de uma turma
+     * Responde 304 se If-None-Match/If-Modified-Since corresponder à versão atual
      */
     @GetMapping("/turma/{turmaId}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<AlunoDTO>> listarPorTurma(@PathVariable Integer turmaId) {
+    public ResponseEntity<List<AlunoDTO>> listarPorTurma(@PathVariable Integer turmaId, ServletWebRequest request) {
+        if (RespostaCondicional.naoModificado(request, alunoService.obterVersaoPorTurma(turmaId))) {
+            return null;
+        }
         log.info("Listando alunos da turma: {}", turmaId);
         List<AlunoDTO> alunos = alunoService.listarPorTurma(turmaId);
         return ResponseEntity.ok(alunos);
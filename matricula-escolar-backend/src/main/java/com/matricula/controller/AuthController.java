@@ -1,14 +1,24 @@
 package com.matricula.controller;
 
+import com.matricula.config.LatenciaRequisicoes;
 import com.matricula.dto.LoginRequest;
 import com.matricula.dto.LoginResponse;
 import com.matricula.service.AuthService;
+import com.matricula.service.LimiteLoginService;
+import com.matricula.service.RevogacaoTokenService;
+import com.matricula.service.VerificacaoSenhaService;
+import com.matricula.service.VerificacaoSobrecarregadaException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Controller: AuthController
@@ -22,17 +32,34 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final LimiteLoginService limiteLoginService;
+    private final VerificacaoSenhaService verificacaoSenhaService;
+    private final LatenciaRequisicoes latenciaRequisicoes;
+    private final RevogacaoTokenService revogacaoTokenService;
 
     /**
      * Endpoint: POST /auth/login
      * Realiza login de um usuário
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
         try {
             log.info("Requisição de login para: {}", loginRequest.getEmail());
+            // IP real do cliente: o RemoteIpValve aplica o X-Forwarded-For só de proxies confiáveis
+            long esperaSegundos = limiteLoginService.consumirTentativa(request.getRemoteAddr(), loginRequest.getEmail());
+            if (esperaSegundos > 0) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(esperaSegundos))
+                        .body(new ErrorResponse("Muitas tentativas de login, tente novamente mais tarde"));
+            }
+
             LoginResponse response = authService.login(loginRequest);
             return ResponseEntity.ok(response);
+        } catch (VerificacaoSobrecarregadaException e) {
+            log.warn("Login recusado por sobrecarga: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(verificacaoSenhaService.sugerirEsperaSegundos()))
+                    .body(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             log.error("Erro ao fazer login", e);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -57,6 +84,64 @@ public class AuthController {
         }
     }
 
+    /**
+     * Endpoint: POST /auth/logout
+     * Revoga o token da requisição até a sua expiração
+     */
+    @PostMapping("/logout")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> logout(@RequestHeader("Authorization") String token) {
+        try {
+            authService.logout(token.replace("Bearer ", ""));
+            return ResponseEntity.noContent().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Erro ao fazer logout", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse("Erro ao fazer logout: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint: POST /auth/usuarios/{id}/revogar-tokens
+     * Revoga todos os tokens já emitidos para o usuário (requer ADMIN)
+     */
+    @PostMapping("/usuarios/{id}/revogar-tokens")
+    @PreAuthorize("@permissoes.tem('ADMIN')")
+    public ResponseEntity<?> revogarTokensDoUsuario(@PathVariable Integer id) {
+        try {
+            authService.revogarTokensDoUsuario(id);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Erro ao revogar tokens do usuário", e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse("Erro ao revogar tokens: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint: GET /auth/estatisticas
+     * Pool de verificação de senhas, limites de tentativas, revogação de tokens e latência do
+     * login e dos demais endpoints nesta instância
+     */
+    @GetMapping("/estatisticas")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> obterEstatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("verificacaoSenha", verificacaoSenhaService.obterEstatisticas());
+        estatisticas.put("limiteTentativas", limiteLoginService.obterEstatisticas());
+        estatisticas.put("revogacaoTokens", revogacaoTokenService.obterEstatisticas());
+        estatisticas.put("latencia", latenciaRequisicoes.obterEstatisticas());
+        return ResponseEntity.ok(estatisticas);
+    }
+
     /**
      * Classe auxiliar para resposta de erro
      */
@@ -0,0 +1,69 @@
+package com.matricula.controller;
+
+import com.matricula.service.CacheSegundoNivelService;
+import com.matricula.service.UnicidadeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller: CacheController
+ * Endpoints de observação dos caches da aplicação
+ */
+@RestController
+@RequestMapping("/cache")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173", "http://127.0.0.1:3000", "http://127.0.0.1:5173", "file://"})
+public class CacheController {
+
+    private final CacheSegundoNivelService cacheSegundoNivelService;
+    private final UnicidadeService unicidadeService;
+
+    /**
+     * Endpoint: GET /cache/estatisticas
+     * Acertos, faltas e taxa de acerto por região do cache de segundo nível (nesta instância)
+     */
+    @GetMapping("/estatisticas")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> obterEstatisticas() {
+        try {
+            return ResponseEntity.ok(cacheSegundoNivelService.obterEstatisticas());
+        } catch (Exception e) {
+            log.error("Erro ao obter estatísticas do cache", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint: GET /cache/unicidade
+     * Tamanho em memória, ocupação e taxas de falsos positivos (estimada e observada) dos
+     * filtros de CPF e email (nesta instância)
+     */
+    @GetMapping("/unicidade")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> obterEstatisticasUnicidade() {
+        try {
+            return ResponseEntity.ok(unicidadeService.obterEstatisticas());
+        } catch (Exception e) {
+            log.error("Erro ao obter estatísticas dos filtros de unicidade", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Classe auxiliar para resposta de erro
+     */
+    public static class ErrorResponse {
+        public String message;
+
+        public ErrorResponse(String message) {
+            this.message = message;
+        }
+    }
+}
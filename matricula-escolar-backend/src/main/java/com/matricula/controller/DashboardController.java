@@ -0,0 +1,53 @@
+package com.matricula.controller;
+
+import com.matricula.service.PainelOcupacaoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller: DashboardController
+ * Endpoints dos painéis de acompanhamento
+ */
+@RestController
+@RequestMapping("/dashboard")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173", "http://127.0.0.1:3000", "http://127.0.0.1:5173", "file://"})
+public class DashboardController {
+
+    private final PainelOcupacaoService painelOcupacaoService;
+
+    /**
+     * Endpoint: GET /dashboard/ocupacao
+     * Capacidade, matrículas ativas, vagas livres e taxa de ocupação por turma, por série/turno
+     * e no total (turmas ativas); servido da memória, relido do banco a cada poucos segundos
+     */
+    @GetMapping("/ocupacao")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> obterOcupacao(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            return RespostaSerializada.ok(painelOcupacaoService.obterPainel(), acceptEncoding);
+        } catch (Exception e) {
+            log.error("Erro ao obter o painel de ocupação", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Classe auxiliar para resposta de erro
+     */
+    public static class ErrorResponse {
+        public String message;
+
+        public ErrorResponse(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -1,14 +1,27 @@
 package com.matricula.controller;
 
 import com.matricula.dto.MatriculaDTO;
+import com.matricula.dto.MatriculaLoteRequest;
+import com.matricula.dto.MatriculaLoteResultadoDTO;
+import com.matricula.fila.FilaConsumidor;
+import com.matricula.model.Matricula;
+import com.matricula.service.EscritorExportacao;
+import com.matricula.service.FeedAlteracoesService;
 import com.matricula.service.MatriculaService;
+import com.matricula.service.ParticaoMatriculaExecutor;
+import com.matricula.service.TicketMatriculaService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.List;
 import java.util.Map;
 
@@ -24,41 +37,155 @@ import java.util.Map;
 public class MatriculaController {
 
     private final MatriculaService matriculaService;
+    private final FilaConsumidor filaConsumidor;
+    private final TicketMatriculaService ticketMatriculaService;
+    private final ParticaoMatriculaExecutor particaoMatriculaExecutor;
+    private final FeedAlteracoesService feedAlteracoesService;
+
+    @Value("${matricula.assincrona.retry-after-segundos:5}")
+    private int retryAfterSegundos;
 
     /**
-     * Endpoint: GET /matriculas
-     * Lista todas as matrículas ativas
+     * Endpoint: GET /matriculas?cursor=&limite=
+     * Lista as matrículas ativas (mais recentes primeiro), paginadas por cursor
+     * A próxima página vem nos cabeçalhos X-Proximo-Cursor e Link
+     * Responde 304 se If-None-Match/If-Modified-Since corresponder à versão atual
      */
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<MatriculaDTO>> listarAtivas() {
-        log.info("Listando matrículas ativas");
-        List<MatriculaDTO> matriculas = matriculaService.listarAtivas();
-        return ResponseEntity.ok(matriculas);
+    public ResponseEntity<?> listarAtivas(@RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer limite,
+                                          ServletWebRequest request) {
+        try {
+            if (RespostaCondicional.naoModificado(request, matriculaService.obterVersaoAtivas())) {
+                return null;
+            }
+            log.info("Listando matrículas ativas");
+            return RespostaPaginada.ok(matriculaService.listarAtivas(cursor, limite));
+        } catch (Exception e) {
+            log.error("Erro ao listar matrículas", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint: GET /matriculas/export?formato=ndjson|csv&status=
+     * Exporta todas as matrículas (ou as de um status) em streaming
+     * A resposta é escrita à medida que as linhas são lidas do banco (gzip via server.compression)
+     */
+    @GetMapping("/export")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> exportar(@RequestParam(defaultValue = "ndjson") String formato,
+                                      @RequestParam(required = false) String status) {
+        try {
+            EscritorExportacao.Formato formatoExportacao = EscritorExportacao.Formato.de(formato);
+            Matricula.Status filtro = status != null ? converterStatus(status) : null;
+            log.info("Exportando matrículas em {}", formatoExportacao);
+
+            StreamingResponseBody corpo = saida -> matriculaService.exportar(saida, formatoExportacao, filtro);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(formatoExportacao.getContentType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"matriculas." + formatoExportacao.getExtensao() + "\"")
+                    .body(corpo);
+        } catch (Exception e) {
+            log.error("Erro ao exportar matrículas", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    private Matricula.Status converterStatus(String status) {
+        try {
+            return Matricula.Status.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Status inválido: " + status);
+        }
     }
 
     /**
      * Endpoint: GET /matriculas/turma/{turmaId}
      * Lista matrículas de uma turma
+     * Responde 304 se If-None-Match/If-Modified-Since corresponder à versão atual
      */
     @GetMapping("/turma/{turmaId}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<MatriculaDTO>> listarPorTurma(@PathVariable Integer turmaId) {
+    public ResponseEntity<List<MatriculaDTO>> listarPorTurma(@PathVariable Integer turmaId, ServletWebRequest request) {
+        if (RespostaCondicional.naoModificado(request, matriculaService.obterVersaoPorTurma(turmaId))) {
+            return null;
+        }
         log.info("Listando matrículas da turma: {}", turmaId);
         List<MatriculaDTO> matriculas = matriculaService.listarPorTurma(turmaId);
         return ResponseEntity.ok(matriculas);
     }
 
+    /**
+     * Endpoint: GET /matriculas/changes?since=&limite=
+     * Feed de alterações de matrículas, alunos e turmas após o cursor (sincronização incremental)
+     * Sem since, percorre tudo desde o início; alunos excluídos e turmas inativas vêm como
+     * removido=true. O cursor da resposta deve ser usado na chamada seguinte.
+     */
+    @GetMapping("/changes")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> listarAlteracoes(@RequestParam(required = false) String since,
+                                              @RequestParam(required = false) Integer limite) {
+        try {
+            return ResponseEntity.ok(feedAlteracoesService.listarAlteracoes(since, limite));
+        } catch (Exception e) {
+            log.error("Erro ao listar alterações", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint: GET /matriculas/{id}
+     * Busca uma matrícula por ID
+     * Responde 304 se If-None-Match/If-Modified-Since corresponder à versão atual
+     */
+    @GetMapping("/{id}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> buscarPorId(@PathVariable Integer id, ServletWebRequest request) {
+        try {
+            if (RespostaCondicional.naoModificado(request, matriculaService.obterVersao(id))) {
+                return null;
+            }
+            log.info("Buscando matrícula com ID: {}", id);
+            return ResponseEntity.ok(matriculaService.buscarPorId(id));
+        } catch (Exception e) {
+            log.error("Erro ao buscar matrícula", e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Endpoint: POST /matriculas
      * Registra uma nova matrícula
+     * Com ?assincrono=true a solicitação é enfileirada e a resposta é 202 com um ticket
+     * (503 com Retry-After se a fila estiver cheia)
      */
     @PostMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> registrarMatricula(@Valid @RequestBody MatriculaDTO matriculaDTO) {
+    public ResponseEntity<?> registrarMatricula(@Valid @RequestBody MatriculaDTO matriculaDTO,
+                                                @RequestParam(defaultValue = "false") boolean assincrono) {
         try {
             log.info("Registrando matrícula para aluno: {}", matriculaDTO.getAlunoId());
-            MatriculaDTO matriculaNova = matriculaService.registrarMatricula(matriculaDTO);
+
+            if (assincrono) {
+                return ticketMatriculaService.enfileirar(matriculaDTO)
+                        .<ResponseEntity<?>>map(ticket -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                                .header(HttpHeaders.LOCATION, "/api/matriculas/tickets/" + ticket.getTicketId())
+                                .body(ticket))
+                        .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSegundos))
+                                .body(new ErrorResponse("Fila de matrículas cheia, tente novamente em instantes")));
+            }
+
+            MatriculaDTO matriculaNova = particaoMatriculaExecutor.isHabilitado()
+                    ? particaoMatriculaExecutor.registrar(matriculaDTO)
+                    : matriculaService.registrarMatricula(matriculaDTO);
             return ResponseEntity.status(HttpStatus.CREATED).body(matriculaNova);
         } catch (Exception e) {
             log.error("Erro ao registrar matrícula", e);
@@ -67,6 +194,43 @@ public class MatriculaController {
         }
     }
 
+    /**
+     * Endpoint: GET /matriculas/tickets/{ticketId}
+     * Consulta o resultado de uma matrícula assíncrona
+     */
+    @GetMapping("/tickets/{ticketId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> buscarTicket(@PathVariable String ticketId) {
+        try {
+            return ticketMatriculaService.buscar(ticketId)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new ErrorResponse("Ticket não encontrado ou expirado")));
+        } catch (Exception e) {
+            log.error("Erro ao consultar ticket", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint: POST /matriculas/lote
+     * Registra várias matrículas de uma vez, retornando o resultado de cada item
+     */
+    @PostMapping("/lote")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> registrarLote(@Valid @RequestBody MatriculaLoteRequest request) {
+        try {
+            log.info("Registrando lote de {} matrículas", request.getMatriculas().size());
+            List<MatriculaLoteResultadoDTO> resultados = matriculaService.registrarLote(request.getMatriculas());
+            return ResponseEntity.ok(resultados);
+        } catch (Exception e) {
+            log.error("Erro ao registrar lote de matrículas", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Endpoint: DELETE /matriculas/{id}
      * Cancela uma matrícula
@@ -78,7 +242,11 @@ public class MatriculaController {
         try {
             String motivo = request.getOrDefault("motivo", "Cancelamento solicitado");
             log.info("Cancelando matrícula: {}", id);
-            matriculaService.cancelarMatricula(id, motivo);
+            if (particaoMatriculaExecutor.isHabilitado()) {
+                particaoMatriculaExecutor.cancelar(id, motivo);
+            } else {
+                matriculaService.cancelarMatricula(id, motivo);
+            }
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
             log.error("Erro ao cancelar matrícula", e);
@@ -102,7 +270,10 @@ public class MatriculaController {
             Map<String, Object> status = Map.of(
                     "filaMatriculas", filaMatriculas,
                     "filaCancelamentos", filaCancelamentos,
-                    "totalFila", filaMatriculas + filaCancelamentos
+                    "totalFila", filaMatriculas + filaCancelamentos,
+                    "pendentesOutbox", matriculaService.obterTamanhoOutbox(),
+                    "filaSolicitacoes", ticketMatriculaService.obterTamanhoFila(),
+                    "consumidores", filaConsumidor.obterEstatisticas()
             );
 
             return ResponseEntity.ok(status);
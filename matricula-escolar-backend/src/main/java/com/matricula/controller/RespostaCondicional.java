@@ -0,0 +1,47 @@
+package com.matricula.controller;
+
+import com.matricula.repository.VersaoRecurso;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * GET condicional (If-None-Match / If-Modified-Since) a partir da versão do recurso
+ * O ETag combina o total de linhas e a última atualização (microssegundos); é válido por URL,
+ * então páginas e filtros diferentes da mesma coleção compartilham a versão sem conflito.
+ * As respostas podem ser guardadas pelo navegador, mas sempre revalidadas (no-cache, private).
+ */
+final class RespostaCondicional {
+
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private RespostaCondicional() {
+    }
+
+    /**
+     * Define ETag e Last-Modified na resposta e indica se o cliente já tem a versão atual
+     * Quando true, a resposta já é 304 e o controller deve retornar null
+     */
+    static boolean naoModificado(ServletWebRequest request, VersaoRecurso versao) {
+        if (versao == null || versao.getAtualizacao() == null) {
+            // Recurso inexistente ou coleção vazia: segue o fluxo normal
+            return false;
+        }
+
+        // O driver entrega o TIMESTAMP do banco no fuso da JVM
+        Instant atualizacao = versao.getAtualizacao().atZone(ZoneId.systemDefault()).toInstant();
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, atualizacao);
+        return naoModificado(request, Long.toHexString(versao.getTotal()) + "-" + Long.toHexString(micros), micros / 1000);
+    }
+
+    /**
+     * Mesmo que naoModificado(request, versao), com ETag (sem aspas) e Last-Modified (ms) já conhecidos
+     */
+    static boolean naoModificado(ServletWebRequest request, String etag, long ultimaModificacao) {
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        return request.checkNotModified("\"" + etag + "\"", ultimaModificacao);
+    }
+}
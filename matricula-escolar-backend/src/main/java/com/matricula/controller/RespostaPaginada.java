@@ -0,0 +1,41 @@
+package com.matricula.controller;
+
+import com.matricula.dto.PaginaDTO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import java.util.List;
+
+/**
+ * Resposta das listagens paginadas por chave
+ * O corpo continua sendo um array JSON com os itens da página; a próxima página é informada
+ * nos cabeçalhos X-Proximo-Cursor (token opaco) e Link (rel="next"), ausentes na última página
+ */
+final class RespostaPaginada {
+
+    static final String PROXIMO_CURSOR_HEADER = "X-Proximo-Cursor";
+
+    private RespostaPaginada() {
+    }
+
+    static <T> ResponseEntity<List<T>> ok(PaginaDTO<T> pagina) {
+        return comProximaPagina(ResponseEntity.ok(), pagina.getProximoCursor()).body(pagina.getItens());
+    }
+
+    /**
+     * Acrescenta os cabeçalhos da próxima página, se houver
+     */
+    static ResponseEntity.BodyBuilder comProximaPagina(ResponseEntity.BodyBuilder resposta, String proximoCursor) {
+        if (proximoCursor == null) {
+            return resposta;
+        }
+
+        String proximaPagina = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", proximoCursor)
+                .toUriString();
+
+        return resposta
+                .header(PROXIMO_CURSOR_HEADER, proximoCursor)
+                .header(HttpHeaders.LINK, "<" + proximaPagina + ">; rel=\"next\"");
+    }
+}
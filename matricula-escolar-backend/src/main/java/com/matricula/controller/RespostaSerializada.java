@@ -0,0 +1,52 @@
+package com.matricula.controller;
+
+import com.matricula.service.JsonSerializado;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Resposta com corpo JSON já serializado (cache), escrito sem passar pelo Jackson
+ * Corpos em gzip são enviados como estão (Content-Encoding: gzip) quando o cliente aceita gzip;
+ * caso contrário são descompactados. Páginas de listagens recebem os cabeçalhos de próxima página.
+ * No GET condicional, ETag e Last-Modified vêm do próprio corpo serializado; o ETag da
+ * representação em gzip leva o sufixo -gzip, pois os bytes enviados são outros.
+ */
+final class RespostaSerializada {
+
+    private RespostaSerializada() {
+    }
+
+    static ResponseEntity<byte[]> ok(JsonSerializado json, String acceptEncoding) {
+        return ok(json, enviarGzip(json, acceptEncoding));
+    }
+
+    /**
+     * Resposta com ETag/Last-Modified do corpo serializado
+     * Retorna null quando If-None-Match/If-Modified-Since corresponde (a resposta já é 304)
+     */
+    static ResponseEntity<byte[]> condicional(ServletWebRequest request, JsonSerializado json, String acceptEncoding) {
+        boolean gzip = enviarGzip(json, acceptEncoding);
+        if (RespostaCondicional.naoModificado(request, gzip ? json.getEtag() + "-gzip" : json.getEtag(),
+                json.getUltimaModificacao())) {
+            return null;
+        }
+        return ok(json, gzip);
+    }
+
+    private static boolean enviarGzip(JsonSerializado json, String acceptEncoding) {
+        return json.isGzip() && acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private static ResponseEntity<byte[]> ok(JsonSerializado json, boolean gzip) {
+        ResponseEntity.BodyBuilder resposta = RespostaPaginada.comProximaPagina(ResponseEntity.ok(), json.getProximoCursor())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (gzip) {
+            return resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(json.getCorpo());
+        }
+        return resposta.body(json.descompactado());
+    }
+}
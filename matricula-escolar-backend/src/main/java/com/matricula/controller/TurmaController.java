@@ -1,15 +1,23 @@
 package com.matricula.controller;
 
+import com.matricula.dto.ListaEsperaDTO;
+import com.matricula.dto.ListaEsperaRequest;
 import com.matricula.dto.TurmaDTO;
+import com.matricula.service.ListaEsperaService;
+import com.matricula.service.TurmaCacheService;
 import com.matricula.service.TurmaService;
+import com.matricula.service.VagasStreamService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Controller: TurmaController
@@ -22,31 +30,52 @@ import java.util.List;
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173", "http://127.0.0.1:3000", "http://127.0.0.1:5173", "file://"})
 public class TurmaController {
 
+    /**
+     * Desliga o buffer de proxies reversos (nginx) para os eventos chegarem assim que enviados
+     */
+    private static final String CABECALHO_SEM_BUFFER = "X-Accel-Buffering";
+
     private final TurmaService turmaService;
+    private final TurmaCacheService turmaCacheService;
+    private final ListaEsperaService listaEsperaService;
+    private final VagasStreamService vagasStreamService;
 
     /**
-     * Endpoint: GET /turmas
-     * Lista todas as turmas ativas
+     * Endpoint: GET /turmas?cursor=&limite=
+     * Lista as turmas ativas por nome, paginadas por cursor
+     * A próxima página vem nos cabeçalhos X-Proximo-Cursor e Link
+     * Servido do cache de turmas (JSON pré-serializado, em gzip se o cliente aceitar)
+     * Responde 304 se If-None-Match/If-Modified-Since corresponder à página em cache
      */
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<TurmaDTO>> listarTodas() {
-        log.info("Listando todas as turmas");
-        List<TurmaDTO> turmas = turmaService.listarTodas();
-        return ResponseEntity.ok(turmas);
+    public ResponseEntity<?> listarTodas(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limite,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                         ServletWebRequest request) {
+        try {
+            log.info("Listando turmas ativas");
+            return RespostaSerializada.condicional(request, turmaCacheService.listarTodas(cursor, limite), acceptEncoding);
+        } catch (Exception e) {
+            log.error("Erro ao listar turmas", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
     }
 
     /**
      * Endpoint: GET /turmas/{id}
-     * Busca uma turma por ID
+     * Busca uma turma por ID (servida do cache de turmas)
+     * Responde 304 se If-None-Match/If-Modified-Since corresponder à turma em cache
      */
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> buscarPorId(@PathVariable Integer id) {
+    public ResponseEntity<?> buscarPorId(@PathVariable Integer id,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                         ServletWebRequest request) {
         try {
             log.info("Buscando turma com ID: {}", id);
-            TurmaDTO turma = turmaService.buscarPorId(id);
-            return ResponseEntity.ok(turma);
+            return RespostaSerializada.condicional(request, turmaCacheService.buscarPorId(id), acceptEncoding);
         } catch (Exception e) {
             log.error("Erro ao buscar turma", e);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -54,6 +83,51 @@ public class TurmaController {
         }
     }
 
+    /**
+     * Endpoint: GET /turmas/vagas/stream
+     * Stream (Server-Sent Events) das mudanças de vagas de todas as turmas (eventos "vagas")
+     * Sem estado inicial: o cliente carrega GET /dashboard/ocupacao e aplica os eventos
+     * Responde 503 (sem corpo) quando a instância atingiu o limite de assinantes
+     */
+    @GetMapping(value = "/vagas/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<SseEmitter> acompanharVagas() {
+        try {
+            return ResponseEntity.ok()
+                    .header(CABECALHO_SEM_BUFFER, "no")
+                    .body(vagasStreamService.assinarTodas());
+        } catch (IllegalStateException e) {
+            log.warn("Stream geral de vagas recusado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+    }
+
+    /**
+     * Endpoint: GET /turmas/{id}/vagas/stream
+     * Stream (Server-Sent Events) das vagas da turma: o primeiro evento "vagas" é o estado atual
+     * e os seguintes chegam a cada mudança (no máximo um a cada 250 ms)
+     * Responde 404 se a turma não existe e 503 quando a instância atingiu o limite de assinantes
+     */
+    @GetMapping(value = "/{id}/vagas/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<SseEmitter> acompanharVagasTurma(@PathVariable Integer id) {
+        try {
+            return ResponseEntity.ok()
+                    .header(CABECALHO_SEM_BUFFER, "no")
+                    .body(vagasStreamService.assinarTurma(id));
+        } catch (IllegalStateException e) {
+            log.warn("Stream de vagas da turma {} recusado: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        } catch (Exception e) {
+            log.error("Erro ao abrir o stream de vagas da turma {}", id, e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
     /**
      * Endpoint: POST /turmas
      * Cria uma nova turma
@@ -108,6 +182,59 @@ public class TurmaController {
         }
     }
 
+    /**
+     * Endpoint: POST /turmas/{id}/lista-espera
+     * Inclui um aluno na lista de espera da turma lotada
+     * O aluno é matriculado automaticamente quando uma vaga for liberada
+     */
+    @PostMapping("/{id}/lista-espera")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> entrarListaEspera(@PathVariable Integer id, @Valid @RequestBody ListaEsperaRequest request) {
+        try {
+            log.info("Incluindo aluno {} na lista de espera da turma {}", request.getAlunoId(), id);
+            int prioridade = request.getPrioridade() != null ? request.getPrioridade() : 0;
+            ListaEsperaDTO posicao = listaEsperaService.entrar(id, request.getAlunoId(), prioridade);
+            return ResponseEntity.status(HttpStatus.CREATED).body(posicao);
+        } catch (Exception e) {
+            log.error("Erro ao incluir aluno na lista de espera", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint: GET /turmas/{id}/lista-espera/{alunoId}
+     * Consulta a posição do aluno na lista de espera
+     */
+    @GetMapping("/{id}/lista-espera/{alunoId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> buscarPosicaoListaEspera(@PathVariable Integer id, @PathVariable Integer alunoId) {
+        try {
+            return ResponseEntity.ok(listaEsperaService.buscarPosicao(id, alunoId));
+        } catch (Exception e) {
+            log.error("Erro ao consultar lista de espera", e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint: DELETE /turmas/{id}/lista-espera/{alunoId}
+     * Remove o aluno da lista de espera
+     */
+    @DeleteMapping("/{id}/lista-espera/{alunoId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> sairListaEspera(@PathVariable Integer id, @PathVariable Integer alunoId) {
+        try {
+            listaEsperaService.sair(id, alunoId);
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            log.error("Erro ao remover aluno da lista de espera", e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Classe auxiliar para resposta de erro
      */
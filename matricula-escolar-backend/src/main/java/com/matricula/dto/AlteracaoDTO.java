@@ -0,0 +1,23 @@
+package com.matricula.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * DTO: AlteracaoDTO
+ * Item do feed de alterações: matrícula, aluno ou turma alterado
+ * removido=true é a marca de exclusão lógica (aluno CANCELADO, turma inativa); dados traz o
+ * registro atual (MatriculaDTO, AlunoDTO ou TurmaDTO) e é nulo nas exclusões
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlteracaoDTO {
+
+    private String tipo;
+    private Integer id;
+    private Boolean removido;
+    private LocalDateTime dataAtualizacao;
+    private Object dados;
+}
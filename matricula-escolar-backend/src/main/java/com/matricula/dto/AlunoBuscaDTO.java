@@ -0,0 +1,19 @@
+package com.matricula.dto;
+
+import lombok.*;
+
+/**
+ * DTO: AlunoBuscaDTO
+ * Resultado da busca incremental de alunos (GET /alunos/busca)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlunoBuscaDTO {
+
+    private Integer id;
+    private String nome;
+    private String cpf;
+    private String responsavelNome;
+}
@@ -0,0 +1,21 @@
+package com.matricula.dto;
+
+import lombok.*;
+import java.util.List;
+
+/**
+ * DTO: FeedAlteracoesDTO
+ * Página do feed de alterações
+ * cursor deve ser enviado em since na próxima chamada (mesmo sem alterações, para continuar
+ * do mesmo ponto); haMais indica que já existe outra página disponível
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FeedAlteracoesDTO {
+
+    private List<AlteracaoDTO> alteracoes;
+    private String cursor;
+    private Boolean haMais;
+}
@@ -0,0 +1,19 @@
+package com.matricula.dto;
+
+import lombok.*;
+
+/**
+ * DTO: ListaEsperaDTO
+ * Posição de um aluno na lista de espera de uma turma
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ListaEsperaDTO {
+
+    private Integer turmaId;
+    private Integer alunoId;
+    private Long posicao;
+    private Long tamanho;
+}
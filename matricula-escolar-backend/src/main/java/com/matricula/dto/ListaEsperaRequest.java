@@ -0,0 +1,23 @@
+package com.matricula.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+/**
+ * DTO: ListaEsperaRequest
+ * Requisição de inclusão na lista de espera de uma turma
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ListaEsperaRequest {
+
+    @NotNull(message = "Aluno é obrigatório")
+    private Integer alunoId;
+
+    @Min(value = 0, message = "Prioridade deve ser no mínimo 0")
+    @Max(value = 9, message = "Prioridade não pode exceder 9")
+    @Builder.Default
+    private Integer prioridade = 0;
+}
@@ -0,0 +1,21 @@
+package com.matricula.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.*;
+import java.util.List;
+
+/**
+ * DTO: MatriculaLoteRequest
+ * Requisição de matrícula em lote (turma inteira de uma vez)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MatriculaLoteRequest {
+
+    @NotEmpty(message = "Informe ao menos uma matrícula")
+    @Size(max = 500, message = "Lote não pode exceder 500 matrículas")
+    private List<@Valid MatriculaDTO> matriculas;
+}
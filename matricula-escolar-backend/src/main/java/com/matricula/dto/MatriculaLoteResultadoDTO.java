@@ -0,0 +1,21 @@
+package com.matricula.dto;
+
+import lombok.*;
+
+/**
+ * DTO: MatriculaLoteResultadoDTO
+ * Resultado individual de cada item de uma matrícula em lote
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MatriculaLoteResultadoDTO {
+
+    private Integer indice;
+    private Integer alunoId;
+    private Integer turmaId;
+    private boolean sucesso;
+    private Integer matriculaId;
+    private String mensagem;
+}
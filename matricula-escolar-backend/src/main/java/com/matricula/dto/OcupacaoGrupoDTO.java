@@ -0,0 +1,22 @@
+package com.matricula.dto;
+
+import lombok.*;
+
+/**
+ * DTO: OcupacaoGrupoDTO
+ * Ocupação somada das turmas de uma série/turno (ou de todas, no total do painel)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OcupacaoGrupoDTO {
+
+    private String serie;
+    private String turno;
+    private Integer turmas;
+    private Long capacidade;
+    private Long matriculasAtivas;
+    private Long vagasLivres;
+    private Double taxaOcupacao;
+}
@@ -0,0 +1,27 @@
+package com.matricula.dto;
+
+import lombok.*;
+
+/**
+ * DTO: OcupacaoTurmaDTO
+ * Ocupação de uma turma no painel de ocupação
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OcupacaoTurmaDTO {
+
+    private Integer turmaId;
+    private String nome;
+    private String serie;
+    private String turno;
+    private Integer capacidade;
+    private Long matriculasAtivas;
+    private Long vagasLivres;
+
+    /**
+     * Matrículas ativas / capacidade (0 a 1, pode passar de 1 se a capacidade for reduzida)
+     */
+    private Double taxaOcupacao;
+}
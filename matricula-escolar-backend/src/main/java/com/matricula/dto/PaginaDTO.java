@@ -0,0 +1,19 @@
+package com.matricula.dto;
+
+import lombok.*;
+import java.util.List;
+
+/**
+ * DTO: PaginaDTO
+ * Página de uma listagem paginada por chave (keyset)
+ * proximoCursor é nulo na última página
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaginaDTO<T> {
+
+    private List<T> itens;
+    private String proximoCursor;
+}
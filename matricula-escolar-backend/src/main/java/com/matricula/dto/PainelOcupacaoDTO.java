@@ -0,0 +1,25 @@
+package com.matricula.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO: PainelOcupacaoDTO
+ * Painel de ocupação do período de matrículas: por turma, por série/turno e total
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PainelOcupacaoDTO {
+
+    /**
+     * Momento da última leitura completa do banco (ajustes por matrícula são aplicados depois dela)
+     */
+    private LocalDateTime geradoEm;
+
+    private OcupacaoGrupoDTO total;
+    private List<OcupacaoGrupoDTO> porSerieTurno;
+    private List<OcupacaoTurmaDTO> turmas;
+}
@@ -0,0 +1,21 @@
+package com.matricula.dto;
+
+import lombok.*;
+
+/**
+ * DTO: TicketMatriculaDTO
+ * Situação de uma solicitação de matrícula assíncrona
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TicketMatriculaDTO {
+
+    private String ticketId;
+    private String status;
+    private Integer matriculaId;
+    private String mensagem;
+    private Long criadoEm;
+    private Long atualizadoEm;
+}
@@ -32,6 +32,9 @@ public class TurmaDTO {
     @Max(value = 100, message = "Capacidade não pode exceder 100")
     private Integer capacidade;
 
+    private Integer ocupacao;
+    private Integer vagasDisponiveis;
+
     private Integer professorId;
     private String professorNome;
 
@@ -0,0 +1,25 @@
+package com.matricula.dto;
+
+import lombok.*;
+
+/**
+ * DTO: VagasTurmaDTO
+ * Vagas de uma turma enviadas pelos streams de vagas (SSE)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VagasTurmaDTO {
+
+    private Integer turmaId;
+    private Integer capacidade;
+    private Integer ocupacao;
+    private Integer vagasLivres;
+    private Boolean ativo;
+
+    /**
+     * Versão da turma (@Version): atualizações com versão menor que a já recebida são antigas
+     */
+    private Long versao;
+}
@@ -0,0 +1,455 @@
+package com.matricula.fila;
+
+import com.matricula.fila.evento.EventoMatricula;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisListCommands;
+import org.springframework.data.redis.connection.RedisListCommands.Direction;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Consumidor das filas do Redis (configuradas em fila.consumidor.filas)
+ * Cada worker move as mensagens com BLMOVE para uma lista de processamento própria,
+ * processa o lote e só então remove a lista (ack). Antes de cada lote, o que tiver ficado na
+ * lista (falha no meio do lote, falha transitória do processador ou no ack) volta ao início da
+ * fila; mensagens que não podem ser desserializadas vão para a fila de falhas. Cada instância renova uma chave de presença no
+ * Redis: as listas de processamento de instâncias sem presença (quedas) são devolvidas à fila
+ * periodicamente por qualquer instância viva, e as da própria instância na inicialização.
+ */
+@Component
+@Slf4j
+public class FilaConsumidor {
+
+    private static final String PROCESSANDO_SUFIXO = ":processando:";
+    private static final String FALHAS_SUFIXO = ":falhas";
+    private static final String RECUPERACAO_SUFIXO = ":r";
+    private static final String PRESENCA_PREFIXO = "fila:consumidor:instancia:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final List<ProcessadorFila> processadores;
+
+    @Value("${fila.consumidor.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${fila.consumidor.filas:fila:matriculas,fila:cancelamentos,fila:solicitacoes-matricula}")
+    private List<String> filas;
+
+    @Value("${fila.consumidor.workers:2}")
+    private int workersPorFila;
+
+    @Value("${fila.consumidor.batch-size:50}")
+    private int tamanhoLote;
+
+    @Value("${fila.consumidor.timeout-ms:5000}")
+    private long timeoutMs;
+
+    /**
+     * Identificador desta instância nas listas de processamento e na presença; deve ser único
+     * entre as instâncias vivas. Sem configuração, cada processo usa um UUID próprio (HOSTNAME
+     * nem sempre chega à JVM, e instâncias com o mesmo nome apagariam os lotes umas das outras)
+     */
+    @Value("${fila.consumidor.instancia:}")
+    private String instancia;
+
+    @Value("${fila.consumidor.presenca-ms:10000}")
+    private long presencaMs;
+
+    private final Map<String, EstatisticasFila> estatisticas = new LinkedHashMap<>();
+
+    private ExecutorService executor;
+    private volatile boolean ativo;
+
+    public FilaConsumidor(RedisTemplate<String, Object> redisTemplate, List<ProcessadorFila> processadores) {
+        this.redisTemplate = redisTemplate;
+        this.processadores = processadores;
+    }
+
+    @PostConstruct
+    public void definirInstancia() {
+        if (instancia == null || instancia.isBlank()) {
+            instancia = UUID.randomUUID().toString();
+        }
+        log.info("Consumidor de filas identificado como {}", instancia);
+    }
+
+    /**
+     * Recupera mensagens em processamento e inicia os workers após a subida da aplicação
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitado) {
+            log.info("Consumidor de filas desabilitado");
+            return;
+        }
+
+        renovarPresenca();
+        for (String fila : filas) {
+            processadorDa(fila);
+            estatisticas.put(fila, new EstatisticasFila());
+            recuperarMensagensEmProcessamento(fila);
+        }
+
+        AtomicInteger sequencia = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(filas.size() * workersPorFila, runnable -> {
+            Thread thread = new Thread(runnable, "fila-consumidor-" + sequencia.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        ativo = true;
+        for (String fila : filas) {
+            for (int i = 0; i < workersPorFila; i++) {
+                String processando = fila + PROCESSANDO_SUFIXO + instancia + ":" + i;
+                executor.submit(() -> executarWorker(fila, processando));
+            }
+        }
+
+        log.info("Consumidor de filas iniciado: {} worker(s) por fila em {}", workersPorFila, filas);
+    }
+
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        ativo = false;
+        if (executor != null) {
+            executor.shutdown();
+            if (!executor.awaitTermination(timeoutMs + 1000, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Renova a presença desta instância (expira em 3 x presenca-ms sem renovação)
+     */
+    @Scheduled(fixedRateString = "${fila.consumidor.presenca-ms:10000}")
+    public void renovarPresenca() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(PRESENCA_PREFIXO + instancia, System.currentTimeMillis(),
+                    Duration.ofMillis(presencaMs * 3));
+        } catch (Exception e) {
+            log.warn("Falha ao renovar a presença do consumidor {} no Redis", instancia, e);
+        }
+    }
+
+    /**
+     * Devolve à fila as mensagens das listas de processamento de instâncias que caíram
+     */
+    @Scheduled(initialDelayString = "${fila.consumidor.recuperacao-ms:30000}",
+            fixedDelayString = "${fila.consumidor.recuperacao-ms:30000}")
+    public void recuperarInstanciasInativas() {
+        if (!ativo) {
+            return;
+        }
+        for (String fila : filas) {
+            String prefixo = fila + PROCESSANDO_SUFIXO;
+            try {
+                for (String processando : listasDeProcessamento(prefixo + "*")) {
+                    String dona = instanciaDa(prefixo, processando);
+                    if (dona == null || dona.equals(instancia)
+                            || Boolean.TRUE.equals(redisTemplate.hasKey(PRESENCA_PREFIXO + dona))) {
+                        continue;
+                    }
+
+                    // Renomear antes de devolver: só uma instância fica com a lista
+                    String recuperacao = prefixo + instancia + RECUPERACAO_SUFIXO + UUID.randomUUID();
+                    try {
+                        redisTemplate.rename(processando, recuperacao);
+                    } catch (Exception e) {
+                        log.debug("Lista {} já recuperada por outra instância", processando);
+                        continue;
+                    }
+
+                    long recuperadas = devolverPendentes(fila, recuperacao);
+                    log.warn("{} mensagens da instância inativa {} recuperadas de {} para {}",
+                            recuperadas, dona, processando, fila);
+                }
+            } catch (Exception e) {
+                log.error("Erro ao recuperar listas de processamento inativas da fila {}", fila, e);
+            }
+        }
+    }
+
+    /**
+     * Estatísticas de vazão e atraso de cada fila
+     */
+    public Map<String, Object> obterEstatisticas() {
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        for (Map.Entry<String, EstatisticasFila> entrada : estatisticas.entrySet()) {
+            resultado.put(entrada.getKey(), entrada.getValue().resumo());
+        }
+        return resultado;
+    }
+
+    /**
+     * Calcula a vazão (mensagens/segundo) de cada fila no último intervalo
+     */
+    @Scheduled(fixedRateString = "${fila.consumidor.amostragem-ms:10000}")
+    public void amostrarVazao() {
+        estatisticas.values().forEach(EstatisticasFila::amostrar);
+    }
+
+    private ProcessadorFila processadorDa(String fila) {
+        return processadores.stream()
+                .filter(processador -> processador.suporta(fila))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Nenhum processador configurado para a fila " + fila));
+    }
+
+    private void executarWorker(String fila, String processando) {
+        EstatisticasFila stats = estatisticas.get(fila);
+        ProcessadorFila processador = processadorDa(fila);
+        ListOperations<String, Object> listas = redisTemplate.opsForList();
+
+        while (ativo) {
+            try {
+                // O ack apaga a lista inteira: nada que não pertença ao lote pode estar nela
+                long pendentes = devolverPendentes(fila, processando);
+                if (pendentes > 0) {
+                    log.warn("{} mensagens não tratadas devolvidas de {} para {}", pendentes, processando, fila);
+                }
+
+                List<Object> lote = receberLote(listas, fila, processando);
+                if (lote.isEmpty()) {
+                    continue;
+                }
+
+                stats.registrarAtraso(lote);
+                stats.emProcessamento.addAndGet(lote.size());
+                try {
+                    processador.processar(fila, lote);
+                    stats.registrarProcessadas(lote.size());
+                } catch (Exception e) {
+                    if (ProcessadorFila.falhaTransitoria(e)) {
+                        // Sem ack: o lote volta ao início da fila na próxima volta e é entregue de novo
+                        log.warn("Falha transitória ao processar lote da fila {}, {} mensagens serão entregues novamente",
+                                fila, lote.size(), e);
+                        stats.reentregas.add(lote.size());
+                        aguardar(timeoutMs);
+                        continue;
+                    }
+                    log.error("Erro ao processar lote da fila {}, movendo {} mensagens para {}",
+                            fila, lote.size(), fila + FALHAS_SUFIXO, e);
+                    moverTodas(listas, processando, fila + FALHAS_SUFIXO, Direction.RIGHT);
+                    stats.falhas.add(lote.size());
+                } finally {
+                    stats.emProcessamento.addAndGet(-lote.size());
+                }
+
+                // Ack: o lote inteiro foi tratado
+                redisTemplate.delete(processando);
+            } catch (SerializationException e) {
+                // A mensagem já está na lista de processamento: vai para a fila de falhas na próxima volta
+                log.error("Mensagem ilegível recebida da fila {}", fila, e);
+            } catch (Exception e) {
+                if (!ativo) {
+                    break;
+                }
+                log.warn("Erro de comunicação com o Redis no consumidor da fila {}", fila, e);
+                aguardar(timeoutMs);
+            }
+        }
+    }
+
+    /**
+     * Aguarda a primeira mensagem com BLMOVE e completa o lote com LMOVE sem bloqueio
+     */
+    private List<Object> receberLote(ListOperations<String, Object> listas, String fila, String processando) {
+        List<Object> lote = new ArrayList<>();
+
+        Object primeira = listas.move(fila, Direction.LEFT, processando, Direction.RIGHT, Duration.ofMillis(timeoutMs));
+        if (primeira == null) {
+            return lote;
+        }
+        lote.add(primeira);
+
+        while (lote.size() < tamanhoLote) {
+            Object mensagem = listas.move(fila, Direction.LEFT, processando, Direction.RIGHT);
+            if (mensagem == null) {
+                break;
+            }
+            lote.add(mensagem);
+        }
+
+        return lote;
+    }
+
+    /**
+     * Devolve ao início da fila as mensagens que estavam em processamento nesta instância
+     */
+    private void recuperarMensagensEmProcessamento(String fila) {
+        try {
+            for (String processando : listasDeProcessamento(fila + PROCESSANDO_SUFIXO + instancia + ":*")) {
+                long recuperadas = devolverPendentes(fila, processando);
+                if (recuperadas > 0) {
+                    log.warn("{} mensagens recuperadas de {} para {}", recuperadas, processando, fila);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Erro ao recuperar mensagens em processamento da fila {}", fila, e);
+        }
+    }
+
+    /**
+     * Listas de processamento que casam com o padrão (SCAN, sem bloquear o Redis como KEYS)
+     */
+    private List<String> listasDeProcessamento(String padrao) {
+        List<String> chaves = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(padrao).count(1000).build())) {
+            cursor.forEachRemaining(chaves::add);
+        }
+        return chaves;
+    }
+
+    /**
+     * Instância dona da lista: {fila}:processando:{instancia}:{worker}
+     */
+    private static String instanciaDa(String prefixo, String processando) {
+        String resto = processando.substring(prefixo.length());
+        int separador = resto.lastIndexOf(':');
+        return separador > 0 ? resto.substring(0, separador) : null;
+    }
+
+    /**
+     * Devolve ao início da fila as mensagens da lista de processamento, preservando a ordem
+     * Cada mensagem é lida em bytes antes de ser movida: as que não podem ser desserializadas
+     * vão para a fila de falhas em vez de voltar à fila. A lista deve pertencer a quem chama.
+     */
+    private long devolverPendentes(String fila, String processando) {
+        byte[] origem = processando.getBytes(StandardCharsets.UTF_8);
+        byte[] destino = fila.getBytes(StandardCharsets.UTF_8);
+        byte[] falhas = (fila + FALHAS_SUFIXO).getBytes(StandardCharsets.UTF_8);
+
+        Long devolvidas = redisTemplate.execute((RedisCallback<Long>) conexao -> {
+            RedisListCommands comandos = conexao.listCommands();
+            long movidas = 0;
+            byte[] ultima;
+            while ((ultima = comandos.lIndex(origem, -1)) != null) {
+                if (decodificavel(ultima)) {
+                    comandos.lMove(origem, destino, Direction.RIGHT, Direction.LEFT);
+                    movidas++;
+                } else {
+                    comandos.lMove(origem, falhas, Direction.RIGHT, Direction.RIGHT);
+                    estatisticas.get(fila).falhas.increment();
+                    log.error("Mensagem ilegível em {} movida para {}", processando, fila + FALHAS_SUFIXO);
+                }
+            }
+            return movidas;
+        });
+        return devolvidas != null ? devolvidas : 0;
+    }
+
+    private boolean decodificavel(byte[] mensagem) {
+        try {
+            return redisTemplate.getValueSerializer().deserialize(mensagem) != null;
+        } catch (SerializationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Move todas as mensagens da origem para o destino, preservando a ordem
+     */
+    private long moverTodas(ListOperations<String, Object> listas, String origem, String destino, Direction lado) {
+        Direction retirada = lado == Direction.LEFT ? Direction.RIGHT : Direction.LEFT;
+        long movidas = 0;
+        while (listas.move(origem, retirada, destino, lado) != null) {
+            movidas++;
+        }
+        return movidas;
+    }
+
+    private void aguardar(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Contadores de uma fila
+     */
+    private static class EstatisticasFila {
+        private final LongAdder processadas = new LongAdder();
+        private final LongAdder falhas = new LongAdder();
+        private final LongAdder reentregas = new LongAdder();
+        private final LongAdder lotes = new LongAdder();
+        private final AtomicInteger emProcessamento = new AtomicInteger();
+        private volatile long ultimoProcessamento;
+        private volatile long ultimaAmostra = System.currentTimeMillis();
+        private volatile long processadasUltimaAmostra;
+        private volatile double mensagensPorSegundo;
+        private volatile long atrasoMs;
+
+        void registrarProcessadas(int quantidade) {
+            processadas.add(quantidade);
+            lotes.increment();
+            ultimoProcessamento = System.currentTimeMillis();
+        }
+
+        /**
+         * Atraso da mensagem mais antiga do lote (tempo entre a publicação e o consumo)
+         */
+        void registrarAtraso(List<Object> lote) {
+            long agora = System.currentTimeMillis();
+            long maior = -1;
+            for (Object mensagem : lote) {
+                if (mensagem instanceof EventoMatricula evento) {
+                    maior = Math.max(maior, agora - evento.getTimestamp());
+                }
+            }
+            if (maior >= 0) {
+                atrasoMs = maior;
+            }
+        }
+
+        void amostrar() {
+            long agora = System.currentTimeMillis();
+            long total = processadas.sum();
+            long intervalo = Math.max(1, agora - ultimaAmostra);
+            mensagensPorSegundo = (total - processadasUltimaAmostra) * 1000.0 / intervalo;
+            processadasUltimaAmostra = total;
+            ultimaAmostra = agora;
+        }
+
+        Map<String, Object> resumo() {
+            Map<String, Object> resumo = new LinkedHashMap<>();
+            resumo.put("processadas", processadas.sum());
+            resumo.put("falhas", falhas.sum());
+            resumo.put("reentregas", reentregas.sum());
+            resumo.put("lotes", lotes.sum());
+            resumo.put("emProcessamento", emProcessamento.get());
+            resumo.put("mensagensPorSegundo", mensagensPorSegundo);
+            resumo.put("atrasoMs", atrasoMs);
+            resumo.put("msDesdeUltimoProcessamento",
+                    ultimoProcessamento == 0 ? null : System.currentTimeMillis() - ultimoProcessamento);
+            return resumo;
+        }
+    }
+}
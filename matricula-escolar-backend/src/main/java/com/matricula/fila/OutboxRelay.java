@@ -0,0 +1,89 @@
+package com.matricula.fila;
+
+import com.matricula.model.OutboxEvento;
+import com.matricula.repository.OutboxEventoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Relay do outbox de eventos
+ * Lê os eventos confirmados em outbox_eventos, publica-os nas filas do Redis em um único
+ * pipeline e só então os remove da tabela (entrega at-least-once). Se o Redis estiver
+ * indisponível, os eventos permanecem na tabela e são publicados na próxima execução.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventoRepository outboxEventoRepository;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${outbox.relay.lote:500}")
+    private int tamanhoLote;
+
+    public OutboxRelay(OutboxEventoRepository outboxEventoRepository,
+                       RedisTemplate<String, Object> redisTemplate,
+                       PlatformTransactionManager transactionManager) {
+        this.outboxEventoRepository = outboxEventoRepository;
+        this.redisTemplate = redisTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Drena o outbox enquanto houver lotes completos pendentes
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.intervalo-ms:200}")
+    public void publicarPendentes() {
+        try {
+            int publicados;
+            do {
+                Integer resultado = transactionTemplate.execute(status -> publicarLote());
+                publicados = resultado != null ? resultado : 0;
+            } while (publicados == tamanhoLote);
+        } catch (Exception e) {
+            log.warn("Erro ao publicar eventos do outbox; nova tentativa no próximo ciclo", e);
+        }
+    }
+
+    private int publicarLote() {
+        List<OutboxEvento> pendentes = outboxEventoRepository.findPendentes(PageRequest.of(0, tamanhoLote));
+        if (pendentes.isEmpty()) {
+            return 0;
+        }
+
+        // Agrupar por fila preservando a ordem dos eventos em cada fila
+        Map<String, List<byte[]>> porFila = new LinkedHashMap<>();
+        for (OutboxEvento evento : pendentes) {
+            porFila.computeIfAbsent(evento.getFila(), fila -> new ArrayList<>()).add(evento.getPayload());
+        }
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, List<byte[]>> entrada : porFila.entrySet()) {
+                connection.listCommands().rPush(entrada.getKey().getBytes(StandardCharsets.UTF_8),
+                        entrada.getValue().toArray(new byte[0][]));
+            }
+            return null;
+        });
+
+        outboxEventoRepository.deleteAllByIdInBatch(pendentes.stream()
+                .map(OutboxEvento::getId)
+                .collect(Collectors.toList()));
+
+        log.debug("{} eventos do outbox publicados no Redis", pendentes.size());
+        return pendentes.size();
+    }
+}
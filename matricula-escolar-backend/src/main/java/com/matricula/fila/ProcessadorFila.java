@@ -0,0 +1,45 @@
+package com.matricula.fila;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.TransactionException;
+import java.util.List;
+
+/**
+ * Contrato para processamento das mensagens consumidas das filas do Redis
+ * Cada lote é confirmado (ack) somente após o retorno sem exceção. Se o processamento lançar
+ * uma falha transitória (ver falhaTransitoria) o lote inteiro é entregue novamente; as demais
+ * exceções movem o lote para a fila de falhas. Por isso o processamento de cada mensagem deve
+ * ser idempotente.
+ */
+public interface ProcessadorFila {
+
+    /**
+     * Indica se este processador trata as mensagens da fila informada
+     */
+    boolean suporta(String fila);
+
+    /**
+     * Processa um lote de mensagens de uma fila
+     * @param fila Chave da fila de origem
+     * @param mensagens Mensagens do lote, na ordem de chegada
+     */
+    void processar(String fila, List<Object> mensagens);
+
+    /**
+     * Indica se o erro (ou uma de suas causas) é de infraestrutura e pode passar ao repetir:
+     * banco ou Redis indisponível, timeout, conflitos de concorrência esgotados
+     */
+    static boolean falhaTransitoria(Throwable erro) {
+        for (Throwable causa = erro; causa != null; causa = causa.getCause()) {
+            if (causa instanceof TransientDataAccessException
+                    || causa instanceof RecoverableDataAccessException
+                    || causa instanceof DataAccessResourceFailureException
+                    || causa instanceof TransactionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,30 @@
+package com.matricula.fila;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Processador padrão das filas
+ * Registra as mensagens de matrícula e cancelamento no log da aplicação
+ */
+@Component
+@Slf4j
+public class RegistroProcessadorFila implements ProcessadorFila {
+
+    private static final Set<String> FILAS = Set.of("fila:matriculas", "fila:cancelamentos");
+
+    @Override
+    public boolean suporta(String fila) {
+        return FILAS.contains(fila);
+    }
+
+    @Override
+    public void processar(String fila, List<Object> mensagens) {
+        for (Object mensagem : mensagens) {
+            log.debug("[{}] {}", fila, mensagem);
+        }
+        log.info("Lote de {} mensagens processado da fila {}", mensagens.size(), fila);
+    }
+}
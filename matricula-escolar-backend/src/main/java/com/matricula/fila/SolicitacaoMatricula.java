@@ -0,0 +1,20 @@
+package com.matricula.fila;
+
+import lombok.*;
+
+/**
+ * Solicitação de matrícula aguardando processamento assíncrono
+ * Publicada na fila de entrada quando o cliente usa o modo assíncrono (202 + ticket)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SolicitacaoMatricula {
+
+    private String ticketId;
+    private Integer alunoId;
+    private Integer turmaId;
+    private String turno;
+    private long timestamp;
+}
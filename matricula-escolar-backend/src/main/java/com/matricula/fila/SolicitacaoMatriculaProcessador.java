@@ -0,0 +1,110 @@
+package com.matricula.fila;
+
+import com.matricula.dto.MatriculaDTO;
+import com.matricula.service.MatriculaService;
+import com.matricula.service.TicketMatriculaService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Processador da fila de solicitações de matrícula assíncronas
+ * Registra cada solicitação a uma taxa controlada (compartilhada entre os workers)
+ * e grava o resultado no ticket correspondente. Solicitações entregues de novo (recuperadas
+ * de uma lista de processamento) cujo ticket já não está PENDENTE são ignoradas; se o ticket
+ * ainda está PENDENTE mas a matrícula já foi gravada (queda entre o commit e o ticket), o
+ * ticket é concluído com ela. Falhas de infraestrutura não rejeitam o ticket: o lote é
+ * entregue novamente.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SolicitacaoMatriculaProcessador implements ProcessadorFila {
+
+    private final MatriculaService matriculaService;
+    private final TicketMatriculaService ticketMatriculaService;
+
+    @Value("${matricula.assincrona.taxa-por-segundo:200}")
+    private int taxaPorSegundo;
+
+    private final AtomicLong proximaLiberacao = new AtomicLong(Long.MIN_VALUE);
+
+    @Override
+    public boolean suporta(String fila) {
+        return TicketMatriculaService.FILA_SOLICITACOES_KEY.equals(fila);
+    }
+
+    @Override
+    public void processar(String fila, List<Object> mensagens) {
+        for (Object mensagem : mensagens) {
+            if (!(mensagem instanceof SolicitacaoMatricula solicitacao)) {
+                log.warn("Mensagem inesperada na fila {}: {}", fila, mensagem);
+                continue;
+            }
+
+            if (!ticketMatriculaService.pendente(solicitacao.getTicketId())) {
+                log.info("Solicitação {} já processada, ignorando nova entrega", solicitacao.getTicketId());
+                continue;
+            }
+
+            aguardarTaxa();
+
+            try {
+                Integer matriculaId = matriculaService.buscarAtivaRegistradaDesde(solicitacao.getAlunoId(),
+                                solicitacao.getTurmaId(), inicioDaSolicitacao(solicitacao))
+                        .orElseGet(() -> matriculaService.registrarMatricula(MatriculaDTO.builder()
+                                .alunoId(solicitacao.getAlunoId())
+                                .turmaId(solicitacao.getTurmaId())
+                                .turno(solicitacao.getTurno())
+                                .build()).getId());
+                ticketMatriculaService.concluir(solicitacao.getTicketId(), matriculaId);
+            } catch (RuntimeException e) {
+                if (ProcessadorFila.falhaTransitoria(e)) {
+                    log.warn("Falha transitória na solicitação {}, será entregue novamente: {}",
+                            solicitacao.getTicketId(), e.getMessage());
+                    throw e;
+                }
+                log.info("Solicitação {} rejeitada: {}", solicitacao.getTicketId(), e.getMessage());
+                ticketMatriculaService.rejeitar(solicitacao.getTicketId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Instante da solicitação, com um segundo de folga: data_matricula é gravada sem fração de
+     * segundo (arredondada) e por outra instância
+     */
+    private static LocalDateTime inicioDaSolicitacao(SolicitacaoMatricula solicitacao) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(solicitacao.getTimestamp()), ZoneId.systemDefault())
+                .truncatedTo(ChronoUnit.SECONDS)
+                .minusSeconds(1);
+    }
+
+    /**
+     * Limita a quantidade de matrículas processadas por segundo
+     * Cada chamada reserva o próximo intervalo livre e aguarda até ele
+     */
+    private void aguardarTaxa() {
+        long intervalo = TimeUnit.SECONDS.toNanos(1) / Math.max(1, taxaPorSegundo);
+        long agora = System.nanoTime();
+        long anterior = proximaLiberacao.getAndAccumulate(agora,
+                (ultima, atual) -> Math.max(ultima, atual) + intervalo);
+        long espera = Math.max(anterior, agora) - agora;
+
+        if (espera > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(espera);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.matricula.fila.evento;
+
+import com.matricula.model.Matricula;
+import org.springframework.data.redis.serializer.SerializationException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Codec binário versionado dos eventos de matrícula
+ *
+ * Formato (versão 1):
+ * [magic 0xE7][versão][tipo][matriculaId][alunoId][turmaId][turno][timestamp][motivo*]
+ * Inteiros são gravados como varint (valor + 1, sendo 0 = nulo), o turno como
+ * ordinal + 1 em um byte e o motivo (somente cancelamentos) como varint do tamanho + 1
+ * seguido dos bytes UTF-8. Uma mensagem típica ocupa cerca de 15 bytes.
+ * Novos campos devem ser acrescentados ao final com incremento da versão.
+ */
+public final class EventoCodec {
+
+    public static final byte MAGIC = (byte) 0xE7;
+    public static final byte VERSAO = 1;
+
+    private static final byte TIPO_CRIADA = 1;
+    private static final byte TIPO_CANCELADA = 2;
+
+    private static final Matricula.Turno[] TURNOS = Matricula.Turno.values();
+
+    private EventoCodec() {
+    }
+
+    /**
+     * Indica se os bytes foram produzidos por este codec
+     * O byte mágico nunca inicia um documento JSON válido
+     */
+    public static boolean isEvento(byte[] dados) {
+        return dados != null && dados.length >= 3 && dados[0] == MAGIC;
+    }
+
+    public static byte[] codificar(EventoMatricula evento) {
+        Escritor escritor = new Escritor(32);
+        escritor.byteBruto(MAGIC);
+        escritor.byteBruto(VERSAO);
+
+        if (evento instanceof MatriculaCriada criada) {
+            escritor.byteBruto(TIPO_CRIADA);
+            escreverComuns(escritor, evento, criada.getTurno());
+        } else if (evento instanceof MatriculaCancelada cancelada) {
+            escritor.byteBruto(TIPO_CANCELADA);
+            escreverComuns(escritor, evento, cancelada.getTurno());
+            escritor.texto(cancelada.getMotivo());
+        } else {
+            throw new SerializationException("Tipo de evento não suportado: " + evento.getClass().getName());
+        }
+
+        return escritor.bytes();
+    }
+
+    public static EventoMatricula decodificar(byte[] dados) {
+        if (!isEvento(dados)) {
+            throw new SerializationException("Dados não são um evento de matrícula");
+        }
+
+        Leitor leitor = new Leitor(dados, 1);
+        byte versao = leitor.byteBruto();
+        if (versao < 1 || versao > VERSAO) {
+            throw new SerializationException("Versão de evento não suportada: " + versao);
+        }
+
+        try {
+            byte tipo = leitor.byteBruto();
+            Integer matriculaId = leitor.inteiro();
+            Integer alunoId = leitor.inteiro();
+            Integer turmaId = leitor.inteiro();
+            Matricula.Turno turno = leitor.turno();
+            long timestamp = leitor.varLong();
+
+            switch (tipo) {
+                case TIPO_CRIADA:
+                    return new MatriculaCriada(matriculaId, alunoId, turmaId, turno, timestamp);
+                case TIPO_CANCELADA:
+                    return new MatriculaCancelada(matriculaId, alunoId, turmaId, turno, timestamp, leitor.texto());
+                default:
+                    throw new SerializationException("Tipo de evento desconhecido: " + tipo);
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new SerializationException("Evento de matrícula truncado", e);
+        }
+    }
+
+    private static void escreverComuns(Escritor escritor, EventoMatricula evento, Matricula.Turno turno) {
+        escritor.inteiro(evento.getMatriculaId());
+        escritor.inteiro(evento.getAlunoId());
+        escritor.inteiro(evento.getTurmaId());
+        escritor.byteBruto((byte) (turno == null ? 0 : turno.ordinal() + 1));
+        escritor.varLong(evento.getTimestamp());
+    }
+
+    private static final class Escritor {
+        private byte[] buffer;
+        private int posicao;
+
+        Escritor(int capacidade) {
+            buffer = new byte[capacidade];
+        }
+
+        void byteBruto(byte valor) {
+            garantir(1);
+            buffer[posicao++] = valor;
+        }
+
+        void inteiro(Integer valor) {
+            varLong(valor == null ? 0 : (valor & 0xFFFFFFFFL) + 1);
+        }
+
+        void varLong(long valor) {
+            garantir(10);
+            while ((valor & ~0x7FL) != 0) {
+                buffer[posicao++] = (byte) ((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            buffer[posicao++] = (byte) valor;
+        }
+
+        void texto(String valor) {
+            if (valor == null) {
+                varLong(0);
+                return;
+            }
+            byte[] utf8 = valor.getBytes(StandardCharsets.UTF_8);
+            varLong(utf8.length + 1L);
+            garantir(utf8.length);
+            System.arraycopy(utf8, 0, buffer, posicao, utf8.length);
+            posicao += utf8.length;
+        }
+
+        byte[] bytes() {
+            return Arrays.copyOf(buffer, posicao);
+        }
+
+        private void garantir(int adicional) {
+            if (posicao + adicional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, posicao + adicional));
+            }
+        }
+    }
+
+    private static final class Leitor {
+        private final byte[] dados;
+        private int posicao;
+
+        Leitor(byte[] dados, int posicao) {
+            this.dados = dados;
+            this.posicao = posicao;
+        }
+
+        byte byteBruto() {
+            return dados[posicao++];
+        }
+
+        Integer inteiro() {
+            long valor = varLong();
+            return valor == 0 ? null : (int) (valor - 1);
+        }
+
+        Matricula.Turno turno() {
+            int ordinal = byteBruto();
+            return ordinal <= 0 || ordinal > TURNOS.length ? null : TURNOS[ordinal - 1];
+        }
+
+        long varLong() {
+            long resultado = 0;
+            for (int deslocamento = 0; deslocamento < 64; deslocamento += 7) {
+                byte b = dados[posicao++];
+                resultado |= (long) (b & 0x7F) << deslocamento;
+                if ((b & 0x80) == 0) {
+                    return resultado;
+                }
+            }
+            throw new SerializationException("Varint inválido no evento de matrícula");
+        }
+
+        String texto() {
+            long tamanho = varLong();
+            if (tamanho == 0) {
+                return null;
+            }
+            int bytes = (int) (tamanho - 1);
+            if (posicao + bytes > dados.length) {
+                throw new SerializationException("Evento de matrícula truncado");
+            }
+            String valor = new String(dados, posicao, bytes, StandardCharsets.UTF_8);
+            posicao += bytes;
+            return valor;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.matricula.fila.evento;
+
+/**
+ * Evento publicado nas filas do Redis a cada mudança de matrícula
+ * Serializado em formato binário compacto pelo {@link EventoCodec}
+ */
+public interface EventoMatricula {
+
+    Integer getMatriculaId();
+
+    Integer getAlunoId();
+
+    Integer getTurmaId();
+
+    /**
+     * Momento do evento em epoch millis
+     */
+    long getTimestamp();
+}
@@ -0,0 +1,37 @@
+package com.matricula.fila.evento;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Serializer de valores do Redis
+ * Eventos de matrícula são gravados com o {@link EventoCodec}; os demais valores
+ * (e mensagens antigas já presentes nas filas) são delegados ao serializer informado
+ */
+public class EventoRedisSerializer implements RedisSerializer<Object> {
+
+    private final RedisSerializer<Object> delegado;
+
+    public EventoRedisSerializer(RedisSerializer<Object> delegado) {
+        this.delegado = delegado;
+    }
+
+    @Override
+    public byte[] serialize(Object valor) throws SerializationException {
+        if (valor instanceof EventoMatricula evento) {
+            return EventoCodec.codificar(evento);
+        }
+        return delegado.serialize(valor);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (EventoCodec.isEvento(bytes)) {
+            return EventoCodec.decodificar(bytes);
+        }
+        return delegado.deserialize(bytes);
+    }
+}
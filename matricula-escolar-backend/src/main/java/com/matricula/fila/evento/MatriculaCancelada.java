@@ -0,0 +1,33 @@
+package com.matricula.fila.evento;
+
+import com.matricula.model.Matricula;
+import lombok.*;
+
+/**
+ * Evento: MatriculaCancelada
+ * Publicado em fila:cancelamentos quando uma matrícula é cancelada
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MatriculaCancelada implements EventoMatricula {
+
+    private Integer matriculaId;
+    private Integer alunoId;
+    private Integer turmaId;
+    private Matricula.Turno turno;
+    private long timestamp;
+    private String motivo;
+
+    public static MatriculaCancelada de(Matricula matricula) {
+        return MatriculaCancelada.builder()
+                .matriculaId(matricula.getId())
+                .alunoId(matricula.getAluno().getId())
+                .turmaId(matricula.getTurma().getId())
+                .turno(matricula.getTurno())
+                .timestamp(System.currentTimeMillis())
+                .motivo(matricula.getMotivoCancelamento())
+                .build();
+    }
+}
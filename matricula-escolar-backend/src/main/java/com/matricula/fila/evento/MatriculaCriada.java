@@ -0,0 +1,31 @@
+package com.matricula.fila.evento;
+
+import com.matricula.model.Matricula;
+import lombok.*;
+
+/**
+ * Evento: MatriculaCriada
+ * Publicado em fila:matriculas quando uma matrícula é registrada
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MatriculaCriada implements EventoMatricula {
+
+    private Integer matriculaId;
+    private Integer alunoId;
+    private Integer turmaId;
+    private Matricula.Turno turno;
+    private long timestamp;
+
+    public static MatriculaCriada de(Matricula matricula) {
+        return MatriculaCriada.builder()
+                .matriculaId(matricula.getId())
+                .alunoId(matricula.getAluno().getId())
+                .turmaId(matricula.getTurma().getId())
+                .turno(matricula.getTurno())
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
+}
@@ -14,10 +14,13 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "alunos", indexes = {
     @Index(name = "idx_cpf", columnList = "cpf"),
-    @Index(name = "idx_email", columnList = "email"),
+    @Index(name = "idx_email", columnList = "email", unique = true),
     @Index(name = "idx_turma_id", columnList = "turma_id"),
     @Index(name = "idx_turno", columnList = "turno"),
     @Index(name = "idx_status", columnList = "status"),
+    @Index(name = "idx_status_nome", columnList = "status,nome"),
+    @Index(name = "idx_status_data_atualizacao", columnList = "status,data_atualizacao"),
+    @Index(name = "idx_data_atualizacao_id", columnList = "data_atualizacao,id"),
     @Index(name = "idx_data_matricula", columnList = "data_matricula")
 })
 @Data
@@ -26,8 +29,13 @@ import java.time.LocalDateTime;
 @Builder
 public class Aluno {
 
+    /**
+     * ID gerado por tabela de sequência com alocação em blocos (pooled-lo),
+     * permitindo que o Hibernate agrupe os INSERTs em lotes JDBC
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alunos_seq")
+    @SequenceGenerator(name = "alunos_seq", sequenceName = "alunos_seq", allocationSize = 50)
     private Integer id;
 
     @NotBlank(message = "Nome do aluno é obrigatório")
@@ -80,7 +88,7 @@ public class Aluno {
     @Column(name = "responsavel_email", length = 150)
     private String responsavelEmail;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "turma_id")
     private Turma turma;
 
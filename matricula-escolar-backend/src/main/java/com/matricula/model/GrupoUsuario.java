@@ -3,12 +3,15 @@ package com.matricula.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
 /**
  * Entidade: GrupoUsuario
  * Descrição: Define grupos de usuários com diferentes níveis de permissão
  * Justificativa: Controle granular de acesso baseado em grupos
+ * Cache de segundo nível: região "grupos-usuarios" (READ_WRITE)
  */
 @Entity
 @Table(name = "grupos_usuarios", indexes = {
@@ -19,6 +22,8 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "grupos-usuarios")
 public class GrupoUsuario {
 
     @Id
@@ -13,7 +13,11 @@ import java.time.LocalDateTime;
 @Table(name = "matriculas", indexes = {
     @Index(name = "idx_aluno_id", columnList = "aluno_id"),
     @Index(name = "idx_turma_id", columnList = "turma_id"),
+    @Index(name = "idx_turma_status", columnList = "turma_id,status"),
     @Index(name = "idx_status", columnList = "status"),
+    @Index(name = "idx_status_data_matricula", columnList = "status,data_matricula"),
+    @Index(name = "idx_status_data_atualizacao", columnList = "status,data_atualizacao"),
+    @Index(name = "idx_data_atualizacao_id", columnList = "data_atualizacao,id"),
     @Index(name = "idx_data_matricula", columnList = "data_matricula"),
     @Index(name = "uk_aluno_turma", columnList = "aluno_id,turma_id", unique = true)
 })
@@ -23,17 +27,22 @@ import java.time.LocalDateTime;
 @Builder
 public class Matricula {
 
+    /**
+     * ID gerado por tabela de sequência com alocação em blocos (pooled-lo),
+     * permitindo que o Hibernate agrupe os INSERTs em lotes JDBC
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "matriculas_seq")
+    @SequenceGenerator(name = "matriculas_seq", sequenceName = "matriculas_seq", allocationSize = 50)
     private Integer id;
 
     @NotNull(message = "Aluno é obrigatório")
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "aluno_id", nullable = false)
     private Aluno aluno;
 
     @NotNull(message = "Turma é obrigatória")
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "turma_id", nullable = false)
     private Turma turma;
 
@@ -0,0 +1,44 @@
+package com.matricula.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entidade: OutboxEvento
+ * Descrição: Evento pendente de publicação em uma fila do Redis
+ * Justificativa: Gravado na mesma transação da matrícula (transactional outbox),
+ * garante que a fila só recebe eventos de transações confirmadas
+ */
+@Entity
+@Table(name = "outbox_eventos")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_eventos_seq")
+    @SequenceGenerator(name = "outbox_eventos_seq", sequenceName = "outbox_eventos_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String fila;
+
+    /**
+     * Evento codificado; MEDIUMBLOB porque o cancelamento leva o motivo (TEXT, sem limite na API)
+     */
+    @Column(nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] payload;
+
+    @Column(name = "data_criacao", nullable = false, updatable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    @Builder.Default
+    private LocalDateTime dataCriacao = LocalDateTime.now();
+
+    @PrePersist
+    protected void onCreate() {
+        dataCriacao = LocalDateTime.now();
+    }
+}
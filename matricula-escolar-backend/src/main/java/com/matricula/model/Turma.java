@@ -3,22 +3,28 @@ package com.matricula.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
 /**
  * Entidade: Turma
  * Descrição: Representa uma turma na escola
+ * Cache de segundo nível: região "turmas" (READ_WRITE)
  */
 @Entity
 @Table(name = "turmas", indexes = {
     @Index(name = "idx_serie", columnList = "serie"),
     @Index(name = "idx_turno", columnList = "turno"),
-    @Index(name = "idx_ativo", columnList = "ativo")
+    @Index(name = "idx_ativo", columnList = "ativo"),
+    @Index(name = "idx_data_atualizacao_id", columnList = "data_atualizacao,id")
 })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "turmas")
 public class Turma {
 
     @Id
@@ -47,6 +53,26 @@ public class Turma {
     @Builder.Default
     private Integer capacidade = 30;
 
+    /**
+     * Matrículas ativas na turma, mantida na mesma transação da matrícula/cancelamento
+     * Conferida periodicamente com o COUNT de matrículas pelo ReconciliadorOcupacao
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer ocupacao = 0;
+
+    @Version
+    @Column(nullable = false)
+    private Long versao;
+
+    /**
+     * Vagas livres pela ocupação da linha: a garantia final de que a capacidade não é
+     * ultrapassada (o contador de vagas do VagaService é só a admissão rápida)
+     */
+    public int vagasLivres() {
+        return Math.max(0, capacidade - ocupacao);
+    }
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "professor_id")
     private Usuario professor;
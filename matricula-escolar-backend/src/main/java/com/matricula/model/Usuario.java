@@ -3,6 +3,8 @@ package com.matricula.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.Set;
 
@@ -10,6 +12,7 @@ import java.util.Set;
  * Entidade: Usuario
  * Descrição: Representa um usuário do sistema com informações pessoais e de acesso
  * Validações: Nome e Email são tratados com validações específicas
+ * Cache de segundo nível: região "usuarios" (READ_WRITE)
  */
 @Entity
 @Table(name = "usuarios", indexes = {
@@ -22,6 +25,8 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "usuarios")
 public class Usuario {
 
     @Id
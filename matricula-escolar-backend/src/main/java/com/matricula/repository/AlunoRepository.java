@@ -1,12 +1,20 @@
 package com.matricula.repository;
 
 import com.matricula.model.Aluno;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository: AlunoRepository
@@ -19,6 +27,10 @@ public interface AlunoRepository extends JpaRepository<Aluno, Integer> {
 
     Optional<Aluno> findByEmail(String email);
 
+    boolean existsByCpf(String cpf);
+
+    boolean existsByEmail(String email);
+
     List<Aluno> findByTurmaIdAndStatusOrderByNome(Integer turmaId, Aluno.Status status);
 
     List<Aluno> findByTurnoAndStatusOrderByNome(Aluno.Turno turno, Aluno.Status status);
@@ -26,5 +38,150 @@ public interface AlunoRepository extends JpaRepository<Aluno, Integer> {
     @Query("SELECT a FROM Aluno a WHERE a.status = 'ATIVO' ORDER BY a.nome")
     List<Aluno> findAllAtivos();
 
+    /**
+     * Projeção das listagens: colunas do DTO lidas em uma única consulta, sem hidratar entidades
+     */
+    String SELECT_RESUMO = "SELECT a.id AS id, a.nome AS nome, a.cpf AS cpf, a.email AS email, "
+            + "a.telefone AS telefone, a.endereco AS endereco, a.idade AS idade, a.dataNascimento AS dataNascimento, "
+            + "a.responsavelNome AS responsavelNome, a.responsavelTelefone AS responsavelTelefone, "
+            + "a.responsavelEmail AS responsavelEmail, t.id AS turmaId, a.turno AS turno, a.status AS status, "
+            + "a.dataMatricula AS dataMatricula, a.dataAtualizacao AS dataAtualizacao "
+            + "FROM Aluno a LEFT JOIN a.turma t ";
+
+    @Query(SELECT_RESUMO + "WHERE t.id = :turmaId AND a.status = :status ORDER BY a.nome")
+    List<AlunoResumo> findResumosPorTurma(@Param("turmaId") Integer turmaId, @Param("status") Aluno.Status status);
+
+    /**
+     * Primeira página de alunos ativos por (nome, id) - índice idx_status_nome
+     */
+    @Query(SELECT_RESUMO + "WHERE a.status = 'ATIVO' ORDER BY a.nome, a.id")
+    List<AlunoResumo> findAtivosPaginados(Pageable pageable);
+
+    /**
+     * Página seguinte ao cursor (nome, id), sem OFFSET
+     */
+    @Query(SELECT_RESUMO + "WHERE a.status = 'ATIVO' "
+            + "AND (a.nome > :nome OR (a.nome = :nome AND a.id > :id)) ORDER BY a.nome, a.id")
+    List<AlunoResumo> findAtivosPaginadosApos(@Param("nome") String nome, @Param("id") Integer id,
+                                              Pageable pageable);
+
     long countByTurmaIdAndStatus(Integer turmaId, Aluno.Status status);
+
+    /**
+     * Todos os alunos para exportação, lidos em streaming (ver MatriculaRepository.streamTodas)
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Aluno a LEFT JOIN FETCH a.turma ORDER BY a.id")
+    Stream<Aluno> streamTodos();
+
+    /**
+     * Alunos de um status para exportação, lidos em streaming (idx_status)
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Aluno a LEFT JOIN FETCH a.turma WHERE a.status = :status ORDER BY a.id")
+    Stream<Aluno> streamPorStatus(@Param("status") Aluno.Status status);
+
+    /**
+     * Colunas do índice de busca (typeahead), lidas em streaming na construção do índice
+     */
+    String SELECT_BUSCA = "SELECT a.id AS id, a.nome AS nome, a.cpf AS cpf, "
+            + "a.responsavelNome AS responsavelNome, a.status AS status FROM Aluno a ";
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_BUSCA + "WHERE a.status <> :status")
+    Stream<AlunoBusca> streamParaBusca(@Param("status") Aluno.Status statusExcluido);
+
+    @Query(SELECT_BUSCA + "WHERE a.id = :id")
+    Optional<AlunoBusca> findBuscaById(@Param("id") Integer id);
+
+    /**
+     * CPFs e emails de todos os alunos, lidos em streaming (filtros de unicidade)
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a.cpf AS cpf, a.email AS email FROM Aluno a")
+    Stream<ChavesUnicas> streamChavesUnicas();
+
+    @Query("SELECT a FROM Aluno a LEFT JOIN FETCH a.turma WHERE a.id IN :ids")
+    List<Aluno> findAllByIdComTurma(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Versões para GET condicional: o AlunoDTO só contém colunas do próprio aluno
+     */
+    @Query("SELECT COUNT(a) AS total, MAX(a.dataAtualizacao) AS atualizacao FROM Aluno a WHERE a.id = :id")
+    VersaoRecurso findVersaoById(@Param("id") Integer id);
+
+    @Query("SELECT COUNT(a) AS total, MAX(a.dataAtualizacao) AS atualizacao FROM Aluno a "
+            + "WHERE a.status = 'ATIVO'")
+    VersaoRecurso findVersaoAtivos();
+
+    @Query("SELECT COUNT(a) AS total, MAX(a.dataAtualizacao) AS atualizacao FROM Aluno a "
+            + "WHERE a.turma.id = :turmaId AND a.status = :status")
+    VersaoRecurso findVersaoPorTurma(@Param("turmaId") Integer turmaId, @Param("status") Aluno.Status status);
+
+    /**
+     * Feed de alterações: alunos alterados após a posição (dataAtualizacao, id) e antes de :ate,
+     * inclusive os excluídos (CANCELADO), pelo índice idx_data_atualizacao_id
+     */
+    @Query(SELECT_RESUMO + "WHERE (a.dataAtualizacao > :data OR (a.dataAtualizacao = :data AND a.id > :id)) "
+            + "AND a.dataAtualizacao < :ate ORDER BY a.dataAtualizacao, a.id")
+    List<AlunoResumo> findAlteradosApos(@Param("data") LocalDateTime data, @Param("id") Integer id,
+                                        @Param("ate") LocalDateTime ate, Pageable pageable);
+
+    interface AlunoResumo {
+        Integer getId();
+
+        String getNome();
+
+        String getCpf();
+
+        String getEmail();
+
+        String getTelefone();
+
+        String getEndereco();
+
+        Integer getIdade();
+
+        LocalDate getDataNascimento();
+
+        String getResponsavelNome();
+
+        String getResponsavelTelefone();
+
+        String getResponsavelEmail();
+
+        Integer getTurmaId();
+
+        Aluno.Turno getTurno();
+
+        Aluno.Status getStatus();
+
+        LocalDateTime getDataMatricula();
+
+        LocalDateTime getDataAtualizacao();
+    }
+
+    interface AlunoBusca {
+        Integer getId();
+
+        String getNome();
+
+        String getCpf();
+
+        String getResponsavelNome();
+
+        Aluno.Status getStatus();
+    }
 }
@@ -0,0 +1,12 @@
+package com.matricula.repository;
+
+/**
+ * Projeção: colunas únicas (CPF e email) de alunos e usuários, lidas em streaming para
+ * montar os filtros de unicidade sem carregar as entidades
+ */
+public interface ChavesUnicas {
+
+    String getCpf();
+
+    String getEmail();
+}
@@ -1,10 +1,20 @@
 package com.matricula.repository;
 
 import com.matricula.model.Matricula;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository: MatriculaRepository
@@ -21,7 +31,175 @@ public interface MatriculaRepository extends JpaRepository<Matricula, Integer> {
 
     List<Matricula> findByStatusOrderByDataMatriculaDesc(Matricula.Status status);
 
+    /**
+     * Projeção das listagens: colunas do DTO lidas em um único JOIN, sem hidratar entidades
+     */
+    String SELECT_RESUMO = "SELECT m.id AS id, a.id AS alunoId, a.nome AS alunoNome, a.cpf AS alunoCpf, "
+            + "t.id AS turmaId, t.nome AS turmaNome, t.serie AS turmaSerie, m.turno AS turno, m.status AS status, "
+            + "m.dataMatricula AS dataMatricula, m.dataCancelamento AS dataCancelamento, "
+            + "m.motivoCancelamento AS motivoCancelamento, m.dataAtualizacao AS dataAtualizacao "
+            + "FROM Matricula m JOIN m.aluno a JOIN m.turma t ";
+
+    @Query(SELECT_RESUMO + "WHERE m.id = :id")
+    Optional<MatriculaResumo> findResumoById(@Param("id") Integer id);
+
+    @Query(SELECT_RESUMO + "WHERE t.id = :turmaId AND m.status = :status ORDER BY m.dataMatricula")
+    List<MatriculaResumo> findResumosPorTurma(@Param("turmaId") Integer turmaId,
+                                              @Param("status") Matricula.Status status);
+
+    /**
+     * Primeira página por (dataMatricula, id) decrescentes - índice idx_status_data_matricula
+     */
+    @Query(SELECT_RESUMO + "WHERE m.status = :status ORDER BY m.dataMatricula DESC, m.id DESC")
+    List<MatriculaResumo> findPaginadas(@Param("status") Matricula.Status status, Pageable pageable);
+
+    /**
+     * Página seguinte ao cursor (dataMatricula, id), sem OFFSET
+     */
+    @Query(SELECT_RESUMO + "WHERE m.status = :status "
+            + "AND (m.dataMatricula < :data OR (m.dataMatricula = :data AND m.id < :id)) "
+            + "ORDER BY m.dataMatricula DESC, m.id DESC")
+    List<MatriculaResumo> findPaginadasApos(@Param("status") Matricula.Status status,
+                                            @Param("data") LocalDateTime data,
+                                            @Param("id") Integer id, Pageable pageable);
+
+    /**
+     * Todas as matrículas para exportação, lidas em streaming
+     * Fetch size Integer.MIN_VALUE faz o driver do MySQL entregar as linhas uma a uma,
+     * sem carregar o resultado inteiro; deve ser consumido dentro de uma transação
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT m FROM Matricula m JOIN FETCH m.aluno JOIN FETCH m.turma ORDER BY m.id")
+    Stream<Matricula> streamTodas();
+
+    /**
+     * Matrículas de um status para exportação, lidas em streaming (idx_status)
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT m FROM Matricula m JOIN FETCH m.aluno JOIN FETCH m.turma WHERE m.status = :status ORDER BY m.id")
+    Stream<Matricula> streamPorStatus(@Param("status") Matricula.Status status);
+
     long countByTurmaIdAndStatus(Integer turmaId, Matricula.Status status);
 
     boolean existsByAlunoIdAndTurmaIdAndStatus(Integer alunoId, Integer turmaId, Matricula.Status status);
+
+    boolean existsByAlunoIdAndTurmaId(Integer alunoId, Integer turmaId);
+
+    Optional<Matricula> findByAlunoIdAndTurmaIdAndStatusAndDataMatriculaGreaterThanEqual(
+            Integer alunoId, Integer turmaId, Matricula.Status status, LocalDateTime desde);
+
+    @Query("SELECT m.turma.id FROM Matricula m WHERE m.id = :id")
+    Optional<Integer> findTurmaIdById(@Param("id") Integer id);
+
+    /**
+     * Pares aluno/turma já matriculados (qualquer status), usados pela matrícula em lote
+     * para respeitar a chave única uk_aluno_turma sem uma consulta por item
+     */
+    @Query("SELECT m.aluno.id AS alunoId, m.turma.id AS turmaId, m.status AS status FROM Matricula m "
+            + "WHERE m.aluno.id IN :alunoIds AND m.turma.id IN :turmaIds")
+    List<MatriculaExistente> findExistentes(@Param("alunoIds") Collection<Integer> alunoIds,
+                                            @Param("turmaIds") Collection<Integer> turmaIds);
+
+    /**
+     * Quantidade de matrículas por turma em um único GROUP BY (turmas sem matrículas não retornam)
+     */
+    @Query("SELECT m.turma.id AS turmaId, COUNT(m) AS total FROM Matricula m "
+            + "WHERE m.turma.id IN :turmaIds AND m.status = :status GROUP BY m.turma.id")
+    List<OcupacaoTurma> countPorTurma(@Param("turmaIds") Collection<Integer> turmaIds,
+                                      @Param("status") Matricula.Status status);
+
+    /**
+     * Versões para GET condicional: incluem a atualização do aluno e da turma (exibidos no DTO)
+     */
+    String SELECT_VERSAO = "SELECT COUNT(m) AS total, "
+            + "MAX(GREATEST(m.dataAtualizacao, a.dataAtualizacao, t.dataAtualizacao)) AS atualizacao "
+            + "FROM Matricula m JOIN m.aluno a JOIN m.turma t ";
+
+    @Query(SELECT_VERSAO + "WHERE m.id = :id")
+    VersaoRecurso findVersaoById(@Param("id") Integer id);
+
+    @Query(SELECT_VERSAO + "WHERE t.id = :turmaId AND m.status = :status")
+    VersaoRecurso findVersaoPorTurma(@Param("turmaId") Integer turmaId, @Param("status") Matricula.Status status);
+
+    /**
+     * Versão da listagem geral sem JOIN: COUNT/MAX pelo índice idx_status_data_atualizacao e o
+     * MAX de alunos e turmas na tabela inteira (conservador, mas barato)
+     */
+    @Query("SELECT COUNT(m) AS total, GREATEST(MAX(m.dataAtualizacao), "
+            + "(SELECT MAX(a.dataAtualizacao) FROM Aluno a), (SELECT MAX(t.dataAtualizacao) FROM Turma t)) AS atualizacao "
+            + "FROM Matricula m WHERE m.status = :status")
+    VersaoRecurso findVersaoPorStatus(@Param("status") Matricula.Status status);
+
+    /**
+     * Feed de alterações: matrículas alteradas após a posição (dataAtualizacao, id) e antes de
+     * :ate, pelo índice idx_data_atualizacao_id
+     */
+    @Query(SELECT_RESUMO + "WHERE (m.dataAtualizacao > :data OR (m.dataAtualizacao = :data AND m.id > :id)) "
+            + "AND m.dataAtualizacao < :ate ORDER BY m.dataAtualizacao, m.id")
+    List<MatriculaResumo> findAlteradasApos(@Param("data") LocalDateTime data, @Param("id") Integer id,
+                                            @Param("ate") LocalDateTime ate, Pageable pageable);
+
+    /**
+     * Relógio do banco, o mesmo que preenche data_atualizacao (gatilhos)
+     */
+    @Query(value = "SELECT CURRENT_TIMESTAMP(6)", nativeQuery = true)
+    Timestamp obterDataHoraBanco();
+
+    /**
+     * Início da transação de escrita aberta mais antiga (null se não há nenhuma), exceto a da
+     * própria conexão; transações somente leitura e SELECTs em autocommit não gravam e ficam de fora
+     * Exige o privilégio PROCESS no MySQL
+     */
+    @Query(value = "SELECT MIN(trx_started) FROM information_schema.innodb_trx "
+            + "WHERE trx_is_read_only = 0 AND trx_autocommit_non_locking = 0 "
+            + "AND trx_mysql_thread_id <> CONNECTION_ID()", nativeQuery = true)
+    Timestamp obterInicioTransacaoAbertaMaisAntiga();
+
+    interface MatriculaResumo {
+        Integer getId();
+
+        Integer getAlunoId();
+
+        String getAlunoNome();
+
+        String getAlunoCpf();
+
+        Integer getTurmaId();
+
+        String getTurmaNome();
+
+        String getTurmaSerie();
+
+        Matricula.Turno getTurno();
+
+        Matricula.Status getStatus();
+
+        LocalDateTime getDataMatricula();
+
+        LocalDateTime getDataCancelamento();
+
+        String getMotivoCancelamento();
+
+        LocalDateTime getDataAtualizacao();
+    }
+
+    interface OcupacaoTurma {
+        Integer getTurmaId();
+
+        Long getTotal();
+    }
+
+    interface MatriculaExistente {
+        Integer getAlunoId();
+
+        Integer getTurmaId();
+
+        Matricula.Status getStatus();
+    }
 }
@@ -0,0 +1,29 @@
+package com.matricula.repository;
+
+import com.matricula.model.OutboxEvento;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+/**
+ * Repository: OutboxEventoRepository
+ * Acesso aos eventos pendentes de publicação no Redis
+ */
+@Repository
+public interface OutboxEventoRepository extends JpaRepository<OutboxEvento, Long> {
+
+    /**
+     * Eventos mais antigos ainda não publicados
+     * FOR UPDATE SKIP LOCKED (timeout -2) permite vários relays em paralelo sem publicar o mesmo evento
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM OutboxEvento o ORDER BY o.id")
+    List<OutboxEvento> findPendentes(Pageable pageable);
+}
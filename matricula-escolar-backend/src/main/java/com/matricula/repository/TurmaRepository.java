@@ -1,9 +1,15 @@
 package com.matricula.repository;
 
+import com.matricula.model.Matricula;
 import com.matricula.model.Turma;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository: TurmaRepository
@@ -18,5 +24,93 @@ public interface TurmaRepository extends JpaRepository<Turma, Integer> {
 
     List<Turma> findByAtivoTrueOrderBySerieAscTurnoAsc();
 
-    List<Turma> findByProfessorIdAndAtivoTrue(Integer professorId);
+    /**
+     * Projeção das listagens: colunas do DTO (inclusive o professor) em uma única consulta
+     */
+    String SELECT_RESUMO = "SELECT t.id AS id, t.nome AS nome, t.serie AS serie, t.turno AS turno, "
+            + "t.capacidade AS capacidade, t.ocupacao AS ocupacao, p.id AS professorId, p.nome AS professorNome, "
+            + "t.ativo AS ativo, t.dataCriacao AS dataCriacao, t.dataAtualizacao AS dataAtualizacao "
+            + "FROM Turma t LEFT JOIN t.professor p ";
+
+    @Query(SELECT_RESUMO + "WHERE t.id = :id")
+    Optional<TurmaResumo> findResumoById(@Param("id") Integer id);
+
+    /**
+     * Primeira página de turmas ativas por (nome, id)
+     */
+    @Query(SELECT_RESUMO + "WHERE t.ativo = true ORDER BY t.nome, t.id")
+    List<TurmaResumo> findAtivasPaginadas(Pageable pageable);
+
+    /**
+     * Página seguinte ao cursor (nome, id), sem OFFSET
+     */
+    @Query(SELECT_RESUMO + "WHERE t.ativo = true "
+            + "AND (t.nome > :nome OR (t.nome = :nome AND t.id > :id)) ORDER BY t.nome, t.id")
+    List<TurmaResumo> findAtivasPaginadasApos(@Param("nome") String nome, @Param("id") Integer id,
+                                              Pageable pageable);
+
+    /**
+     * IDs das turmas após o ID informado, em ordem (paginação por chave da reconciliação)
+     */
+    @Query("SELECT t.id FROM Turma t WHERE t.id > :ultimoId ORDER BY t.id")
+    List<Integer> findIdsAposId(@Param("ultimoId") Integer ultimoId, Pageable pageable);
+
+    /**
+     * Feed de alterações: turmas alteradas após a posição (dataAtualizacao, id) e antes de :ate,
+     * inclusive as desativadas, pelo índice idx_data_atualizacao_id
+     */
+    @Query(SELECT_RESUMO + "WHERE (t.dataAtualizacao > :data OR (t.dataAtualizacao = :data AND t.id > :id)) "
+            + "AND t.dataAtualizacao < :ate ORDER BY t.dataAtualizacao, t.id")
+    List<TurmaResumo> findAlteradasApos(@Param("data") LocalDateTime data, @Param("id") Integer id,
+                                        @Param("ate") LocalDateTime ate, Pageable pageable);
+
+    /**
+     * Ocupação de todas as turmas ativas em um único GROUP BY (painel de ocupação)
+     * Turmas sem matrículas entram com zero; o JOIN usa o índice idx_turma_status de matriculas
+     */
+    @Query("SELECT t.id AS turmaId, t.nome AS nome, t.serie AS serie, t.turno AS turno, "
+            + "t.capacidade AS capacidade, COUNT(m.id) AS matriculasAtivas "
+            + "FROM Turma t LEFT JOIN Matricula m ON m.turma = t AND m.status = :status "
+            + "WHERE t.ativo = true "
+            + "GROUP BY t.id, t.nome, t.serie, t.turno, t.capacidade "
+            + "ORDER BY t.serie, t.turno, t.nome, t.id")
+    List<OcupacaoDetalhada> findOcupacaoAtivas(@Param("status") Matricula.Status status);
+
+    interface TurmaResumo {
+        Integer getId();
+
+        String getNome();
+
+        String getSerie();
+
+        Turma.Turno getTurno();
+
+        Integer getCapacidade();
+
+        Integer getOcupacao();
+
+        Integer getProfessorId();
+
+        String getProfessorNome();
+
+        Boolean getAtivo();
+
+        LocalDateTime getDataCriacao();
+
+        LocalDateTime getDataAtualizacao();
+    }
+
+    interface OcupacaoDetalhada {
+        Integer getTurmaId();
+
+        String getNome();
+
+        String getSerie();
+
+        Turma.Turno getTurno();
+
+        Integer getCapacidade();
+
+        Long getMatriculasAtivas();
+    }
 }
@@ -1,9 +1,14 @@
 package com.matricula.repository;
 
 import com.matricula.model.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository: UsuarioRepository
@@ -12,13 +17,36 @@ import java.util.Optional;
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Integer> {
 
+    /**
+     * Região do cache de consultas dos usuários (invalidada entre instâncias junto com a entidade)
+     */
+    String REGIAO_CONSULTAS = "consultas-usuarios";
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGIAO_CONSULTAS)
+    })
     Optional<Usuario> findByEmail(String email);
 
     Optional<Usuario> findByCpf(String cpf);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGIAO_CONSULTAS)
+    })
     Optional<Usuario> findByEmailAndAtivoTrue(String email);
 
     boolean existsByEmail(String email);
 
     boolean existsByCpf(String cpf);
+
+    /**
+     * CPFs e emails de todos os usuários, lidos em streaming (filtros de unicidade)
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.cpf AS cpf, u.email AS email FROM Usuario u")
+    Stream<ChavesUnicas> streamChavesUnicas();
 }
@@ -0,0 +1,15 @@
+package com.matricula.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projeção: versão de um recurso ou coleção para GET condicional (ETag/Last-Modified)
+ * Obtida por agregação (COUNT/MAX), sem carregar as entidades; atualizacao considera também
+ * as entidades relacionadas cujos dados aparecem na resposta (nula se não houver linhas)
+ */
+public interface VersaoRecurso {
+
+    Long getTotal();
+
+    LocalDateTime getAtualizacao();
+}
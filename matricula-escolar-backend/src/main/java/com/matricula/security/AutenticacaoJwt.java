@@ -0,0 +1,41 @@
+package com.matricula.security;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+
+/**
+ * Autenticação montada a partir de um token JWT válido
+ * Guarda o bitset de permissões do token para testes O(1) (ver AvaliadorPermissoes); as
+ * authorities são o conjunto compartilhado de Permissao.autoridades para hasAuthority(...)
+ */
+public class AutenticacaoJwt extends AbstractAuthenticationToken {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String username;
+    private final long permissoes;
+
+    public AutenticacaoJwt(String username, long permissoes) {
+        super(Permissao.autoridades(permissoes));
+        this.username = username;
+        this.permissoes = permissoes;
+        setAuthenticated(true);
+    }
+
+    public boolean possui(Permissao permissao) {
+        return (permissoes & permissao.bit()) != 0;
+    }
+
+    public long getPermissoes() {
+        return permissoes;
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return username;
+    }
+}
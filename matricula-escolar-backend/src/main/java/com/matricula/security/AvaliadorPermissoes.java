@@ -0,0 +1,23 @@
+package com.matricula.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Avaliação de permissões em expressões de segurança
+ * Uso: @PreAuthorize("@permissoes.tem('WRITE')"). Testa um bit do token já decodificado,
+ * sem consulta ao banco nem cópia das authorities a cada avaliação.
+ */
+@Component("permissoes")
+public class AvaliadorPermissoes {
+
+    /**
+     * Indica se o usuário autenticado possui a permissão
+     * @param permissao Nome da permissão (ex.: READ, WRITE, DELETE, ADMIN)
+     */
+    public boolean tem(String permissao) {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        return autenticacao instanceof AutenticacaoJwt jwt && jwt.possui(Permissao.valueOf(permissao));
+    }
+}
@@ -1,12 +1,13 @@
 package com.matricula.security;
 
+import com.matricula.service.RevogacaoTokenService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -22,6 +23,8 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
+    private final VersaoPermissoes versaoPermissoes;
+    private final RevogacaoTokenService revogacaoTokenService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
@@ -31,12 +34,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (jwt != null && jwtTokenProvider.validateToken(jwt)) {
-                String username = jwtTokenProvider.getUsernameFromToken(jwt);
-                
-                UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(username, null, null);
-                
+            // Uma única verificação por requisição (ou nenhuma, se o token já está no cache)
+            Claims claims = jwt != null ? jwtTokenProvider.parseToken(jwt) : null;
+            if (claims != null && !revogado(claims) && permissoesVigentes(claims)) {
+                Number permissoes = claims.get(JwtTokenProvider.CLAIM_PERMISSOES, Number.class);
+                AutenticacaoJwt authentication =
+                    new AutenticacaoJwt(claims.getSubject(), permissoes != null ? permissoes.longValue() : 0L);
+
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         } catch (Exception ex) {
@@ -46,6 +50,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Logout ou revogação do usuário; o Redis só é consultado se o filtro local indicar
+     * uma possível revogação
+     */
+    private boolean revogado(Claims claims) {
+        if (revogacaoTokenService.revogado(claims.getId(), claims.getSubject(), claims.getIssuedAt())) {
+            log.debug("Token revogado de {}", claims.getSubject());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * O token deixa de valer quando as permissões do grupo mudam depois do login
+     * Tokens sem grupo (emitidos antes das permissões no token) não têm permissões
+     */
+    private boolean permissoesVigentes(Claims claims) {
+        Number grupoId = claims.get(JwtTokenProvider.CLAIM_GRUPO, Number.class);
+        Number versao = claims.get(JwtTokenProvider.CLAIM_VERSAO_PERMISSOES, Number.class);
+        if (grupoId == null || versao == null) {
+            return true;
+        }
+        if (!versaoPermissoes.vigente(grupoId.intValue(), versao.longValue())) {
+            log.debug("Token de {} emitido com permissões desatualizadas", claims.getSubject());
+            return false;
+        }
+        return true;
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
@@ -1,56 +1,125 @@
 package com.matricula.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provedor de tokens JWT
  * Responsável por gerar, validar e extrair informações de tokens JWT
+ * A chave e o parser são montados uma única vez. Cada token é verificado uma vez e as claims
+ * ficam em um cache local limitado, indexado pelo SHA-256 do token (o token em si não é
+ * guardado) e expirado no "exp" do token: requisições seguintes com o mesmo token não
+ * repetem a verificação da assinatura.
  */
 @Component
 @Slf4j
 public class JwtTokenProvider {
 
+    /**
+     * Claims das permissões: ID do grupo, bitset de Permissao e versão das permissões do grupo
+     */
+    public static final String CLAIM_GRUPO = "grp";
+    public static final String CLAIM_PERMISSOES = "perm";
+    public static final String CLAIM_VERSAO_PERMISSOES = "pv";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private long jwtExpirationMs;
 
+    @Value("${jwt.cache.enabled:true}")
+    private boolean cacheHabilitado;
+
+    @Value("${jwt.cache.tamanho-maximo:10000}")
+    private long tamanhoMaximoCache;
+
+    private SecretKey chave;
+    private JwtParser parser;
+    private Cache<String, Claims> tokensVerificados;
+
+    @PostConstruct
+    public void iniciar() {
+        chave = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(chave).build();
+
+        if (cacheHabilitado) {
+            tokensVerificados = Caffeine.newBuilder()
+                    .maximumSize(tamanhoMaximoCache)
+                    .expireAfter(new ExpiracaoDoToken())
+                    .build();
+        }
+    }
+
     /**
      * Gera um token JWT para um usuário
+     * O "jti" aleatório identifica o token no logout (RevogacaoTokenService)
      * @param username Nome do usuário
+     * @param grupoId ID do grupo do usuário
+     * @param permissoes Bitset das permissões do grupo (Permissao.compilar)
+     * @param versaoPermissoes Versão das permissões do grupo no momento do login
      * @return Token JWT
      */
-    public String generateToken(String username) {
+    public String generateToken(String username, Integer grupoId, long permissoes, long versaoPermissoes) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
+                .claim(CLAIM_GRUPO, grupoId)
+                .claim(CLAIM_PERMISSOES, permissoes)
+                .claim(CLAIM_VERSAO_PERMISSOES, versaoPermissoes)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .signWith(chave)
                 .compact();
     }
 
+    /**
+     * Verifica o token uma única vez e devolve suas claims
+     * @param token Token JWT
+     * @return Claims do token, ou null se o token é inválido ou expirou
+     */
+    public Claims parseToken(String token) {
+        try {
+            return verificar(token);
+        } catch (ExpiredJwtException ex) {
+            log.error("Expired JWT token: {}", ex.getMessage());
+        } catch (MalformedJwtException ex) {
+            log.error("Invalid JWT token: {}", ex.getMessage());
+        } catch (UnsupportedJwtException ex) {
+            log.error("Unsupported JWT token: {}", ex.getMessage());
+        } catch (JwtException ex) {
+            log.error("Invalid JWT signature: {}", ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            log.error("JWT claims string is empty: {}", ex.getMessage());
+        }
+        return null;
+    }
+
     /**
      * Extrai o username de um token JWT
      * @param token Token JWT
      * @return Username
      */
     public String getUsernameFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verificar(token).getSubject();
     }
 
     /**
@@ -59,24 +128,7 @@ public class JwtTokenProvider {
      * @return true se o token é válido
      */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (SecurityException ex) {
-            log.error("Invalid JWT signature: {}", ex.getMessage());
-        } catch (MalformedJwtException ex) {
-            log.error("Invalid JWT token: {}", ex.getMessage());
-        } catch (ExpiredJwtException ex) {
-            log.error("Expired JWT token: {}", ex.getMessage());
-        } catch (UnsupportedJwtException ex) {
-            log.error("Unsupported JWT token: {}", ex.getMessage());
-        } catch (IllegalArgumentException ex) {
-            log.error("JWT claims string is empty: {}", ex.getMessage());
-        }
-        return false;
+        return parseToken(token) != null;
     }
 
     /**
@@ -85,11 +137,66 @@ public class JwtTokenProvider {
      * @return Data de expiração
      */
     public Date getExpirationDateFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration();
+        return verificar(token).getExpiration();
+    }
+
+    /**
+     * Claims do token, do cache ou verificando a assinatura
+     * @throws JwtException se o token é inválido ou expirou
+     */
+    private Claims verificar(String token) {
+        if (tokensVerificados == null || token == null || token.isEmpty()) {
+            return parser.parseSignedClaims(token).getPayload();
+        }
+
+        String hash = hash(token);
+        Claims claims = tokensVerificados.getIfPresent(hash);
+        if (claims != null && !expirado(claims)) {
+            return claims;
+        }
+
+        // Tokens inválidos lançam exceção e não entram no cache
+        claims = parser.parseSignedClaims(token).getPayload();
+        tokensVerificados.put(hash, claims);
+        return claims;
+    }
+
+    private static boolean expirado(Claims claims) {
+        Date expiracao = claims.getExpiration();
+        return expiracao != null && expiracao.getTime() <= System.currentTimeMillis();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /**
+     * Entrada do cache expira no "exp" do token (ou junto com a validade padrão, se não houver)
+     */
+    private class ExpiracaoDoToken implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String hash, Claims claims, long currentTime) {
+            Date expiracao = claims.getExpiration();
+            long restanteMs = expiracao != null
+                    ? expiracao.getTime() - System.currentTimeMillis()
+                    : jwtExpirationMs;
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, restanteMs));
+        }
+
+        @Override
+        public long expireAfterUpdate(String hash, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(hash, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String hash, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,68 @@
+package com.matricula.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Permissões dos grupos de usuários (coluna JSON grupos_usuarios.permissoes)
+ * No token, o conjunto de permissões é um bitset em que o bit de cada permissão é o seu ordinal:
+ * novas permissões devem ser incluídas apenas no final, para não mudar o significado dos tokens
+ * já emitidos. Os conjuntos de GrantedAuthority de todas as combinações são montados uma única
+ * vez e compartilhados entre as requisições.
+ */
+public enum Permissao {
+
+    READ, WRITE, DELETE, ADMIN;
+
+    private static final long TODAS = (1L << values().length) - 1;
+
+    private static final Set<GrantedAuthority>[] AUTORIDADES = montarAutoridades();
+
+    private final GrantedAuthority autoridade = new SimpleGrantedAuthority(name());
+
+    public long bit() {
+        return 1L << ordinal();
+    }
+
+    /**
+     * Bitset das permissões informadas; nomes desconhecidos são ignorados
+     */
+    public static long compilar(Collection<String> nomes) {
+        long bits = 0;
+        for (String nome : nomes) {
+            for (Permissao permissao : values()) {
+                if (permissao.name().equalsIgnoreCase(nome)) {
+                    bits |= permissao.bit();
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Conjunto (imutável e compartilhado) de GrantedAuthority do bitset
+     */
+    public static Set<GrantedAuthority> autoridades(long bits) {
+        return AUTORIDADES[(int) (bits & TODAS)];
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Set<GrantedAuthority>[] montarAutoridades() {
+        Permissao[] permissoes = values();
+        Set<GrantedAuthority>[] conjuntos = new Set[1 << permissoes.length];
+        for (int bits = 0; bits < conjuntos.length; bits++) {
+            Set<GrantedAuthority> conjunto = new LinkedHashSet<>();
+            for (Permissao permissao : permissoes) {
+                if ((bits & permissao.bit()) != 0) {
+                    conjunto.add(permissao.autoridade);
+                }
+            }
+            conjuntos[bits] = Collections.unmodifiableSet(conjunto);
+        }
+        return conjuntos;
+    }
+}
@@ -0,0 +1,196 @@
+package com.matricula.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.matricula.model.GrupoUsuario;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Versão das permissões de cada grupo de usuários, mantida no Redis
+ * O token leva a versão vigente no login; quando as permissões (ou a situação) de um grupo
+ * mudam, a versão é incrementada no flush, ainda dentro da transação (se o Redis falhar, a
+ * alteração do grupo é desfeita), e de novo após o commit, para que logins feitos entre o flush
+ * e o commit (com as permissões antigas) também sejam invalidados.
+ * As versões ficam em cache local (atualizado via pub/sub e expirado em ttl-ms), para que o
+ * filtro não consulte o Redis a cada requisição. Alterações feitas direto no banco exigem
+ * INCR grupo:permissoes:versao:{id} no Redis.
+ */
+@Component
+@Slf4j
+public class VersaoPermissoes implements MessageListener, PostCommitUpdateEventListener {
+
+    private static final String PREFIXO = "grupo:permissoes:versao:";
+    private static final String SEPARADOR = ";";
+
+    /**
+     * Propriedades do grupo cuja alteração invalida os tokens emitidos
+     */
+    private static final Set<String> PROPRIEDADES_DO_TOKEN = Set.of("permissoes", "ativo");
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${jwt.permissoes.versao.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${jwt.permissoes.versao.canal:grupo:permissoes:versao}")
+    private String canal;
+
+    private Cache<Integer, Long> versoes;
+
+    public VersaoPermissoes(EntityManagerFactory entityManagerFactory,
+                            StringRedisTemplate stringRedisTemplate,
+                            RedisMessageListenerContainer listenerContainer) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        versoes = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+
+        EventListenerRegistry registro = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_UPDATE, new PostUpdateEventListener() {
+            @Override
+            public void onPostUpdate(PostUpdateEvent event) {
+                if (event.getEntity() instanceof GrupoUsuario grupo && alteraToken(event)) {
+                    reservarVersao(grupo.getId());
+                }
+            }
+
+            @Override
+            public boolean requiresPostCommitHandling(EntityPersister persister) {
+                return false;
+            }
+        });
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(canal));
+    }
+
+    /**
+     * Versão vigente das permissões do grupo (0 se nunca foram alteradas)
+     * @throws org.springframework.dao.DataAccessException se a versão não está em cache e o Redis falhar
+     */
+    public long atual(Integer grupoId) {
+        return versoes.get(grupoId, id -> {
+            String valor = stringRedisTemplate.opsForValue().get(PREFIXO + id);
+            return valor != null ? Long.parseLong(valor) : 0L;
+        });
+    }
+
+    /**
+     * Indica se um token emitido com a versão informada ainda reflete as permissões do grupo
+     * Se o Redis estiver indisponível e a versão não estiver em cache, o token é aceito
+     */
+    public boolean vigente(Integer grupoId, long versaoToken) {
+        try {
+            return atual(grupoId) == versaoToken;
+        } catch (Exception e) {
+            log.warn("Versão das permissões do grupo {} indisponível, aceitando o token", grupoId, e);
+            return true;
+        }
+    }
+
+    /**
+     * Incrementa a versão do grupo antes do commit da alteração
+     * @throws RuntimeException se o Redis falhar: a transação é desfeita, pois os tokens já
+     *         emitidos continuariam aceitos com as permissões antigas
+     */
+    private void reservarVersao(Integer grupoId) {
+        try {
+            stringRedisTemplate.opsForValue().increment(PREFIXO + grupoId);
+        } catch (Exception e) {
+            log.error("Falha ao incrementar a versão das permissões do grupo {} no Redis", grupoId, e);
+            throw new RuntimeException("Não foi possível invalidar os tokens do grupo, alteração não aplicada", e);
+        }
+    }
+
+    /**
+     * Incrementa a versão do grupo e avisa as demais instâncias
+     * Após o commit uma falha só é registrada: a versão já mudou em reservarVersao
+     */
+    public void invalidar(Integer grupoId) {
+        versoes.invalidate(grupoId);
+        try {
+            Long versao = stringRedisTemplate.opsForValue().increment(PREFIXO + grupoId);
+            if (versao != null) {
+                versoes.put(grupoId, versao);
+                stringRedisTemplate.convertAndSend(canal, grupoId + SEPARADOR + versao);
+            }
+            log.info("Permissões do grupo {} alteradas, tokens anteriores invalidados (versão {})", grupoId, versao);
+        } catch (Exception e) {
+            log.error("Falha ao incrementar a versão das permissões do grupo {} no Redis", grupoId, e);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof GrupoUsuario grupo && alteraToken(event)) {
+            invalidar(grupo.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return GrupoUsuario.class.getName().equals(persister.getEntityName());
+    }
+
+    /**
+     * Nova versão publicada por esta ou outra instância
+     * Formato: grupoId;versao
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] partes = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARADOR);
+        try {
+            Integer grupoId = Integer.valueOf(partes[0]);
+            long versao = Long.parseLong(partes[1]);
+            versoes.asMap().merge(grupoId, versao, Math::max);
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            log.warn("Mensagem de versão de permissões inválida ignorada");
+        }
+    }
+
+    private boolean alteraToken(PostUpdateEvent event) {
+        int[] alteradas = event.getDirtyProperties();
+        if (alteradas == null) {
+            return true;
+        }
+
+        String[] propriedades = event.getPersister().getPropertyNames();
+        for (int indice : alteradas) {
+            if (PROPRIEDADES_DO_TOKEN.contains(propriedades[indice])) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
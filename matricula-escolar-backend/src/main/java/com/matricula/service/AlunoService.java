@@ -1,16 +1,33 @@
 package com.matricula.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.matricula.dto.AlunoDTO;
+import com.matricula.dto.PaginaDTO;
 import com.matricula.model.Aluno;
 import com.matricula.model.Turma;
 import com.matricula.repository.AlunoRepository;
+import com.matricula.repository.AlunoRepository.AlunoResumo;
 import com.matricula.repository.TurmaRepository;
+import com.matricula.repository.VersaoRecurso;
+import com.matricula.service.UnicidadeService.Chave;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Serviço: AlunoService
@@ -24,21 +41,94 @@ public class AlunoService {
 
     private final AlunoRepository alunoRepository;
     private final TurmaRepository turmaRepository;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final BuscaAlunoService buscaAlunoService;
+    private final UnicidadeService unicidadeService;
+
+    private static final Map<String, Function<AlunoDTO, Object>> COLUNAS_EXPORTACAO = new LinkedHashMap<>();
+
+    static {
+        COLUNAS_EXPORTACAO.put("id", AlunoDTO::getId);
+        COLUNAS_EXPORTACAO.put("nome", AlunoDTO::getNome);
+        COLUNAS_EXPORTACAO.put("cpf", AlunoDTO::getCpf);
+        COLUNAS_EXPORTACAO.put("email", AlunoDTO::getEmail);
+        COLUNAS_EXPORTACAO.put("telefone", AlunoDTO::getTelefone);
+        COLUNAS_EXPORTACAO.put("endereco", AlunoDTO::getEndereco);
+        COLUNAS_EXPORTACAO.put("idade", AlunoDTO::getIdade);
+        COLUNAS_EXPORTACAO.put("dataNascimento", AlunoDTO::getDataNascimento);
+        COLUNAS_EXPORTACAO.put("responsavelNome", AlunoDTO::getResponsavelNome);
+        COLUNAS_EXPORTACAO.put("responsavelTelefone", AlunoDTO::getResponsavelTelefone);
+        COLUNAS_EXPORTACAO.put("responsavelEmail", AlunoDTO::getResponsavelEmail);
+        COLUNAS_EXPORTACAO.put("turmaId", AlunoDTO::getTurmaId);
+        COLUNAS_EXPORTACAO.put("turno", AlunoDTO::getTurno);
+        COLUNAS_EXPORTACAO.put("status", AlunoDTO::getStatus);
+        COLUNAS_EXPORTACAO.put("dataMatricula", AlunoDTO::getDataMatricula);
+    }
 
     /**
-     * Lista todos os alunos ativos
+     * Lista os alunos ativos paginados por (nome, id)
+     * @param cursor Cursor devolvido pela página anterior (null na primeira página)
      */
-    public List<AlunoDTO> listarTodos() {
-        log.info("Listando todos os alunos");
-        return alunoRepository.findAllAtivos()
-                .stream()
-                .map(this::converterParaDTO)
+    @Transactional(readOnly = true)
+    public PaginaDTO<AlunoDTO> listarTodos(String cursor, Integer limite) {
+        log.info("Listando alunos ativos");
+        CursorPaginacao posicao = CursorPaginacao.decodificar(cursor);
+        int tamanho = CursorPaginacao.limitar(limite);
+        PageRequest pagina = PageRequest.of(0, tamanho + 1);
+
+        List<AlunoResumo> alunos = posicao == null
+                ? alunoRepository.findAtivosPaginados(pagina)
+                : alunoRepository.findAtivosPaginadosApos(posicao.getChave(), posicao.getId(), pagina);
+
+        return CursorPaginacao.montarPagina(alunos, tamanho, this::converterResumoParaDTO,
+                aluno -> CursorPaginacao.codificar(aluno.getNome(), aluno.getId()));
+    }
+
+    /**
+     * Alunos alterados após a posição (dataAtualizacao, id) e antes de ate, em ordem
+     * Usado pelo feed de alterações (até limite linhas, inclusive os excluídos)
+     */
+    public List<AlunoDTO> listarAlteradosApos(LocalDateTime data, Integer id, LocalDateTime ate, int limite) {
+        return alunoRepository.findAlteradosApos(data, id, ate, PageRequest.of(0, limite)).stream()
+                .map(this::converterResumoParaDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Exporta os alunos direto do banco para a saída, um registro por vez
+     * A consulta é lida em streaming e cada entidade é desanexada após ser escrita
+     * @param status Filtro opcional (null exporta todos)
+     * @return Quantidade de alunos exportados
+     */
+    @Transactional(readOnly = true)
+    public long exportar(OutputStream saida, EscritorExportacao.Formato formato, Aluno.Status status)
+            throws IOException {
+        log.info("Exportando alunos em {} (status: {})", formato, status);
+
+        EscritorExportacao<AlunoDTO> escritor =
+                new EscritorExportacao<>(saida, formato, objectMapper, COLUNAS_EXPORTACAO);
+
+        try (Stream<Aluno> alunos = status == null
+                ? alunoRepository.streamTodos()
+                : alunoRepository.streamPorStatus(status)) {
+            Iterator<Aluno> iterador = alunos.iterator();
+            while (iterador.hasNext()) {
+                Aluno aluno = iterador.next();
+                escritor.escrever(converterParaDTO(aluno));
+                entityManager.detach(aluno);
+            }
+        }
+
+        escritor.finalizar();
+        log.info("{} alunos exportados", escritor.getRegistros());
+        return escritor.getRegistros();
+    }
+
     /**
      * Busca um aluno por ID
      */
+    @Transactional(readOnly = true)
     public AlunoDTO buscarPorId(Integer id) {
         log.info("Buscando aluno com ID: {}", id);
         return alunoRepository.findById(id)
@@ -49,14 +139,33 @@ public class AlunoService {
     /**
      * Lista alunos de uma turma
      */
+    @Transactional(readOnly = true)
     public List<AlunoDTO> listarPorTurma(Integer turmaId) {
         log.info("Listando alunos da turma: {}", turmaId);
-        return alunoRepository.findByTurmaIdAndStatusOrderByNome(turmaId, Aluno.Status.ATIVO)
+        return alunoRepository.findResumosPorTurma(turmaId, Aluno.Status.ATIVO)
                 .stream()
-                .map(this::converterParaDTO)
+                .map(this::converterResumoParaDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Versões (COUNT/MAX da data de atualização) para GET condicional, sem carregar os alunos
+     */
+    @Transactional(readOnly = true)
+    public VersaoRecurso obterVersao(Integer id) {
+        return alunoRepository.findVersaoById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public VersaoRecurso obterVersaoAtivos() {
+        return alunoRepository.findVersaoAtivos();
+    }
+
+    @Transactional(readOnly = true)
+    public VersaoRecurso obterVersaoPorTurma(Integer turmaId) {
+        return alunoRepository.findVersaoPorTurma(turmaId, Aluno.Status.ATIVO);
+    }
+
     /**
      * Cria um novo aluno
      */
@@ -65,11 +174,15 @@ public class AlunoService {
         log.info("Criando novo aluno: {}", alunoDTO.getNome());
 
         // Validações
-        if (alunoRepository.findByCpf(alunoDTO.getCpf()).isPresent()) {
+        // O filtro de unicidade dispensa a consulta ao banco quando o valor certamente não existe;
+        // um valor que falte no filtro (ex.: inclusão de outra instância ainda não recebida) é
+        // barrado pelos índices únicos de cpf e email ao gravar
+        if (unicidadeService.existe(Chave.ALUNO_CPF, alunoDTO.getCpf(), alunoRepository::existsByCpf)) {
             throw new RuntimeException("CPF já cadastrado");
         }
 
-        if (alunoDTO.getEmail() != null && alunoRepository.findByEmail(alunoDTO.getEmail()).isPresent()) {
+        if (alunoDTO.getEmail() != null
+                && unicidadeService.existe(Chave.ALUNO_EMAIL, alunoDTO.getEmail(), alunoRepository::existsByEmail)) {
             throw new RuntimeException("Email já cadastrado");
         }
 
@@ -94,7 +207,8 @@ public class AlunoService {
             aluno.setTurma(turma);
         }
 
-        Aluno alunoSalvo = alunoRepository.save(aluno);
+        Aluno alunoSalvo = salvarVerificandoUnicidade(aluno);
+        buscaAlunoService.reindexarAposCommit(alunoSalvo.getId());
         log.info("Aluno criado com sucesso: ID {}", alunoSalvo.getId());
 
         return converterParaDTO(alunoSalvo);
@@ -127,12 +241,34 @@ public class AlunoService {
             aluno.setTurma(turma);
         }
 
-        Aluno alunoAtualizado = alunoRepository.save(aluno);
+        Aluno alunoAtualizado = salvarVerificandoUnicidade(aluno);
+        buscaAlunoService.reindexarAposCommit(id);
         log.info("Aluno atualizado com sucesso: ID {}", id);
 
         return converterParaDTO(alunoAtualizado);
     }
 
+    /**
+     * Grava o aluno imediatamente (o ID vem da sequência, então o INSERT só sairia no commit)
+     * para que uma violação dos índices únicos vire a mesma mensagem da validação
+     */
+    private Aluno salvarVerificandoUnicidade(Aluno aluno) {
+        try {
+            return alunoRepository.saveAndFlush(aluno);
+        } catch (DataIntegrityViolationException e) {
+            // Nome da restrição extraído pelo dialeto (ex.: alunos.idx_email, alunos.cpf)
+            String restricao = e.getCause() instanceof ConstraintViolationException violacao
+                    && violacao.getConstraintName() != null ? violacao.getConstraintName().toLowerCase() : "";
+            if (restricao.contains("email")) {
+                throw new RuntimeException("Email já cadastrado");
+            }
+            if (restricao.contains("cpf")) {
+                throw new RuntimeException("CPF já cadastrado");
+            }
+            throw e;
+        }
+    }
+
     /**
      * Deleta um aluno (soft delete - marca como inativo)
      */
@@ -145,6 +281,7 @@ public class AlunoService {
 
         aluno.setStatus(Aluno.Status.CANCELADO);
         alunoRepository.save(aluno);
+        buscaAlunoService.reindexarAposCommit(id);
 
         log.info("Aluno deletado com sucesso: ID {}", id);
     }
@@ -172,4 +309,28 @@ public class AlunoService {
                 .dataAtualizacao(aluno.getDataAtualizacao())
                 .build();
     }
+
+    /**
+     * Converte a projeção das listagens para AlunoDTO
+     */
+    private AlunoDTO converterResumoParaDTO(AlunoResumo aluno) {
+        return AlunoDTO.builder()
+                .id(aluno.getId())
+                .nome(aluno.getNome())
+                .cpf(aluno.getCpf())
+                .email(aluno.getEmail())
+                .telefone(aluno.getTelefone())
+                .endereco(aluno.getEndereco())
+                .idade(aluno.getIdade())
+                .dataNascimento(aluno.getDataNascimento())
+                .responsavelNome(aluno.getResponsavelNome())
+                .responsavelTelefone(aluno.getResponsavelTelefone())
+                .responsavelEmail(aluno.getResponsavelEmail())
+                .turmaId(aluno.getTurmaId())
+                .turno(aluno.getTurno().toString())
+                .status(aluno.getStatus().toString())
+                .dataMatricula(aluno.getDataMatricula())
+                .dataAtualizacao(aluno.getDataAtualizacao())
+                .build();
+    }
 }
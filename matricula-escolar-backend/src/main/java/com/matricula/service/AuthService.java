@@ -1,14 +1,22 @@
 package com.matricula.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.matricula.dto.LoginRequest;
 import com.matricula.dto.LoginResponse;
+import com.matricula.model.GrupoUsuario;
 import com.matricula.model.Usuario;
 import com.matricula.repository.UsuarioRepository;
 import com.matricula.security.JwtTokenProvider;
+import com.matricula.security.Permissao;
+import com.matricula.security.VersaoPermissoes;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -23,7 +31,10 @@ public class AuthService {
 
     private final UsuarioRepository usuarioRepository;
     private final JwtTokenProvider jwtTokenProvider;
-    private final PasswordEncoder passwordEncoder;
+    private final VerificacaoSenhaService verificacaoSenhaService;
+    private final VersaoPermissoes versaoPermissoes;
+    private final RevogacaoTokenService revogacaoTokenService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Realiza login de um usuário
@@ -42,14 +53,22 @@ public class AuthService {
 
         Usuario usuario = usuarioOpt.get();
 
-        // Verificar senha
-        if (!passwordEncoder.matches(loginRequest.getSenha(), usuario.getSenhaHash())) {
+        // Verificar senha no pool limitado de BCrypt (VerificacaoSobrecarregadaException se sobrecarregado)
+        if (!verificacaoSenhaService.verificar(loginRequest.getSenha(), usuario.getSenhaHash())) {
             log.warn("Senha inválida para usuário: {}", loginRequest.getEmail());
             throw new RuntimeException("Usuário ou senha inválidos");
         }
 
-        // Gerar token JWT
-        String token = jwtTokenProvider.generateToken(usuario.getEmail());
+        // Custo do BCrypt alterado na configuração: regravar o hash com o custo atual
+        if (verificacaoSenhaService.precisaRehash(usuario.getSenhaHash())) {
+            Integer usuarioId = usuario.getId();
+            verificacaoSenhaService.rehashEmSegundoPlano(loginRequest.getSenha(), novoHash -> atualizarHash(usuarioId, novoHash));
+        }
+
+        // Gerar token JWT com as permissões do grupo já compiladas
+        GrupoUsuario grupo = usuario.getGrupoUsuario();
+        String token = jwtTokenProvider.generateToken(usuario.getEmail(), grupo.getId(),
+                compilarPermissoes(grupo), obterVersaoPermissoes(grupo));
 
         log.info("Login bem-sucedido para usuário: {}", usuario.getEmail());
 
@@ -58,17 +77,75 @@ public class AuthService {
                 .email(usuario.getEmail())
                 .nome(usuario.getNome())
                 .usuarioId(usuario.getId())
-                .grupoUsuario(usuario.getGrupoUsuario().getNome())
+                .grupoUsuario(grupo.getNome())
                 .build();
     }
 
+    private void atualizarHash(Integer usuarioId, String novoHash) {
+        usuarioRepository.findById(usuarioId).ifPresent(usuario -> {
+            usuario.setSenhaHash(novoHash);
+            usuarioRepository.save(usuario);
+            log.info("Hash de senha do usuário {} atualizado para o custo configurado", usuarioId);
+        });
+    }
+
+    /**
+     * Bitset das permissões do grupo (coluna JSON, ex.: ["READ", "WRITE"])
+     */
+    private long compilarPermissoes(GrupoUsuario grupo) {
+        try {
+            List<String> nomes = objectMapper.readValue(grupo.getPermissoes(), new TypeReference<List<String>>() {});
+            return Permissao.compilar(nomes);
+        } catch (JsonProcessingException e) {
+            log.error("Permissões inválidas no grupo {}: {}", grupo.getNome(), grupo.getPermissoes(), e);
+            return 0L;
+        }
+    }
+
+    private long obterVersaoPermissoes(GrupoUsuario grupo) {
+        try {
+            return versaoPermissoes.atual(grupo.getId());
+        } catch (DataAccessException e) {
+            log.error("Versão das permissões do grupo {} indisponível no Redis", grupo.getNome(), e);
+            throw new RuntimeException("Não foi possível concluir o login, tente novamente");
+        }
+    }
+
     /**
      * Valida um token JWT
      * @param token Token JWT
      * @return true se o token é válido
      */
     public boolean validarToken(String token) {
-        return jwtTokenProvider.validateToken(token);
+        Claims claims = jwtTokenProvider.parseToken(token);
+        return claims != null
+                && !revogacaoTokenService.revogado(claims.getId(), claims.getSubject(), claims.getIssuedAt());
+    }
+
+    /**
+     * Realiza logout, revogando o token até a sua expiração
+     * @param token Token JWT
+     * @throws IllegalStateException se a revogação não puder ser gravada no Redis
+     */
+    public void logout(String token) {
+        Claims claims = jwtTokenProvider.parseToken(token);
+        if (claims == null) {
+            throw new RuntimeException("Token inválido");
+        }
+
+        revogacaoTokenService.revogarToken(claims.getId(), claims.getSubject(), claims.getExpiration());
+    }
+
+    /**
+     * Revoga todos os tokens já emitidos para o usuário
+     * @param usuarioId ID do usuário
+     * @throws IllegalStateException se a revogação não puder ser gravada no Redis
+     */
+    public void revogarTokensDoUsuario(Integer usuarioId) {
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+
+        revogacaoTokenService.revogarUsuario(usuario.getEmail());
     }
 
     /**
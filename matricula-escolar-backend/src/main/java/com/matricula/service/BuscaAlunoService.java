@@ -0,0 +1,478 @@
+package com.matricula.service;
+
+import com.matricula.config.RoteamentoDataSource;
+import com.matricula.dto.AlunoBuscaDTO;
+import com.matricula.model.Aluno;
+import com.matricula.repository.AlunoRepository;
+import com.matricula.repository.AlunoRepository.AlunoBusca;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Serviço: BuscaAlunoService
+ * Responsável pela busca incremental (typeahead) de alunos por nome, CPF e nome do responsável.
+ * Mantém em memória um índice de termos ordenado (prefixos resolvidos por subMap): os textos são
+ * normalizados sem acentos e em minúsculas, o CPF apenas com dígitos. O índice é construído na
+ * subida a partir de uma leitura em streaming e atualizado a cada criação/alteração/exclusão de
+ * aluno após o commit; as demais instâncias são avisadas via Redis pub/sub e recarregam o aluno.
+ * Se a construção falhar (ex.: banco indisponível na subida), é repetida com espera crescente
+ * (construcao.espera-ms dobrando até construcao.espera-maxima-ms) até concluir.
+ * Alunos excluídos (CANCELADO) ficam fora do índice.
+ */
+@Service
+@Slf4j
+public class BuscaAlunoService implements MessageListener {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern NAO_DIGITOS = Pattern.compile("\\D+");
+    private static final String SEPARADOR = ";";
+    private static final int DIGITOS_MINIMOS_CPF = 3;
+
+    /**
+     * Ordem dos resultados: pontos, nome mais curto, nome e ID
+     */
+    private static final Comparator<Pontuado> RELEVANCIA = Comparator
+            .comparingInt((Pontuado resultado) -> -resultado.pontos)
+            .thenComparingInt(resultado -> resultado.documento.nome.length())
+            .thenComparing(resultado -> resultado.documento.nomeNormalizado)
+            .thenComparingInt(resultado -> resultado.documento.id);
+
+    private final AlunoRepository alunoRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final TransactionTemplate transacaoLeitura;
+    private final String instancia = UUID.randomUUID().toString();
+
+    private final Map<Integer, Documento> documentos = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Integer>> termosNome = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, Set<Integer>> termosResponsavel = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, Integer> cpfs = new ConcurrentSkipListMap<>();
+
+    /**
+     * Alunos alterados enquanto o índice era construído (recarregados ao final)
+     */
+    private final Set<Integer> alteradosDuranteConstrucao = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean construindo;
+    private volatile boolean pronto;
+
+    @Value("${aluno.busca.limite-padrao:10}")
+    private int limitePadrao;
+
+    @Value("${aluno.busca.limite-maximo:50}")
+    private int limiteMaximo;
+
+    @Value("${aluno.busca.max-candidatos:5000}")
+    private int maxCandidatos;
+
+    @Value("${aluno.busca.canal:aluno:busca:atualizacao}")
+    private String canal;
+
+    @Value("${aluno.busca.construcao.espera-ms:1000}")
+    private long esperaConstrucaoMs;
+
+    @Value("${aluno.busca.construcao.espera-maxima-ms:60000}")
+    private long esperaMaximaConstrucaoMs;
+
+    public BuscaAlunoService(AlunoRepository alunoRepository,
+                             StringRedisTemplate stringRedisTemplate,
+                             RedisMessageListenerContainer listenerContainer,
+                             PlatformTransactionManager transactionManager) {
+        this.alunoRepository = alunoRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+    }
+
+    /**
+     * Assina o canal de atualizações e constrói o índice em segundo plano
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(canal));
+        construindo = true;
+
+        Thread construcao = new Thread(this::construir, "aluno-busca-indice");
+        construcao.setDaemon(true);
+        construcao.start();
+    }
+
+    /**
+     * Busca alunos cujo nome (ou nome do responsável) contém termos começando por cada termo da
+     * consulta, ou cujo CPF começa pelos dígitos informados, ordenados por relevância
+     * @throws IllegalStateException se o índice ainda estiver em construção
+     */
+    public List<AlunoBuscaDTO> buscar(String consulta, Integer limite) {
+        if (!pronto) {
+            throw new IllegalStateException("Índice de busca de alunos em construção, tente novamente em instantes");
+        }
+
+        int tamanho = Math.min(limite != null && limite > 0 ? limite : limitePadrao, limiteMaximo);
+        String normalizada = normalizar(consulta == null ? "" : consulta);
+
+        List<Documento> encontrados = normalizada.chars().anyMatch(Character::isLetter)
+                ? buscarPorTermos(termos(normalizada), tamanho)
+                : buscarPorCpf(NAO_DIGITOS.matcher(normalizada).replaceAll(""), tamanho);
+
+        return encontrados.stream()
+                .map(documento -> AlunoBuscaDTO.builder()
+                        .id(documento.id)
+                        .nome(documento.nome)
+                        .cpf(documento.cpf)
+                        .responsavelNome(documento.responsavelNome)
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Reindexa o aluno após o commit da transação corrente, nesta e nas demais instâncias
+     */
+    public void reindexarAposCommit(Integer alunoId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reindexarEPublicar(alunoId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reindexarEPublicar(alunoId);
+            }
+        });
+    }
+
+    /**
+     * Atualização publicada por outra instância
+     * Formato: instancia;alunoId
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] partes = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARADOR, 2);
+        if (partes.length != 2 || instancia.equals(partes[0])) {
+            return;
+        }
+
+        try {
+            reindexar(Integer.valueOf(partes[1]));
+        } catch (Exception e) {
+            log.warn("Falha ao reindexar aluno {} para busca", partes[1], e);
+        }
+    }
+
+    /**
+     * Constrói o índice, repetindo com espera crescente enquanto a leitura falhar
+     */
+    private void construir() {
+        long espera = esperaConstrucaoMs;
+        for (int tentativa = 1; !tentarConstruir(tentativa); tentativa++) {
+            try {
+                Thread.sleep(espera);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            espera = Math.min(espera * 2, esperaMaximaConstrucaoMs);
+        }
+    }
+
+    private boolean tentarConstruir(int tentativa) {
+        long inicio = System.currentTimeMillis();
+        construindo = true;
+        try {
+            // Do primário: alterações ainda não replicadas não seriam recarregadas depois
+            RoteamentoDataSource.noPrimario(() -> transacaoLeitura.execute(status -> {
+                try (Stream<AlunoBusca> alunos = alunoRepository.streamParaBusca(Aluno.Status.CANCELADO)) {
+                    alunos.forEach(this::indexar);
+                }
+                return null;
+            }));
+
+            construindo = false;
+            for (Integer alunoId : alteradosDuranteConstrucao) {
+                reindexar(alunoId);
+            }
+            alteradosDuranteConstrucao.clear();
+            pronto = true;
+
+            log.info("Índice de busca de alunos construído: {} alunos, {} termos em {} ms",
+                    documentos.size(), termosNome.size() + termosResponsavel.size(),
+                    System.currentTimeMillis() - inicio);
+            return true;
+        } catch (Exception e) {
+            // Descarta o índice parcial; os alunos alterados até aqui continuam marcados para recarga
+            limpar();
+            log.error("Erro ao construir o índice de busca de alunos (tentativa {})", tentativa, e);
+            return false;
+        }
+    }
+
+    private void reindexarEPublicar(Integer alunoId) {
+        try {
+            reindexar(alunoId);
+            stringRedisTemplate.convertAndSend(canal, instancia + SEPARADOR + alunoId);
+        } catch (Exception e) {
+            log.warn("Falha ao propagar a reindexação do aluno {} para busca", alunoId, e);
+        }
+    }
+
+    private void reindexar(Integer alunoId) {
+        if (construindo) {
+            alteradosDuranteConstrucao.add(alunoId);
+        }
+
+        alunoRepository.findBuscaById(alunoId)
+                .ifPresentOrElse(this::indexar, () -> remover(alunoId));
+    }
+
+    private synchronized void indexar(AlunoBusca aluno) {
+        remover(aluno.getId());
+        if (aluno.getStatus() == Aluno.Status.CANCELADO) {
+            return;
+        }
+
+        Documento documento = new Documento(aluno);
+        documentos.put(documento.id, documento);
+        for (String termo : documento.termosNome) {
+            termosNome.computeIfAbsent(termo, chave -> ConcurrentHashMap.newKeySet()).add(documento.id);
+        }
+        for (String termo : documento.termosResponsavel) {
+            termosResponsavel.computeIfAbsent(termo, chave -> ConcurrentHashMap.newKeySet()).add(documento.id);
+        }
+        if (documento.cpfDigitos != null) {
+            cpfs.put(documento.cpfDigitos, documento.id);
+        }
+    }
+
+    private synchronized void limpar() {
+        documentos.clear();
+        termosNome.clear();
+        termosResponsavel.clear();
+        cpfs.clear();
+    }
+
+    private synchronized void remover(Integer alunoId) {
+        Documento documento = documentos.remove(alunoId);
+        if (documento == null) {
+            return;
+        }
+
+        for (String termo : documento.termosNome) {
+            removerTermo(termosNome, termo, alunoId);
+        }
+        for (String termo : documento.termosResponsavel) {
+            removerTermo(termosResponsavel, termo, alunoId);
+        }
+        if (documento.cpfDigitos != null) {
+            cpfs.remove(documento.cpfDigitos, alunoId);
+        }
+    }
+
+    private static void removerTermo(ConcurrentSkipListMap<String, Set<Integer>> indice, String termo, Integer alunoId) {
+        indice.computeIfPresent(termo, (chave, ids) -> {
+            ids.remove(alunoId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Percorre os alunos do termo mais longo da consulta (o mais seletivo), em ordem alfabética
+     * dos termos indexados, e pontua cada candidato contra todos os termos; a varredura é limitada
+     * a max-candidatos para manter a latência estável em prefixos muito curtos, e só os melhores
+     * (limite) são mantidos durante a varredura, em um heap, em vez de ordenar todos os candidatos
+     * Sem termo com letras indexáveis (ex.: "ø", "ß", que a normalização descarta) não há resultado
+     */
+    private List<Documento> buscarPorTermos(List<String> termos, int limite) {
+        String guia = termos.stream()
+                .filter(termo -> termo.chars().anyMatch(Character::isLetter))
+                .max(Comparator.comparingInt(String::length))
+                .orElse(null);
+        if (guia == null) {
+            return List.of();
+        }
+
+        Set<Integer> avaliados = new HashSet<>();
+        PriorityQueue<Pontuado> resultados = new PriorityQueue<>(limite + 1, RELEVANCIA.reversed());
+        for (ConcurrentSkipListMap<String, Set<Integer>> indice : List.of(termosNome, termosResponsavel)) {
+            for (Set<Integer> ids : indice.subMap(guia, true, guia + Character.MAX_VALUE, false).values()) {
+                for (Integer id : ids) {
+                    if (avaliados.size() >= maxCandidatos) {
+                        return ordenar(resultados);
+                    }
+                    if (!avaliados.add(id)) {
+                        continue;
+                    }
+
+                    Documento documento = documentos.get(id);
+                    int pontos = documento != null ? pontuar(documento, termos) : 0;
+                    if (pontos > 0) {
+                        manterMelhores(resultados, new Pontuado(documento, pontos), limite);
+                    }
+                }
+            }
+        }
+        return ordenar(resultados);
+    }
+
+    private List<Documento> buscarPorCpf(String digitos, int limite) {
+        if (digitos.length() < DIGITOS_MINIMOS_CPF) {
+            return List.of();
+        }
+
+        List<Documento> encontrados = new ArrayList<>();
+        for (Integer id : cpfs.subMap(digitos, true, digitos + Character.MAX_VALUE, false).values()) {
+            Documento documento = documentos.get(id);
+            if (documento != null) {
+                encontrados.add(documento);
+            }
+            if (encontrados.size() >= limite) {
+                break;
+            }
+        }
+        return encontrados;
+    }
+
+    /**
+     * Pontuação: termo igual a um termo do nome vale 4, prefixo do nome 3, do responsável 2/1,
+     * dígitos no início do CPF 3; +2 se o primeiro termo casar com o primeiro nome.
+     * Zero se algum termo da consulta não for encontrado.
+     */
+    private static int pontuar(Documento documento, List<String> termos) {
+        int pontos = 0;
+        for (String termo : termos) {
+            int melhor = correspondencia(documento.termosNome, termo, 4, 3);
+            if (melhor == 0) {
+                melhor = correspondencia(documento.termosResponsavel, termo, 2, 1);
+            }
+            if (melhor == 0 && documento.cpfDigitos != null && termo.chars().allMatch(Character::isDigit)
+                    && documento.cpfDigitos.startsWith(termo)) {
+                melhor = 3;
+            }
+            if (melhor == 0) {
+                return 0;
+            }
+            pontos += melhor;
+        }
+
+        if (documento.termosNome.length > 0 && documento.termosNome[0].startsWith(termos.get(0))) {
+            pontos += 2;
+        }
+        return pontos;
+    }
+
+    private static int correspondencia(String[] termosDocumento, String termo, int igual, int prefixo) {
+        int melhor = 0;
+        for (String termoDocumento : termosDocumento) {
+            if (termoDocumento.equals(termo)) {
+                return igual;
+            }
+            if (termoDocumento.startsWith(termo)) {
+                melhor = prefixo;
+            }
+        }
+        return melhor;
+    }
+
+    /**
+     * Mantém no heap os limite melhores resultados (o pior fica no topo)
+     */
+    private static void manterMelhores(PriorityQueue<Pontuado> melhores, Pontuado resultado, int limite) {
+        if (melhores.size() < limite) {
+            melhores.add(resultado);
+        } else if (RELEVANCIA.compare(resultado, melhores.peek()) < 0) {
+            melhores.poll();
+            melhores.add(resultado);
+        }
+    }
+
+    private static List<Documento> ordenar(PriorityQueue<Pontuado> resultados) {
+        return resultados.stream()
+                .sorted(RELEVANCIA)
+                .map(resultado -> resultado.documento)
+                .toList();
+    }
+
+    /**
+     * Remove acentos (á, â, ã, ç...) e converte para minúsculas
+     */
+    static String normalizar(String texto) {
+        String decomposto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return MARCAS_DIACRITICAS.matcher(decomposto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> termos(String normalizado) {
+        List<String> termos = new ArrayList<>();
+        for (String termo : SEPARADORES.split(normalizado)) {
+            if (!termo.isEmpty()) {
+                termos.add(termo);
+            }
+        }
+        return termos;
+    }
+
+    /**
+     * Aluno indexado: campos exibidos e termos normalizados
+     */
+    private static class Documento {
+        private final Integer id;
+        private final String nome;
+        private final String cpf;
+        private final String responsavelNome;
+        private final String nomeNormalizado;
+        private final String[] termosNome;
+        private final String[] termosResponsavel;
+        private final String cpfDigitos;
+
+        Documento(AlunoBusca aluno) {
+            this.id = aluno.getId();
+            this.nome = aluno.getNome();
+            this.cpf = aluno.getCpf();
+            this.responsavelNome = aluno.getResponsavelNome();
+            this.nomeNormalizado = normalizar(nome);
+            this.termosNome = termos(nomeNormalizado).toArray(new String[0]);
+            this.termosResponsavel = responsavelNome != null
+                    ? termos(normalizar(responsavelNome)).toArray(new String[0])
+                    : new String[0];
+            String digitos = cpf != null ? NAO_DIGITOS.matcher(cpf).replaceAll("") : "";
+            this.cpfDigitos = digitos.isEmpty() ? null : digitos;
+        }
+    }
+
+    private static class Pontuado {
+        private final Documento documento;
+        private final int pontos;
+
+        Pontuado(Documento documento, int pontos) {
+            this.documento = documento;
+            this.pontos = pontos;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.matricula.service;
+
+import com.matricula.model.Usuario;
+import com.matricula.repository.UsuarioRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serviço: CacheSegundoNivelService
+ * Responsável por manter o cache de segundo nível do Hibernate (Caffeine, local a cada
+ * instância) coerente entre as instâncias e por expor suas estatísticas por região.
+ * Após o commit de uma alteração em entidade cacheada, publica no Redis (pub/sub) o nome
+ * da entidade e o ID; as demais instâncias descartam a entrada e a região de consultas
+ * associada. Se a publicação falhar, a entrada remota expira pelo TTL da região.
+ */
+@Service
+@Slf4j
+public class CacheSegundoNivelService implements MessageListener, PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final String SEPARADOR = ";";
+
+    /**
+     * Regiões de consultas que dependem de cada entidade cacheada
+     */
+    private static final Map<String, String> REGIOES_CONSULTA = Map.of(
+            Usuario.class.getName(), UsuarioRepository.REGIAO_CONSULTAS
+    );
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final String instancia = UUID.randomUUID().toString();
+    private final LongAdder publicadas = new LongAdder();
+    private final LongAdder recebidas = new LongAdder();
+
+    @Value("${cache.l2.invalidacao.canal:cache:l2:invalidacao}")
+    private String canal;
+
+    public CacheSegundoNivelService(EntityManagerFactory entityManagerFactory,
+                                    StringRedisTemplate stringRedisTemplate,
+                                    RedisMessageListenerContainer listenerContainer) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    /**
+     * Registra os listeners pós-commit no Hibernate e assina o canal de invalidação
+     */
+    @PostConstruct
+    public void registrar() {
+        EventListenerRegistry registro = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registro.appendListeners(EventType.POST_COMMIT_DELETE, this);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(canal));
+        log.info("Invalidação do cache de segundo nível pelo canal {} (instância {})", canal, instancia);
+    }
+
+    /**
+     * Estatísticas de acertos e faltas de cada região do cache
+     */
+    public Map<String, Object> obterEstatisticas() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Object> regioes = new TreeMap<>();
+
+        for (String regiao : sessionFactory.getCache().getCacheRegionNames()) {
+            CacheRegionStatistics stats = statistics.getCacheRegionStatistics(regiao);
+            if (stats == null) {
+                continue;
+            }
+
+            long acertos = stats.getHitCount();
+            long faltas = stats.getMissCount();
+            long consultas = acertos + faltas;
+            regioes.put(regiao, Map.of(
+                    "acertos", acertos,
+                    "faltas", faltas,
+                    "inclusoes", stats.getPutCount(),
+                    "taxaAcerto", consultas == 0 ? 0.0 : (double) acertos / consultas,
+                    "elementosEmMemoria", stats.getElementCountInMemory()
+            ));
+        }
+
+        return Map.of(
+                "estatisticasHabilitadas", statistics.isStatisticsEnabled(),
+                "regioes", regioes,
+                "invalidacoesPublicadas", publicadas.sum(),
+                "invalidacoesRecebidas", recebidas.sum()
+        );
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publicar(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publicar(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publicar(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    /**
+     * Apenas entidades cacheadas disparam invalidação
+     */
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.canWriteToCache();
+    }
+
+    /**
+     * Recebe a invalidação publicada por outra instância
+     * Formato: instancia;entidade;id (os IDs das entidades cacheadas são Integer)
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] partes = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARADOR, 3);
+        if (partes.length != 3 || instancia.equals(partes[0])) {
+            return;
+        }
+
+        try {
+            descartar(partes[1], Integer.valueOf(partes[2]));
+            recebidas.increment();
+        } catch (Exception e) {
+            log.warn("Mensagem de invalidação do cache inválida: {}", String.join(SEPARADOR, partes), e);
+        }
+    }
+
+    /**
+     * Descarta a entidade e as consultas dependentes do cache desta instância
+     */
+    public void descartar(String entidade, Object id) {
+        sessionFactory.getCache().evictEntityData(entidade, id);
+
+        String regiaoConsulta = REGIOES_CONSULTA.get(entidade);
+        if (regiaoConsulta != null) {
+            sessionFactory.getCache().evictQueryRegion(regiaoConsulta);
+        }
+    }
+
+    private void publicar(EntityPersister persister, Object id) {
+        try {
+            stringRedisTemplate.convertAndSend(canal,
+                    instancia + SEPARADOR + persister.getEntityName() + SEPARADOR + id);
+            publicadas.increment();
+        } catch (Exception e) {
+            log.warn("Falha ao publicar invalidação do cache para {}#{}", persister.getEntityName(), id, e);
+        }
+    }
+}
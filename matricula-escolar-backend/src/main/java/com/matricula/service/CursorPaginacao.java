@@ -0,0 +1,97 @@
+package com.matricula.service;
+
+import com.matricula.dto.PaginaDTO;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cursor opaco da paginação por chave (keyset)
+ * Guarda a chave de ordenação e o ID do último item entregue, em Base64 URL-safe.
+ * A próxima página é buscada com WHERE (chave, id) após o cursor, usando o índice da
+ * ordenação, de modo que páginas profundas custam o mesmo que a primeira (sem OFFSET).
+ */
+public final class CursorPaginacao {
+
+    public static final int LIMITE_PADRAO = 50;
+    public static final int LIMITE_MAXIMO = 200;
+
+    private static final char SEPARADOR = '\n';
+
+    private final String chave;
+    private final Integer id;
+
+    private CursorPaginacao(String chave, Integer id) {
+        this.chave = chave;
+        this.id = id;
+    }
+
+    public String getChave() {
+        return chave;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public LocalDateTime getChaveDataHora() {
+        try {
+            return LocalDateTime.parse(chave);
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Decodifica o cursor recebido do cliente
+     * @return null se o token estiver vazio (primeira página)
+     * @throws RuntimeException se o token não foi gerado por esta classe
+     */
+    public static CursorPaginacao decodificar(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = texto.lastIndexOf(SEPARADOR);
+            return new CursorPaginacao(texto.substring(0, separador), Integer.valueOf(texto.substring(separador + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new RuntimeException("Cursor inválido");
+        }
+    }
+
+    public static String codificar(Object chave, Integer id) {
+        String texto = chave + String.valueOf(SEPARADOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Ajusta o tamanho de página solicitado ao intervalo permitido
+     */
+    public static int limitar(Integer limite) {
+        if (limite == null || limite <= 0) {
+            return LIMITE_PADRAO;
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    /**
+     * Monta a página a partir de até limite + 1 linhas buscadas
+     * A linha excedente apenas indica que existe próxima página
+     */
+    public static <E, D> PaginaDTO<D> montarPagina(List<E> linhas, int limite, Function<E, D> conversor,
+                                                   Function<E, String> cursorDe) {
+        boolean haMais = linhas.size() > limite;
+        List<E> pagina = haMais ? linhas.subList(0, limite) : linhas;
+
+        return PaginaDTO.<D>builder()
+                .itens(pagina.stream().map(conversor).collect(Collectors.toList()))
+                .proximoCursor(haMais ? cursorDe.apply(pagina.get(pagina.size() - 1)) : null)
+                .build();
+    }
+}
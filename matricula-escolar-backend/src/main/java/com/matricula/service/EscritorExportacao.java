@@ -0,0 +1,135 @@
+package com.matricula.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Escritor de exportações em NDJSON ou CSV
+ * Escreve um registro por vez em um buffer fixo sobre a saída da resposta, sem acumular
+ * a lista em memória. Em NDJSON cada linha é o JSON do DTO; em CSV as colunas são as
+ * informadas no construtor, na ordem do mapa.
+ */
+public class EscritorExportacao<T> {
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    public enum Formato {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extensao;
+
+        Formato(String contentType, String extensao) {
+            this.contentType = contentType;
+            this.extensao = extensao;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtensao() {
+            return extensao;
+        }
+
+        public static Formato de(String valor) {
+            for (Formato formato : values()) {
+                if (formato.extensao.equalsIgnoreCase(valor)) {
+                    return formato;
+                }
+            }
+            throw new RuntimeException("Formato de exportação inválido, use ndjson ou csv");
+        }
+    }
+
+    private final Writer writer;
+    private final Map<String, Function<T, Object>> colunas;
+    private final SequenceWriter json;
+    private long registros;
+
+    public EscritorExportacao(OutputStream saida, Formato formato, ObjectMapper objectMapper,
+                              Map<String, Function<T, Object>> colunas) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+        this.colunas = colunas;
+
+        if (formato == Formato.NDJSON) {
+            this.json = objectMapper.writer().withRootValueSeparator("\n").writeValues(writer);
+        } else {
+            this.json = null;
+            escreverLinhaCsv(String.join(",", colunas.keySet()));
+        }
+    }
+
+    public void escrever(T item) throws IOException {
+        if (json != null) {
+            json.write(item);
+        } else {
+            StringBuilder linha = new StringBuilder(256);
+            for (Function<T, Object> coluna : colunas.values()) {
+                if (linha.length() > 0) {
+                    linha.append(',');
+                }
+                valorCsv(linha, coluna.apply(item));
+            }
+            escreverLinhaCsv(linha);
+        }
+        registros++;
+    }
+
+    /**
+     * Descarrega o buffer; a saída é fechada pelo container
+     */
+    public void finalizar() throws IOException {
+        if (json != null) {
+            json.flush();
+            if (registros > 0) {
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    public long getRegistros() {
+        return registros;
+    }
+
+    private void escreverLinhaCsv(CharSequence linha) throws IOException {
+        writer.append(linha).append("\r\n");
+    }
+
+    /**
+     * Valor CSV conforme RFC 4180: entre aspas se contiver separador, aspas ou quebra de linha
+     */
+    private static void valorCsv(StringBuilder linha, Object valor) {
+        if (valor == null) {
+            return;
+        }
+
+        String texto = valor.toString();
+        boolean aspas = texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0
+                || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0;
+        if (!aspas) {
+            linha.append(texto);
+            return;
+        }
+
+        linha.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"') {
+                linha.append('"');
+            }
+            linha.append(c);
+        }
+        linha.append('"');
+    }
+}
@@ -0,0 +1,183 @@
+package com.matricula.service;
+
+import com.matricula.dto.AlteracaoDTO;
+import com.matricula.dto.AlunoDTO;
+import com.matricula.dto.FeedAlteracoesDTO;
+import com.matricula.dto.MatriculaDTO;
+import com.matricula.dto.TurmaDTO;
+import com.matricula.model.Aluno;
+import com.matricula.repository.MatriculaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serviço: FeedAlteracoesService
+ * Responsável pelo feed de alterações de matrículas, alunos e turmas para sincronização
+ * incremental. As três tabelas são lidas após a mesma posição (dataAtualizacao, tipo, id) pelos
+ * índices (data_atualizacao, id) e intercaladas nessa ordem; o cursor é a posição do último
+ * item entregue. data_atualizacao é definida na instrução, não no commit: uma transação ainda
+ * aberta pode gravar uma data anterior a um cursor já entregue. Por isso a leitura para antes do
+ * início da transação de escrita aberta mais antiga (information_schema.innodb_trx), qualquer que
+ * seja a duração dela (ex.: matrícula em novas tentativas do TransacaoOtimista), e antes dos
+ * últimos atraso-seguranca-ms (instruções que ainda não aparecem como escrita).
+ * Sem acesso a innodb_trx (privilégio PROCESS) vale só o atraso, e a garantia fica restrita a
+ * transações mais curtas que ele.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeedAlteracoesService {
+
+    /**
+     * Ordem dos tipos entre alterações com a mesma dataAtualizacao
+     */
+    enum Tipo {
+        MATRICULA, ALUNO, TURMA
+    }
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final char SEPARADOR_CHAVE = '|';
+
+    private final MatriculaService matriculaService;
+    private final AlunoService alunoService;
+    private final TurmaService turmaService;
+    private final MatriculaRepository matriculaRepository;
+
+    @Value("${matricula.alteracoes.atraso-seguranca-ms:2000}")
+    private long atrasoSegurancaMs;
+
+    private final AtomicBoolean transacoesIndisponiveis = new AtomicBoolean();
+
+    /**
+     * Alterações após o cursor, das mais antigas às mais recentes
+     * As consultas não abrem transação, então vão ao primário (sem atraso de réplica)
+     * @param since Cursor devolvido pela chamada anterior (null para a carga inicial completa)
+     */
+    public FeedAlteracoesDTO listarAlteracoes(String since, Integer limite) {
+        int tamanho = CursorPaginacao.limitar(limite);
+        Posicao posicao = Posicao.de(since);
+        LocalDateTime ate = limiteLeitura();
+
+        // Até tamanho + 1 de cada tipo: os primeiros da intercalação estão entre eles
+        List<AlteracaoDTO> alteracoes = new ArrayList<>();
+        for (MatriculaDTO matricula : matriculaService.listarAlteradasApos(posicao.data,
+                posicao.idPara(Tipo.MATRICULA), ate, tamanho + 1)) {
+            alteracoes.add(alteracao(Tipo.MATRICULA, matricula.getId(), matricula.getDataAtualizacao(), false, matricula));
+        }
+        for (AlunoDTO aluno : alunoService.listarAlteradosApos(posicao.data,
+                posicao.idPara(Tipo.ALUNO), ate, tamanho + 1)) {
+            boolean removido = Aluno.Status.CANCELADO.name().equals(aluno.getStatus());
+            alteracoes.add(alteracao(Tipo.ALUNO, aluno.getId(), aluno.getDataAtualizacao(), removido, aluno));
+        }
+        for (TurmaDTO turma : turmaService.listarAlteradasApos(posicao.data,
+                posicao.idPara(Tipo.TURMA), ate, tamanho + 1)) {
+            boolean removido = !Boolean.TRUE.equals(turma.getAtivo());
+            alteracoes.add(alteracao(Tipo.TURMA, turma.getId(), turma.getDataAtualizacao(), removido, turma));
+        }
+
+        alteracoes.sort(Comparator.comparing(AlteracaoDTO::getDataAtualizacao)
+                .thenComparing(alteracao -> Tipo.valueOf(alteracao.getTipo()))
+                .thenComparing(AlteracaoDTO::getId));
+
+        boolean haMais = alteracoes.size() > tamanho;
+        List<AlteracaoDTO> pagina = haMais ? new ArrayList<>(alteracoes.subList(0, tamanho)) : alteracoes;
+        String cursor = pagina.isEmpty() ? since : Posicao.codificar(pagina.get(pagina.size() - 1));
+
+        log.info("Feed de alterações: {} item(ns), haMais={}", pagina.size(), haMais);
+        return FeedAlteracoesDTO.builder()
+                .alteracoes(pagina)
+                .cursor(cursor)
+                .haMais(haMais)
+                .build();
+    }
+
+    /**
+     * Posição até onde as linhas já não podem mudar de data: antes das transações de escrita abertas
+     */
+    private LocalDateTime limiteLeitura() {
+        LocalDateTime ate = matriculaRepository.obterDataHoraBanco().toLocalDateTime()
+                .minus(atrasoSegurancaMs, ChronoUnit.MILLIS);
+        try {
+            Timestamp inicio = matriculaRepository.obterInicioTransacaoAbertaMaisAntiga();
+            if (inicio != null && inicio.toLocalDateTime().isBefore(ate)) {
+                return inicio.toLocalDateTime();
+            }
+        } catch (DataAccessException e) {
+            if (transacoesIndisponiveis.compareAndSet(false, true)) {
+                log.warn("Transações abertas indisponíveis (information_schema.innodb_trx); o feed de alterações "
+                        + "usa só o atraso de {} ms", atrasoSegurancaMs, e);
+            }
+        }
+        return ate;
+    }
+
+    private static AlteracaoDTO alteracao(Tipo tipo, Integer id, LocalDateTime dataAtualizacao,
+                                          boolean removido, Object dados) {
+        return AlteracaoDTO.builder()
+                .tipo(tipo.name())
+                .id(id)
+                .removido(removido)
+                .dataAtualizacao(dataAtualizacao)
+                .dados(removido ? null : dados)
+                .build();
+    }
+
+    /**
+     * Posição no feed: (dataAtualizacao, tipo, id) do último item entregue
+     */
+    private static final class Posicao {
+        private final LocalDateTime data;
+        private final Tipo tipo;
+        private final Integer id;
+
+        private Posicao(LocalDateTime data, Tipo tipo, Integer id) {
+            this.data = data;
+            this.tipo = tipo;
+            this.id = id;
+        }
+
+        static Posicao de(String since) {
+            CursorPaginacao cursor = CursorPaginacao.decodificar(since);
+            if (cursor == null) {
+                return new Posicao(INICIO, Tipo.MATRICULA, 0);
+            }
+
+            String chave = cursor.getChave();
+            int separador = chave.lastIndexOf(SEPARADOR_CHAVE);
+            try {
+                return new Posicao(LocalDateTime.parse(chave.substring(0, separador)),
+                        Tipo.valueOf(chave.substring(separador + 1)), cursor.getId());
+            } catch (DateTimeParseException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+        }
+
+        static String codificar(AlteracaoDTO ultima) {
+            return CursorPaginacao.codificar(ultima.getDataAtualizacao().toString() + SEPARADOR_CHAVE + ultima.getTipo(),
+                    ultima.getId());
+        }
+
+        /**
+         * ID a usar em "(data > :data OR (data = :data AND id > :id))" para cada tipo:
+         * tipos anteriores ao do cursor já foram entregues na mesma data (nenhum ID passa),
+         * o próprio tipo continua após o ID e os posteriores começam do início da data
+         */
+        Integer idPara(Tipo outro) {
+            if (outro.ordinal() < tipo.ordinal()) {
+                return Integer.MAX_VALUE;
+            }
+            return outro == tipo ? id : 0;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.matricula.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro de Bloom seguro para uso concorrente (bits em AtomicLongArray)
+ * podeConter() nunca dá falso negativo para valores incluídos; falsos positivos ocorrem
+ * com a taxa para a qual o filtro foi dimensionado enquanto a capacidade não é excedida.
+ * As k posições vêm de um hash de 64 bits dividido em dois de 32 (h1 + i*h2).
+ */
+final class FiltroBloom {
+
+    private final AtomicLongArray palavras;
+    private final long bits;
+    private final int hashes;
+    private final long capacidade;
+    private final AtomicLong bitsLigados = new AtomicLong();
+    private final LongAdder elementos = new LongAdder();
+
+    private FiltroBloom(long bits, int hashes, long capacidade) {
+        this.palavras = new AtomicLongArray((int) (bits / Long.SIZE));
+        this.bits = bits;
+        this.hashes = hashes;
+        this.capacidade = capacidade;
+    }
+
+    /**
+     * Dimensiona o filtro para a capacidade e a taxa de falsos positivos desejadas
+     */
+    static FiltroBloom dimensionado(long capacidade, double taxaFalsosPositivos) {
+        long n = Math.max(1, capacidade);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-n * Math.log(taxaFalsosPositivos) / (ln2 * ln2));
+        m = Math.max(Long.SIZE, (m + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+        int k = Math.max(1, (int) Math.round((double) m / n * ln2));
+        return new FiltroBloom(m, k, n);
+    }
+
+    void incluir(String valor) {
+        long hash = hash(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long posicao = posicao(h1 + i * h2);
+            int indice = (int) (posicao >>> 6);
+            long mascara = 1L << posicao;
+            long anterior = palavras.getAndAccumulate(indice, mascara, (atual, bit) -> atual | bit);
+            if ((anterior & mascara) == 0) {
+                bitsLigados.incrementAndGet();
+            }
+        }
+        elementos.increment();
+    }
+
+    boolean podeConter(String valor) {
+        long hash = hash(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long posicao = posicao(h1 + i * h2);
+            if ((palavras.get((int) (posicao >>> 6)) & (1L << posicao)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Taxa de falsos positivos esperada para a ocupação atual dos bits: (bits ligados / bits)^k
+     */
+    double taxaEstimada() {
+        return Math.pow((double) bitsLigados.get() / bits, hashes);
+    }
+
+    long getBits() {
+        return bits;
+    }
+
+    int getHashes() {
+        return hashes;
+    }
+
+    long getCapacidade() {
+        return capacidade;
+    }
+
+    long getElementos() {
+        return elementos.sum();
+    }
+
+    long getTamanhoBytes() {
+        return bits / Byte.SIZE;
+    }
+
+    private long posicao(int combinado) {
+        // Complemento torna o valor não negativo sem perder distribuição
+        return (combinado < 0 ? ~combinado : combinado) % bits;
+    }
+
+    /**
+     * FNV-1a de 64 bits sobre os bytes UTF-8, seguido da mistura final do MurmurHash3
+     */
+    private static long hash(String valor) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb3e4a3e7d9ebL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,123 @@
+package com.matricula.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Corpo JSON já serializado (opcionalmente em gzip), pronto para ser escrito na resposta
+ * proximoCursor acompanha as páginas de listagens (nulo na última página e fora delas).
+ * etag (hash do JSON sem compactação) e ultimaModificacao (ms da serialização) são gerados
+ * junto com o corpo e guardados com ele, para o GET condicional sem consultar o banco.
+ */
+@Getter
+@AllArgsConstructor
+public class JsonSerializado {
+
+    /**
+     * Primeiro byte do formato armazenado no Redis (entradas em outro formato são ignoradas)
+     */
+    private static final byte FORMATO = 2;
+
+    private final byte[] corpo;
+    private final boolean gzip;
+    private final String proximoCursor;
+    private final String etag;
+    private final long ultimaModificacao;
+
+    /**
+     * Cria o corpo a partir do JSON, compactando-o se pedido
+     */
+    public static JsonSerializado de(byte[] json, boolean compactar, String proximoCursor) {
+        String etag = resumo(json);
+        long agora = System.currentTimeMillis();
+        if (!compactar) {
+            return new JsonSerializado(json, false, proximoCursor, etag, agora);
+        }
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new JsonSerializado(saida.toByteArray(), true, proximoCursor, etag, agora);
+    }
+
+    /**
+     * JSON sem compactação (para clientes que não aceitam gzip)
+     */
+    public byte[] descompactado() {
+        if (!gzip) {
+            return corpo;
+        }
+
+        try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(corpo))) {
+            return entrada.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Formato armazenado no Redis: formato (byte), gzip (boolean), etag (UTF), última modificação
+     * (long), cursor presente (boolean), cursor (UTF), corpo
+     */
+    public byte[] paraBytes() {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(corpo.length + 96);
+        try (DataOutputStream dados = new DataOutputStream(saida)) {
+            dados.writeByte(FORMATO);
+            dados.writeBoolean(gzip);
+            dados.writeUTF(etag);
+            dados.writeLong(ultimaModificacao);
+            dados.writeBoolean(proximoCursor != null);
+            if (proximoCursor != null) {
+                dados.writeUTF(proximoCursor);
+            }
+            dados.write(corpo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return saida.toByteArray();
+    }
+
+    /**
+     * Lê o formato de paraBytes; null se os bytes estão em um formato anterior
+     */
+    public static JsonSerializado deBytes(byte[] bytes) {
+        if (bytes.length == 0 || bytes[0] != FORMATO) {
+            return null;
+        }
+
+        try (DataInputStream dados = new DataInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1))) {
+            boolean gzip = dados.readBoolean();
+            String etag = dados.readUTF();
+            long ultimaModificacao = dados.readLong();
+            String proximoCursor = dados.readBoolean() ? dados.readUTF() : null;
+            return new JsonSerializado(dados.readAllBytes(), gzip, proximoCursor, etag, ultimaModificacao);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Primeiros 16 caracteres hexadecimais do SHA-256 do JSON
+     */
+    private static String resumo(byte[] json) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.matricula.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serviço: LimiteLoginService
+ * Responsável por limitar as tentativas de login por IP e por conta (token bucket), antes de
+ * qualquer verificação de senha. Cada tentativa consome um token dos dois baldes, no mesmo
+ * script Lua do Redis (compartilhado entre as instâncias); os baldes se recompõem a um token por
+ * intervalo-ms até a capacidade. Se o Redis falhar, usa baldes locais desta instância.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LimiteLoginService {
+
+    private static final String PREFIXO_IP = "login:limite:ip:";
+    private static final String PREFIXO_CONTA = "login:limite:conta:";
+
+    /**
+     * Consome um token de cada balde (KEYS[1] = IP, KEYS[2] = conta) somente se ambos tiverem
+     * ARGV = capacidade e intervalo (ms por token) do IP, da conta e o instante atual (ms)
+     * Retorna 0 se permitido ou a espera em ms até haver token nos dois baldes
+     */
+    private static final RedisScript<Long> CONSUMIR_SCRIPT = new DefaultRedisScript<>("""
+            local agora = tonumber(ARGV[5])
+            local tokens = {}
+            local espera = 0
+            for i = 1, 2 do
+                local capacidade = tonumber(ARGV[2 * i - 1])
+                local intervalo = tonumber(ARGV[2 * i])
+                local dados = redis.call('HMGET', KEYS[i], 'tokens', 'ts')
+                local disponiveis = tonumber(dados[1]) or capacidade
+                local ts = tonumber(dados[2]) or agora
+                disponiveis = math.min(capacidade, disponiveis + math.max(0, agora - ts) / intervalo)
+                tokens[i] = disponiveis
+                if disponiveis < 1 then
+                    espera = math.max(espera, math.ceil((1 - disponiveis) * intervalo))
+                end
+            end
+            for i = 1, 2 do
+                local capacidade = tonumber(ARGV[2 * i - 1])
+                local intervalo = tonumber(ARGV[2 * i])
+                if espera == 0 then
+                    tokens[i] = tokens[i] - 1
+                end
+                redis.call('HSET', KEYS[i], 'tokens', tostring(tokens[i]), 'ts', ARGV[5])
+                redis.call('PEXPIRE', KEYS[i], math.ceil(capacidade * intervalo))
+            end
+            return espera
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final LongAdder permitidas = new LongAdder();
+    private final LongAdder bloqueadas = new LongAdder();
+
+    @Value("${auth.login.limite.ip.capacidade:100}")
+    private int capacidadeIp;
+
+    @Value("${auth.login.limite.ip.intervalo-ms:100}")
+    private long intervaloIpMs;
+
+    @Value("${auth.login.limite.conta.capacidade:5}")
+    private int capacidadeConta;
+
+    @Value("${auth.login.limite.conta.intervalo-ms:12000}")
+    private long intervaloContaMs;
+
+    private Cache<String, BaldeLocal> baldesLocais;
+
+    @PostConstruct
+    public void iniciar() {
+        baldesLocais = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMillis(Math.max(capacidadeIp * intervaloIpMs, capacidadeConta * intervaloContaMs)))
+                .build();
+    }
+
+    /**
+     * Consome uma tentativa de login do IP e da conta
+     * @return 0 se a tentativa é permitida, ou os segundos até a próxima tentativa permitida
+     */
+    public long consumirTentativa(String ip, String email) {
+        String chaveIp = PREFIXO_IP + ip;
+        String chaveConta = PREFIXO_CONTA + (email != null ? email.trim().toLowerCase(Locale.ROOT) : "");
+
+        long esperaMs;
+        try {
+            Long resultado = stringRedisTemplate.execute(CONSUMIR_SCRIPT, List.of(chaveIp, chaveConta),
+                    String.valueOf(capacidadeIp), String.valueOf(intervaloIpMs),
+                    String.valueOf(capacidadeConta), String.valueOf(intervaloContaMs),
+                    String.valueOf(System.currentTimeMillis()));
+            esperaMs = resultado != null ? resultado : 0L;
+        } catch (DataAccessException e) {
+            log.warn("Redis indisponível, limitando tentativas de login com baldes locais", e);
+            esperaMs = consumirLocal(chaveIp, chaveConta);
+        }
+
+        if (esperaMs > 0) {
+            bloqueadas.increment();
+            log.warn("Tentativa de login bloqueada: IP {}, conta {}", ip, email);
+            return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(esperaMs + 999));
+        }
+        permitidas.increment();
+        return 0;
+    }
+
+    /**
+     * Limites configurados e tentativas permitidas/bloqueadas nesta instância
+     */
+    public Map<String, Object> obterEstatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("ipCapacidade", capacidadeIp);
+        estatisticas.put("ipIntervaloMs", intervaloIpMs);
+        estatisticas.put("contaCapacidade", capacidadeConta);
+        estatisticas.put("contaIntervaloMs", intervaloContaMs);
+        estatisticas.put("permitidas", permitidas.sum());
+        estatisticas.put("bloqueadas", bloqueadas.sum());
+        return estatisticas;
+    }
+
+    private long consumirLocal(String chaveIp, String chaveConta) {
+        BaldeLocal ip = baldesLocais.get(chaveIp, chave -> new BaldeLocal(capacidadeIp, intervaloIpMs));
+        BaldeLocal conta = baldesLocais.get(chaveConta, chave -> new BaldeLocal(capacidadeConta, intervaloContaMs));
+
+        // Ordem fixa (IP, conta) entre as threads, então os dois locks não entram em deadlock
+        synchronized (ip) {
+            synchronized (conta) {
+                long agora = System.currentTimeMillis();
+                long espera = Math.max(ip.espera(agora), conta.espera(agora));
+                if (espera == 0) {
+                    ip.tokens -= 1;
+                    conta.tokens -= 1;
+                }
+                return espera;
+            }
+        }
+    }
+
+    /**
+     * Balde local usado enquanto o Redis estiver indisponível
+     */
+    private static class BaldeLocal {
+        private final int capacidade;
+        private final long intervaloMs;
+        private double tokens;
+        private long ultimaRecarga;
+
+        BaldeLocal(int capacidade, long intervaloMs) {
+            this.capacidade = capacidade;
+            this.intervaloMs = intervaloMs;
+            this.tokens = capacidade;
+            this.ultimaRecarga = System.currentTimeMillis();
+        }
+
+        /**
+         * Recompõe os tokens até agora e devolve a espera (ms) até haver um token
+         */
+        long espera(long agora) {
+            tokens = Math.min(capacidade, tokens + Math.max(0, agora - ultimaRecarga) / (double) intervaloMs);
+            ultimaRecarga = agora;
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * intervaloMs);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.matricula.service;
+
+import com.matricula.dto.ListaEsperaDTO;
+import com.matricula.model.Turma;
+import com.matricula.repository.AlunoRepository;
+import com.matricula.repository.MatriculaRepository;
+import com.matricula.repository.TurmaRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serviço: ListaEsperaService
+ * Responsável pela lista de espera das turmas lotadas
+ * Cada turma possui um sorted set no Redis (turma:espera:{id}) ordenado por prioridade e
+ * horário de entrada; inclusão e consulta de posição são O(log n). A promoção acontece no
+ * VagaService: a vaga devolvida é retirada do início da lista no mesmo script que atualiza o
+ * contador e fica registrada como pendente no Redis; este serviço registra a matrícula do
+ * aluno promovido e conclui a promoção. Promoções que não terminam (falha transitória,
+ * encerramento da aplicação) são retomadas pela recuperação periódica.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ListaEsperaService {
+
+    public static final String ESPERA_KEY_PREFIX = "turma:espera:";
+
+    public static final int PRIORIDADE_MAXIMA = 9;
+
+    /**
+     * Peso de um nível de prioridade no score, maior que qualquer timestamp em milissegundos
+     */
+    private static final long PESO_PRIORIDADE = 10_000_000_000_000L;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TurmaRepository turmaRepository;
+    private final AlunoRepository alunoRepository;
+    private final MatriculaRepository matriculaRepository;
+    private final MatriculaService matriculaService;
+    private final VagaService vagaService;
+
+    @Value("${lista-espera.promocao.expiracao-ms:300000}")
+    private long expiracaoPromocaoMs;
+
+    @Value("${lista-espera.promocao.recuperacao-lote:100}")
+    private int loteRecuperacao;
+
+    private final ExecutorService promocoes = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lista-espera-promocao");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Aguarda as promoções em andamento; as que não terminarem continuam pendentes no Redis
+     */
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        promocoes.shutdown();
+        if (!promocoes.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("{} promoção(ões) da lista de espera não concluída(s); serão retomadas pela recuperação",
+                    promocoes.shutdownNow().size());
+        }
+    }
+
+    /**
+     * Inclui o aluno na lista de espera da turma
+     * Se o aluno já está na lista, mantém a posição original
+     * @param prioridade 0 (padrão) a 9; prioridades maiores são atendidas primeiro
+     */
+    public ListaEsperaDTO entrar(Integer turmaId, Integer alunoId, int prioridade) {
+        log.info("Incluindo aluno {} na lista de espera da turma {}", alunoId, turmaId);
+
+        Turma turma = turmaRepository.findById(turmaId)
+                .orElseThrow(() -> new RuntimeException("Turma não encontrada"));
+
+        if (!alunoRepository.existsById(alunoId)) {
+            throw new RuntimeException("Aluno não encontrado");
+        }
+
+        if (matriculaRepository.existsByAlunoIdAndTurmaId(alunoId, turmaId)) {
+            throw new RuntimeException("Aluno já possui matrícula registrada nesta turma");
+        }
+
+        long score = (PRIORIDADE_MAXIMA - prioridade) * PESO_PRIORIDADE + System.currentTimeMillis();
+        long posicao = vagaService.entrarNaListaEspera(turma, alunoId, score);
+
+        return construirDTO(turmaId, alunoId, posicao + 1);
+    }
+
+    /**
+     * Consulta a posição do aluno na lista de espera (1 = próximo a ser promovido)
+     */
+    public ListaEsperaDTO buscarPosicao(Integer turmaId, Integer alunoId) {
+        Long rank = stringRedisTemplate.opsForZSet().rank(ESPERA_KEY_PREFIX + turmaId, String.valueOf(alunoId));
+        if (rank == null) {
+            throw new RuntimeException("Aluno não está na lista de espera desta turma");
+        }
+
+        return construirDTO(turmaId, alunoId, rank + 1);
+    }
+
+    /**
+     * Remove o aluno da lista de espera
+     */
+    public void sair(Integer turmaId, Integer alunoId) {
+        log.info("Removendo aluno {} da lista de espera da turma {}", alunoId, turmaId);
+
+        Long removidos = stringRedisTemplate.opsForZSet().remove(ESPERA_KEY_PREFIX + turmaId, String.valueOf(alunoId));
+        if (removidos == null || removidos == 0) {
+            throw new RuntimeException("Aluno não está na lista de espera desta turma");
+        }
+    }
+
+    /**
+     * Registra a matrícula do aluno que recebeu uma vaga devolvida
+     * Executado fora da thread que liberou a vaga, para não prolongar o cancelamento e para
+     * que falhas sucessivas (a vaga passa ao próximo da lista) não se acumulem na pilha
+     */
+    @EventListener
+    public void onVagaTransferida(VagaTransferidaEvent evento) {
+        try {
+            promocoes.execute(() -> promover(evento));
+        } catch (RejectedExecutionException e) {
+            log.warn("Aplicação encerrando; promoção do aluno {} na turma {} será retomada pela recuperação",
+                    evento.getAlunoId(), evento.getTurmaId());
+        }
+    }
+
+    /**
+     * Retoma as promoções pendentes há mais de expiracao-ms (instância encerrada ou falha
+     * transitória); promoções cuja matrícula já foi gravada são apenas concluídas
+     */
+    @Scheduled(initialDelayString = "${lista-espera.promocao.recuperacao-ms:60000}",
+            fixedDelayString = "${lista-espera.promocao.recuperacao-ms:60000}")
+    public void recuperarPromocoes() {
+        List<VagaTransferidaEvent> expiradas;
+        try {
+            expiradas = vagaService.reivindicarPromocoesExpiradas(
+                    System.currentTimeMillis() - expiracaoPromocaoMs, loteRecuperacao);
+        } catch (DataAccessException e) {
+            log.warn("Erro ao consultar promoções pendentes da lista de espera", e);
+            return;
+        }
+
+        for (VagaTransferidaEvent promocao : expiradas) {
+            log.info("Retomando promoção do aluno {} na turma {}", promocao.getAlunoId(), promocao.getTurmaId());
+            try {
+                // Matrícula em qualquer status: se foi gravada por esta promoção e já cancelada,
+                // a vaga voltou no cancelamento e não pode ser repassada de novo
+                if (matriculaRepository.existsByAlunoIdAndTurmaId(promocao.getAlunoId(), promocao.getTurmaId())) {
+                    vagaService.concluirPromocao(promocao);
+                    continue;
+                }
+            } catch (DataAccessException e) {
+                log.warn("Erro ao verificar matrícula do aluno {} na turma {}; promoção continua pendente",
+                        promocao.getAlunoId(), promocao.getTurmaId(), e);
+                continue;
+            }
+            promover(promocao);
+        }
+    }
+
+    /**
+     * Destino da vaga conforme o resultado:
+     * - matrícula gravada: promoção concluída
+     * - aluno removido ou já matriculado na turma: a vaga passa ao próximo da lista
+     * - turma sem vagas (o contador admitiu além da ocupação): o aluno volta à lista na mesma
+     *   posição e nenhuma vaga é repassada, pois ela não existe
+     * - demais falhas (banco, Redis, conflitos esgotados): a promoção continua pendente e é
+     *   retomada pela recuperação
+     */
+    private void promover(VagaTransferidaEvent promocao) {
+        Integer turmaId = promocao.getTurmaId();
+        Integer alunoId = promocao.getAlunoId();
+        try {
+            Turma turma = turmaRepository.findById(turmaId).orElse(null);
+            if (turma == null) {
+                log.warn("Turma {} removida; promoção do aluno {} descartada", turmaId, alunoId);
+                vagaService.concluirPromocao(promocao);
+                return;
+            }
+
+            if (matriculaService.registrarMatriculaPromovida(alunoId, turmaId).isPresent()) {
+                vagaService.concluirPromocao(promocao);
+                log.info("Aluno {} promovido da lista de espera da turma {}", alunoId, turmaId);
+            } else {
+                log.warn("Aluno {} não pode ser matriculado na turma {}; vaga repassada", alunoId, turmaId);
+                vagaService.devolverVagaTransferida(turma, promocao);
+            }
+        } catch (TurmaSemVagasException e) {
+            log.warn("Turma {} sem a vaga transferida; aluno {} volta à lista de espera", turmaId, alunoId);
+            vagaService.reinserirNaListaEspera(promocao);
+        } catch (Exception e) {
+            log.warn("Aluno {} não pôde ser promovido na turma {} ({}); promoção continua pendente",
+                    alunoId, turmaId, e.getMessage());
+        }
+    }
+
+    private ListaEsperaDTO construirDTO(Integer turmaId, Integer alunoId, long posicao) {
+        Long tamanho = stringRedisTemplate.opsForZSet().zCard(ESPERA_KEY_PREFIX + turmaId);
+        return ListaEsperaDTO.builder()
+                .turmaId(turmaId)
+                .alunoId(alunoId)
+                .posicao(posicao)
+                .tamanho(tamanho != null ? tamanho : 0)
+                .build();
+    }
+}
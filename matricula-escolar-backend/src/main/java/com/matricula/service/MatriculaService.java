@@ -1,20 +1,45 @@
 package com.matricula.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matricula.config.RoteamentoDataSource;
 import com.matricula.dto.MatriculaDTO;
+import com.matricula.dto.MatriculaLoteResultadoDTO;
+import com.matricula.dto.PaginaDTO;
+import com.matricula.fila.evento.MatriculaCancelada;
+import com.matricula.fila.evento.MatriculaCriada;
 import com.matricula.model.Aluno;
 import com.matricula.model.Matricula;
 import com.matricula.model.Turma;
 import com.matricula.repository.AlunoRepository;
 import com.matricula.repository.MatriculaRepository;
+import com.matricula.repository.MatriculaRepository.MatriculaExistente;
+import com.matricula.repository.MatriculaRepository.MatriculaResumo;
+import com.matricula.repository.OutboxEventoRepository;
 import com.matricula.repository.TurmaRepository;
+import com.matricula.repository.VersaoRecurso;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Serviço: MatriculaService
@@ -30,38 +55,158 @@ public class MatriculaService {
     private final AlunoRepository alunoRepository;
     private final TurmaRepository turmaRepository;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final VagaService vagaService;
+    private final OutboxService outboxService;
+    private final OutboxEventoRepository outboxEventoRepository;
+    private final TransacaoOtimista transacaoOtimista;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
 
     private static final String FILA_MATRICULAS_KEY = "fila:matriculas";
     private static final String FILA_CANCELAMENTOS_KEY = "fila:cancelamentos";
 
+    private static final Map<String, Function<MatriculaDTO, Object>> COLUNAS_EXPORTACAO = new LinkedHashMap<>();
+
+    static {
+        COLUNAS_EXPORTACAO.put("id", MatriculaDTO::getId);
+        COLUNAS_EXPORTACAO.put("alunoId", MatriculaDTO::getAlunoId);
+        COLUNAS_EXPORTACAO.put("alunoNome", MatriculaDTO::getAlunoNome);
+        COLUNAS_EXPORTACAO.put("alunoCpf", MatriculaDTO::getAlunoCpf);
+        COLUNAS_EXPORTACAO.put("turmaId", MatriculaDTO::getTurmaId);
+        COLUNAS_EXPORTACAO.put("turmaNome", MatriculaDTO::getTurmaNome);
+        COLUNAS_EXPORTACAO.put("turmaSerie", MatriculaDTO::getTurmaSerie);
+        COLUNAS_EXPORTACAO.put("turno", MatriculaDTO::getTurno);
+        COLUNAS_EXPORTACAO.put("status", MatriculaDTO::getStatus);
+        COLUNAS_EXPORTACAO.put("dataMatricula", MatriculaDTO::getDataMatricula);
+        COLUNAS_EXPORTACAO.put("dataCancelamento", MatriculaDTO::getDataCancelamento);
+        COLUNAS_EXPORTACAO.put("motivoCancelamento", MatriculaDTO::getMotivoCancelamento);
+    }
+
     /**
-     * Lista todas as matrículas ativas
+     * Lista as matrículas ativas paginadas por (dataMatricula, id), das mais recentes às mais antigas
+     * @param cursor Cursor devolvido pela página anterior (null na primeira página)
      */
-    public List<MatriculaDTO> listarAtivas() {
+    @Transactional(readOnly = true)
+    public PaginaDTO<MatriculaDTO> listarAtivas(String cursor, Integer limite) {
         log.info("Listando matrículas ativas");
-        return matriculaRepository.findByStatusOrderByDataMatriculaDesc(Matricula.Status.ATIVA)
-                .stream()
-                .map(this::converterParaDTO)
+        CursorPaginacao posicao = CursorPaginacao.decodificar(cursor);
+        int tamanho = CursorPaginacao.limitar(limite);
+        PageRequest pagina = PageRequest.of(0, tamanho + 1);
+
+        List<MatriculaResumo> matriculas = posicao == null
+                ? matriculaRepository.findPaginadas(Matricula.Status.ATIVA, pagina)
+                : matriculaRepository.findPaginadasApos(Matricula.Status.ATIVA, posicao.getChaveDataHora(),
+                        posicao.getId(), pagina);
+
+        return CursorPaginacao.montarPagina(matriculas, tamanho, this::converterResumoParaDTO,
+                matricula -> CursorPaginacao.codificar(matricula.getDataMatricula(), matricula.getId()));
+    }
+
+    /**
+     * Matrículas alteradas após a posição (dataAtualizacao, id) e antes de ate, em ordem
+     * Usado pelo feed de alterações (até limite linhas)
+     */
+    public List<MatriculaDTO> listarAlteradasApos(LocalDateTime data, Integer id, LocalDateTime ate, int limite) {
+        return matriculaRepository.findAlteradasApos(data, id, ate, PageRequest.of(0, limite)).stream()
+                .map(this::converterResumoParaDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Exporta as matrículas direto do banco para a saída, um registro por vez
+     * A consulta é lida em streaming e cada entidade é desanexada após ser escrita,
+     * de modo que o consumo de memória não depende da quantidade de matrículas
+     * @param status Filtro opcional (null exporta todas)
+     * @return Quantidade de matrículas exportadas
+     */
+    @Transactional(readOnly = true)
+    public long exportar(OutputStream saida, EscritorExportacao.Formato formato, Matricula.Status status)
+            throws IOException {
+        log.info("Exportando matrículas em {} (status: {})", formato, status);
+
+        EscritorExportacao<MatriculaDTO> escritor =
+                new EscritorExportacao<>(saida, formato, objectMapper, COLUNAS_EXPORTACAO);
+
+        try (Stream<Matricula> matriculas = status == null
+                ? matriculaRepository.streamTodas()
+                : matriculaRepository.streamPorStatus(status)) {
+            Iterator<Matricula> iterador = matriculas.iterator();
+            while (iterador.hasNext()) {
+                Matricula matricula = iterador.next();
+                escritor.escrever(converterParaDTO(matricula));
+                entityManager.detach(matricula);
+                entityManager.detach(matricula.getAluno());
+            }
+        }
+
+        escritor.finalizar();
+        log.info("{} matrículas exportadas", escritor.getRegistros());
+        return escritor.getRegistros();
+    }
+
     /**
      * Lista matrículas de uma turma
      */
+    @Transactional(readOnly = true)
     public List<MatriculaDTO> listarPorTurma(Integer turmaId) {
         log.info("Listando matrículas da turma: {}", turmaId);
-        return matriculaRepository.findByTurmaIdAndStatusOrderByDataMatricula(turmaId, Matricula.Status.ATIVA)
+        return matriculaRepository.findResumosPorTurma(turmaId, Matricula.Status.ATIVA)
                 .stream()
-                .map(this::converterParaDTO)
+                .map(this::converterResumoParaDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Busca uma matrícula por ID
+     */
+    @Transactional(readOnly = true)
+    public MatriculaDTO buscarPorId(Integer id) {
+        log.info("Buscando matrícula com ID: {}", id);
+        return matriculaRepository.findResumoById(id)
+                .map(this::converterResumoParaDTO)
+                .orElseThrow(() -> new RuntimeException("Matrícula não encontrada"));
+    }
+
+    /**
+     * ID da matrícula ativa do aluno na turma gravada a partir de desde
+     * Lida do primário: reconhece, em uma nova entrega de uma solicitação assíncrona, a
+     * matrícula que já foi gravada antes de uma queda (a réplica pode ainda não tê-la)
+     */
+    public Optional<Integer> buscarAtivaRegistradaDesde(Integer alunoId, Integer turmaId, LocalDateTime desde) {
+        return RoteamentoDataSource.noPrimario(() -> matriculaRepository
+                .findByAlunoIdAndTurmaIdAndStatusAndDataMatriculaGreaterThanEqual(
+                        alunoId, turmaId, Matricula.Status.ATIVA, desde)
+                .map(Matricula::getId));
+    }
+
+    /**
+     * Versões (COUNT/MAX da data de atualização) para GET condicional, sem carregar as matrículas
+     */
+    @Transactional(readOnly = true)
+    public VersaoRecurso obterVersao(Integer id) {
+        return matriculaRepository.findVersaoById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public VersaoRecurso obterVersaoAtivas() {
+        return matriculaRepository.findVersaoPorStatus(Matricula.Status.ATIVA);
+    }
+
+    @Transactional(readOnly = true)
+    public VersaoRecurso obterVersaoPorTurma(Integer turmaId) {
+        return matriculaRepository.findVersaoPorTurma(turmaId, Matricula.Status.ATIVA);
+    }
+
     /**
      * Registra uma nova matrícula
-     * Adiciona à fila do Redis para processamento assíncrono
+     * O evento para a fila do Redis é gravado no outbox na mesma transação
+     * A transação é repetida se a ocupação da turma for alterada concorrentemente
      */
-    @Transactional
     public MatriculaDTO registrarMatricula(MatriculaDTO matriculaDTO) {
+        return transacaoOtimista.executar(() -> registrarMatriculaNaTransacao(matriculaDTO));
+    }
+
+    private MatriculaDTO registrarMatriculaNaTransacao(MatriculaDTO matriculaDTO) {
         log.info("Registrando matrícula para aluno: {}", matriculaDTO.getAlunoId());
 
         // Validar aluno
@@ -78,27 +223,66 @@ public class MatriculaService {
             throw new RuntimeException("Aluno já possui matrícula ativa nesta turma");
         }
 
-        // Verificar capacidade da turma
-        long ocupacao = matriculaRepository.countByTurmaIdAndStatus(matriculaDTO.getTurmaId(), Matricula.Status.ATIVA);
-        if (ocupacao >= turma.getCapacidade()) {
-            throw new RuntimeException("Turma sem vagas disponíveis");
+        // Reservar vaga na turma (devolvida automaticamente em caso de rollback)
+        vagaService.reservarVaga(turma);
+
+        return salvarMatricula(aluno, turma, matriculaDTO.getTurno());
+    }
+
+    /**
+     * Registra a matrícula de um aluno promovido da lista de espera
+     * A vaga já foi transferida ao aluno pelo VagaService; conflitos de versão são repetidos
+     * sem devolver a vaga, que continua pertencendo ao aluno. O destino da vaga quando a
+     * matrícula não é registrada fica a cargo do ListaEsperaService.
+     * @return Matrícula registrada, ou vazio se o aluno não pode ser matriculado na turma
+     *         (removido ou com matrícula já registrada)
+     * @throws TurmaSemVagasException se a turma não tinha a vaga transferida
+     */
+    public Optional<MatriculaDTO> registrarMatriculaPromovida(Integer alunoId, Integer turmaId) {
+        log.info("Registrando matrícula promovida da lista de espera: aluno {}, turma {}", alunoId, turmaId);
+        return transacaoOtimista.executar(() -> registrarMatriculaPromovidaNaTransacao(alunoId, turmaId));
+    }
+
+    private Optional<MatriculaDTO> registrarMatriculaPromovidaNaTransacao(Integer alunoId, Integer turmaId) {
+        Turma turma = turmaRepository.findById(turmaId)
+                .orElseThrow(() -> new RuntimeException("Turma não encontrada"));
+
+        Optional<Aluno> aluno = alunoRepository.findById(alunoId);
+        if (aluno.isEmpty() || matriculaRepository.existsByAlunoIdAndTurmaId(alunoId, turmaId)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(salvarMatricula(aluno.get(), turma, turma.getTurno().name()));
+    }
+
+    /**
+     * Grava a matrícula com a vaga já reservada e atualiza o aluno e a ocupação da turma
+     */
+    private MatriculaDTO salvarMatricula(Aluno aluno, Turma turma, String turno) {
+        // A linha da turma (protegida por @Version) decide: o contador pode ter admitido demais
+        if (turma.vagasLivres() == 0) {
+            vagaService.descartarContadorDivergente(turma.getId());
+            throw new TurmaSemVagasException();
         }
 
         // Criar matrícula
         Matricula matricula = new Matricula();
         matricula.setAluno(aluno);
         matricula.setTurma(turma);
-        matricula.setTurno(Matricula.Turno.valueOf(matriculaDTO.getTurno()));
+        matricula.setTurno(Matricula.Turno.valueOf(turno));
         matricula.setStatus(Matricula.Status.ATIVA);
 
         Matricula matriculaSalva = matriculaRepository.save(matricula);
 
+        // Atualizar ocupação da turma (protegida por @Version)
+        turma.setOcupacao(turma.getOcupacao() + 1);
+
         // Atualizar aluno com turma
         aluno.setTurma(turma);
-        aluno.setTurno(Aluno.Turno.valueOf(matriculaDTO.getTurno()));
+        aluno.setTurno(Aluno.Turno.valueOf(turno));
         alunoRepository.save(aluno);
 
-        // Adicionar à fila do Redis
+        // Registrar evento para a fila do Redis (publicado após o commit)
         adicionarFilaMatricula(matriculaSalva);
 
         log.info("Matrícula registrada com sucesso: ID {}", matriculaSalva.getId());
@@ -106,12 +290,113 @@ public class MatriculaService {
         return converterParaDTO(matriculaSalva);
     }
 
+    /**
+     * Registra matrículas em lote
+     * Carrega alunos e turmas com consultas IN, reserva as vagas de cada turma uma única vez
+     * e grava as matrículas em lotes JDBC. Itens inválidos não interrompem o lote.
+     * @return Um resultado por item, na mesma ordem da requisição
+     */
+    public List<MatriculaLoteResultadoDTO> registrarLote(List<MatriculaDTO> itens) {
+        return transacaoOtimista.executar(() -> registrarLoteNaTransacao(itens));
+    }
+
+    private List<MatriculaLoteResultadoDTO> registrarLoteNaTransacao(List<MatriculaDTO> itens) {
+        log.info("Registrando lote de {} matrículas", itens.size());
+
+        Set<Integer> alunoIds = itens.stream().map(MatriculaDTO::getAlunoId).collect(Collectors.toSet());
+        Set<Integer> turmaIds = itens.stream().map(MatriculaDTO::getTurmaId).collect(Collectors.toSet());
+
+        Map<Integer, Aluno> alunos = alunoRepository.findAllByIdComTurma(alunoIds).stream()
+                .collect(Collectors.toMap(Aluno::getId, Function.identity()));
+        Map<Integer, Turma> turmas = turmaRepository.findAllById(turmaIds).stream()
+                .collect(Collectors.toMap(Turma::getId, Function.identity()));
+
+        Map<String, Matricula.Status> existentes = new HashMap<>();
+        for (MatriculaExistente existente : matriculaRepository.findExistentes(alunoIds, turmaIds)) {
+            existentes.put(chaveAlunoTurma(existente.getAlunoId(), existente.getTurmaId()), existente.getStatus());
+        }
+
+        MatriculaLoteResultadoDTO[] resultados = new MatriculaLoteResultadoDTO[itens.size()];
+        Map<Integer, List<Integer>> indicesPorTurma = new LinkedHashMap<>();
+        Set<String> paresNoLote = new HashSet<>();
+
+        // Validar itens sem acessar o banco novamente
+        for (int i = 0; i < itens.size(); i++) {
+            MatriculaDTO item = itens.get(i);
+            String erro = validarItemLote(item, alunos, turmas, existentes, paresNoLote);
+            if (erro != null) {
+                resultados[i] = resultadoLote(i, item, false, null, erro);
+            } else {
+                indicesPorTurma.computeIfAbsent(item.getTurmaId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        // Reservar as vagas de cada turma em uma única operação
+        List<Matricula> novas = new ArrayList<>();
+        List<Integer> indicesNovas = new ArrayList<>();
+        for (Map.Entry<Integer, List<Integer>> entrada : indicesPorTurma.entrySet()) {
+            Turma turma = turmas.get(entrada.getKey());
+            List<Integer> indices = entrada.getValue();
+            int reservadas = vagaService.reservarVagas(turma, indices.size());
+            if (reservadas > turma.vagasLivres()) {
+                // Contador admitiu além da ocupação da linha: o excedente é recusado
+                vagaService.descartarContadorDivergente(turma.getId());
+                reservadas = turma.vagasLivres();
+            }
+            turma.setOcupacao(turma.getOcupacao() + reservadas);
+
+            for (int j = 0; j < indices.size(); j++) {
+                int indice = indices.get(j);
+                MatriculaDTO item = itens.get(indice);
+
+                if (j >= reservadas) {
+                    resultados[indice] = resultadoLote(indice, item, false, null, "Turma sem vagas disponíveis");
+                    continue;
+                }
+
+                Aluno aluno = alunos.get(item.getAlunoId());
+
+                Matricula matricula = new Matricula();
+                matricula.setAluno(aluno);
+                matricula.setTurma(turma);
+                matricula.setTurno(Matricula.Turno.valueOf(item.getTurno()));
+                matricula.setStatus(Matricula.Status.ATIVA);
+                novas.add(matricula);
+                indicesNovas.add(indice);
+
+                // Aluno já está no contexto de persistência; o UPDATE sai no flush, também em lote
+                aluno.setTurma(turma);
+                aluno.setTurno(Aluno.Turno.valueOf(item.getTurno()));
+            }
+        }
+
+        matriculaRepository.saveAll(novas);
+
+        for (int k = 0; k < novas.size(); k++) {
+            int indice = indicesNovas.get(k);
+            resultados[indice] = resultadoLote(indice, itens.get(indice), true, novas.get(k).getId(),
+                    "Matrícula registrada com sucesso");
+        }
+
+        adicionarFilaMatriculas(novas);
+
+        log.info("Lote processado: {} de {} matrículas registradas", novas.size(), itens.size());
+
+        return Arrays.asList(resultados);
+    }
+
     /**
      * Cancela uma matrícula
-     * Adiciona à fila do Redis para processamento assíncrono
+     * O evento para a fila do Redis é gravado no outbox na mesma transação
      */
-    @Transactional
     public void cancelarMatricula(Integer matriculaId, String motivo) {
+        transacaoOtimista.executar(() -> {
+            cancelarMatriculaNaTransacao(matriculaId, motivo);
+            return null;
+        });
+    }
+
+    private void cancelarMatriculaNaTransacao(Integer matriculaId, String motivo) {
         log.info("Cancelando matrícula: {}", matriculaId);
 
         Matricula matricula = matriculaRepository.findById(matriculaId)
@@ -133,44 +418,40 @@ public class MatriculaService {
         aluno.setTurma(null);
         alunoRepository.save(aluno);
 
-        // Adicionar à fila do Redis
+        // Atualizar ocupação da turma (protegida por @Version)
+        Turma turma = matricula.getTurma();
+        turma.setOcupacao(Math.max(0, turma.getOcupacao() - 1));
+
+        // Devolver a vaga após o commit (transferida ao primeiro da lista de espera, se houver)
+        vagaService.liberarVagaAposCommit(turma);
+
+        // Registrar evento para a fila do Redis (publicado após o commit)
         adicionarFilaCancelamento(matricula);
 
         log.info("Matrícula cancelada com sucesso: ID {}", matriculaId);
     }
 
     /**
-     * Adiciona uma matrícula à fila do Redis
+     * Registra o evento de matrícula no outbox (publicado na fila do Redis após o commit)
      */
     private void adicionarFilaMatricula(Matricula matricula) {
-        try {
-            String mensagem = String.format("Matrícula ID: %d, Aluno: %s, Turma: %s",
-                    matricula.getId(),
-                    matricula.getAluno().getNome(),
-                    matricula.getTurma().getNome());
-
-            redisTemplate.opsForList().rightPush(FILA_MATRICULAS_KEY, mensagem);
-            log.info("Matrícula adicionada à fila Redis: {}", mensagem);
-        } catch (Exception e) {
-            log.error("Erro ao adicionar matrícula à fila Redis", e);
-        }
+        outboxService.registrar(FILA_MATRICULAS_KEY, MatriculaCriada.de(matricula));
+    }
+
+    /**
+     * Registra os eventos de várias matrículas no outbox
+     */
+    private void adicionarFilaMatriculas(List<Matricula> matriculas) {
+        outboxService.registrarTodos(FILA_MATRICULAS_KEY, matriculas.stream()
+                .map(MatriculaCriada::de)
+                .collect(Collectors.toList()));
     }
 
     /**
-     * Adiciona um cancelamento à fila do Redis
+     * Registra o evento de cancelamento no outbox (publicado na fila do Redis após o commit)
      */
     private void adicionarFilaCancelamento(Matricula matricula) {
-        try {
-            String mensagem = String.format("Cancelamento ID: %d, Aluno: %s, Motivo: %s",
-                    matricula.getId(),
-                    matricula.getAluno().getNome(),
-                    matricula.getMotivoCancelamento());
-
-            redisTemplate.opsForList().rightPush(FILA_CANCELAMENTOS_KEY, mensagem);
-            log.info("Cancelamento adicionado à fila Redis: {}", mensagem);
-        } catch (Exception e) {
-            log.error("Erro ao adicionar cancelamento à fila Redis", e);
-        }
+        outboxService.registrar(FILA_CANCELAMENTOS_KEY, MatriculaCancelada.de(matricula));
     }
 
     /**
@@ -189,6 +470,65 @@ public class MatriculaService {
         return tamanho != null ? tamanho : 0;
     }
 
+    /**
+     * Valida um item da matrícula em lote
+     * @return Mensagem de erro ou null se o item é válido
+     */
+    private String validarItemLote(MatriculaDTO item, Map<Integer, Aluno> alunos, Map<Integer, Turma> turmas,
+                                   Map<String, Matricula.Status> existentes, Set<String> paresNoLote) {
+        if (!alunos.containsKey(item.getAlunoId())) {
+            return "Aluno não encontrado";
+        }
+
+        if (!turmas.containsKey(item.getTurmaId())) {
+            return "Turma não encontrada";
+        }
+
+        try {
+            Matricula.Turno.valueOf(item.getTurno());
+        } catch (IllegalArgumentException e) {
+            return "Turno inválido";
+        }
+
+        String chave = chaveAlunoTurma(item.getAlunoId(), item.getTurmaId());
+        Matricula.Status statusExistente = existentes.get(chave);
+        if (statusExistente == Matricula.Status.ATIVA) {
+            return "Aluno já possui matrícula ativa nesta turma";
+        }
+        if (statusExistente != null) {
+            return "Aluno já possui matrícula registrada nesta turma";
+        }
+
+        if (!paresNoLote.add(chave)) {
+            return "Matrícula duplicada no lote";
+        }
+
+        return null;
+    }
+
+    private String chaveAlunoTurma(Integer alunoId, Integer turmaId) {
+        return alunoId + ":" + turmaId;
+    }
+
+    private MatriculaLoteResultadoDTO resultadoLote(int indice, MatriculaDTO item, boolean sucesso,
+                                                    Integer matriculaId, String mensagem) {
+        return MatriculaLoteResultadoDTO.builder()
+                .indice(indice)
+                .alunoId(item.getAlunoId())
+                .turmaId(item.getTurmaId())
+                .sucesso(sucesso)
+                .matriculaId(matriculaId)
+                .mensagem(mensagem)
+                .build();
+    }
+
+    /**
+     * Obtém a quantidade de eventos ainda não publicados no Redis
+     */
+    public long obterTamanhoOutbox() {
+        return outboxEventoRepository.count();
+    }
+
     /**
      * Converte uma Matricula para MatriculaDTO
      */
@@ -209,4 +549,25 @@ public class MatriculaService {
                 .dataAtualizacao(matricula.getDataAtualizacao())
                 .build();
     }
+
+    /**
+     * Converte a projeção das listagens para MatriculaDTO
+     */
+    private MatriculaDTO converterResumoParaDTO(MatriculaResumo matricula) {
+        return MatriculaDTO.builder()
+                .id(matricula.getId())
+                .alunoId(matricula.getAlunoId())
+                .alunoNome(matricula.getAlunoNome())
+                .alunoCpf(matricula.getAlunoCpf())
+                .turmaId(matricula.getTurmaId())
+                .turmaNome(matricula.getTurmaNome())
+                .turmaSerie(matricula.getTurmaSerie())
+                .turno(matricula.getTurno().toString())
+                .status(matricula.getStatus().toString())
+                .dataMatricula(matricula.getDataMatricula())
+                .dataCancelamento(matricula.getDataCancelamento())
+                .motivoCancelamento(matricula.getMotivoCancelamento())
+                .dataAtualizacao(matricula.getDataAtualizacao())
+                .build();
+    }
 }
@@ -0,0 +1,56 @@
+package com.matricula.service;
+
+import com.matricula.fila.evento.EventoCodec;
+import com.matricula.fila.evento.EventoMatricula;
+import com.matricula.model.OutboxEvento;
+import com.matricula.repository.OutboxEventoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Serviço: OutboxService
+ * Registra eventos de matrícula na tabela outbox_eventos dentro da transação corrente
+ * A publicação no Redis é feita depois do commit pelo OutboxRelay
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxEventoRepository outboxEventoRepository;
+
+    /**
+     * Registra um evento para publicação na fila informada
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(String fila, EventoMatricula evento) {
+        outboxEventoRepository.save(criar(fila, evento));
+        log.debug("Evento registrado no outbox para {}: {}", fila, evento);
+    }
+
+    /**
+     * Registra vários eventos para publicação na fila informada (INSERTs em lote)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarTodos(String fila, List<? extends EventoMatricula> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        outboxEventoRepository.saveAll(eventos.stream()
+                .map(evento -> criar(fila, evento))
+                .collect(Collectors.toList()));
+        log.debug("{} eventos registrados no outbox para {}", eventos.size(), fila);
+    }
+
+    private OutboxEvento criar(String fila, EventoMatricula evento) {
+        OutboxEvento outboxEvento = new OutboxEvento();
+        outboxEvento.setFila(fila);
+        outboxEvento.setPayload(EventoCodec.codificar(evento));
+        return outboxEvento;
+    }
+}
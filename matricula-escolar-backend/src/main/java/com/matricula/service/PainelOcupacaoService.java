@@ -0,0 +1,382 @@
+package com.matricula.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matricula.dto.OcupacaoGrupoDTO;
+import com.matricula.dto.OcupacaoTurmaDTO;
+import com.matricula.dto.PainelOcupacaoDTO;
+import com.matricula.model.Matricula;
+import com.matricula.model.Turma;
+import com.matricula.repository.TurmaRepository;
+import com.matricula.repository.TurmaRepository.OcupacaoDetalhada;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serviço: PainelOcupacaoService
+ * Responsável pelo painel de ocupação das turmas (por turma, por série/turno e total).
+ * A ocupação vem de um único GROUP BY de matrículas ativas por turma, mantido em memória e
+ * relido do banco a cada dashboard.ocupacao.ttl-ms por uma única thread (as demais continuam
+ * servindo a leitura anterior). Entre as releituras, as matrículas criadas e canceladas nesta
+ * instância ajustam os contadores após o commit; alterações de turma forçam a releitura.
+ * O JSON é serializado uma vez por mudança e servido pronto a todos os leitores.
+ */
+@Service
+@Slf4j
+public class PainelOcupacaoService implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    /**
+     * Propriedades da turma exibidas no painel: alterá-las exige nova leitura
+     */
+    private static final Set<String> PROPRIEDADES_DO_PAINEL = Set.of("nome", "serie", "turno", "capacidade", "ativo");
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final TurmaRepository turmaRepository;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock recarga = new ReentrantLock();
+    private final AtomicLong versao = new AtomicLong();
+
+    private volatile Estado estado;
+    private volatile Serializado serializado;
+    private volatile boolean desatualizado;
+
+    @Value("${dashboard.ocupacao.ttl-ms:5000}")
+    private long ttlMs;
+
+    @Value("${dashboard.ocupacao.gzip-tamanho-minimo:2048}")
+    private int gzipTamanhoMinimo;
+
+    public PainelOcupacaoService(EntityManagerFactory entityManagerFactory,
+                                 TurmaRepository turmaRepository,
+                                 ObjectMapper objectMapper) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.turmaRepository = turmaRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Registra os listeners pós-commit no Hibernate
+     */
+    @PostConstruct
+    public void registrar() {
+        EventListenerRegistry registro = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registro.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * Painel de ocupação já serializado
+     */
+    public JsonSerializado obterPainel() {
+        atualizarSeNecessario();
+
+        long versaoAtual = versao.get();
+        Serializado atual = serializado;
+        if (atual != null && atual.versao == versaoAtual) {
+            return atual.json;
+        }
+
+        synchronized (this) {
+            atual = serializado;
+            if (atual == null || atual.versao != versaoAtual) {
+                atual = new Serializado(versaoAtual, serializar(montar(estado)));
+                serializado = atual;
+            }
+            return atual.json;
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Matricula matricula) {
+            if (matricula.getStatus() == Matricula.Status.ATIVA) {
+                ajustar(matricula.getTurma().getId(), 1);
+            }
+        } else if (event.getEntity() instanceof Turma) {
+            desatualizado = true;
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Matricula matricula) {
+            ajustarMatriculaAlterada(event, matricula);
+        } else if (event.getEntity() instanceof Turma && alteraPainel(event)) {
+            desatualizado = true;
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        desatualizado = true;
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> classe = persister.getMappedClass();
+        return classe == Matricula.class || classe == Turma.class;
+    }
+
+    /**
+     * Relê o banco se não houver leitura, se ela expirou ou se uma turma mudou
+     * Só a primeira leitura bloqueia; depois, quem não conseguir o lock serve a leitura atual
+     */
+    private void atualizarSeNecessario() {
+        if (!precisaRecarregar(estado)) {
+            return;
+        }
+
+        if (estado == null) {
+            recarga.lock();
+        } else if (!recarga.tryLock()) {
+            return;
+        }
+
+        try {
+            if (precisaRecarregar(estado)) {
+                recarregar();
+            }
+        } finally {
+            recarga.unlock();
+        }
+    }
+
+    private boolean precisaRecarregar(Estado atual) {
+        return atual == null || desatualizado || System.currentTimeMillis() - atual.carregadoEm >= ttlMs;
+    }
+
+    private void recarregar() {
+        desatualizado = false;
+        long inicio = System.currentTimeMillis();
+
+        // Consulta fora de transação: lida do primário, coerente com os ajustes locais
+        List<OcupacaoDetalhada> linhas;
+        try {
+            linhas = turmaRepository.findOcupacaoAtivas(Matricula.Status.ATIVA);
+        } catch (RuntimeException e) {
+            desatualizado = true;
+            throw e;
+        }
+
+        Map<Integer, LinhaTurma> turmas = new LinkedHashMap<>();
+        for (OcupacaoDetalhada linha : linhas) {
+            turmas.put(linha.getTurmaId(), new LinhaTurma(linha));
+        }
+        estado = new Estado(turmas, inicio, LocalDateTime.now());
+        versao.incrementAndGet();
+
+        log.debug("Painel de ocupação relido: {} turmas em {} ms", turmas.size(), System.currentTimeMillis() - inicio);
+    }
+
+    private void ajustarMatriculaAlterada(PostUpdateEvent event, Matricula matricula) {
+        Object[] anterior = event.getOldState();
+        if (anterior == null) {
+            // Entidade desanexada (merge): sem o estado anterior não há como saber a mudança
+            desatualizado = true;
+            return;
+        }
+
+        EntityPersister persister = event.getPersister();
+        Object turmaAnterior = anterior[persister.getPropertyIndex("turma")];
+        if (turmaAnterior instanceof Turma turma && !Objects.equals(turma.getId(), matricula.getTurma().getId())) {
+            desatualizado = true;
+            return;
+        }
+
+        boolean estavaAtiva = anterior[persister.getPropertyIndex("status")] == Matricula.Status.ATIVA;
+        boolean estaAtiva = matricula.getStatus() == Matricula.Status.ATIVA;
+        if (estavaAtiva != estaAtiva) {
+            ajustar(matricula.getTurma().getId(), estaAtiva ? 1 : -1);
+        }
+    }
+
+    private void ajustar(Integer turmaId, int quantidade) {
+        Estado atual = estado;
+        if (atual == null) {
+            return;
+        }
+
+        LinhaTurma linha = atual.turmas.get(turmaId);
+        if (linha == null) {
+            // Turma criada ou reativada depois da última leitura
+            desatualizado = true;
+            return;
+        }
+        linha.matriculasAtivas.addAndGet(quantidade);
+        versao.incrementAndGet();
+    }
+
+    private boolean alteraPainel(PostUpdateEvent event) {
+        int[] alteradas = event.getDirtyProperties();
+        if (alteradas == null) {
+            return true;
+        }
+
+        String[] propriedades = event.getPersister().getPropertyNames();
+        for (int indice : alteradas) {
+            if (PROPRIEDADES_DO_PAINEL.contains(propriedades[indice])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Monta o painel a partir da leitura atual (turmas na ordem série, turno, nome)
+     */
+    private PainelOcupacaoDTO montar(Estado atual) {
+        List<OcupacaoTurmaDTO> turmas = new ArrayList<>(atual.turmas.size());
+        Map<String, Acumulador> grupos = new LinkedHashMap<>();
+        Acumulador total = new Acumulador(null, null);
+
+        for (LinhaTurma linha : atual.turmas.values()) {
+            long ativas = linha.matriculasAtivas.get();
+            turmas.add(OcupacaoTurmaDTO.builder()
+                    .turmaId(linha.turmaId)
+                    .nome(linha.nome)
+                    .serie(linha.serie)
+                    .turno(linha.turno)
+                    .capacidade(linha.capacidade)
+                    .matriculasAtivas(ativas)
+                    .vagasLivres(Math.max(0, linha.capacidade - ativas))
+                    .taxaOcupacao(taxa(ativas, linha.capacidade))
+                    .build());
+
+            grupos.computeIfAbsent(linha.serie + "|" + linha.turno, chave -> new Acumulador(linha.serie, linha.turno))
+                    .somar(linha.capacidade, ativas);
+            total.somar(linha.capacidade, ativas);
+        }
+
+        return PainelOcupacaoDTO.builder()
+                .geradoEm(atual.geradoEm)
+                .total(total.paraDTO())
+                .porSerieTurno(grupos.values().stream().map(Acumulador::paraDTO).toList())
+                .turmas(turmas)
+                .build();
+    }
+
+    private JsonSerializado serializar(PainelOcupacaoDTO painel) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(painel);
+            return JsonSerializado.de(json, json.length >= gzipTamanhoMinimo, null);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erro ao serializar o painel de ocupação", e);
+        }
+    }
+
+    private static double taxa(long ativas, long capacidade) {
+        return capacidade <= 0 ? 0.0 : Math.round(ativas * 10000.0 / capacidade) / 10000.0;
+    }
+
+    /**
+     * Leitura do banco: turmas ativas com o contador de matrículas ajustável
+     */
+    private static class Estado {
+        private final Map<Integer, LinhaTurma> turmas;
+        private final long carregadoEm;
+        private final LocalDateTime geradoEm;
+
+        Estado(Map<Integer, LinhaTurma> turmas, long carregadoEm, LocalDateTime geradoEm) {
+            this.turmas = turmas;
+            this.carregadoEm = carregadoEm;
+            this.geradoEm = geradoEm;
+        }
+    }
+
+    private static class LinhaTurma {
+        private final Integer turmaId;
+        private final String nome;
+        private final String serie;
+        private final String turno;
+        private final int capacidade;
+        private final AtomicLong matriculasAtivas;
+
+        LinhaTurma(OcupacaoDetalhada linha) {
+            this.turmaId = linha.getTurmaId();
+            this.nome = linha.getNome();
+            this.serie = linha.getSerie();
+            this.turno = linha.getTurno().toString();
+            this.capacidade = linha.getCapacidade();
+            this.matriculasAtivas = new AtomicLong(linha.getMatriculasAtivas());
+        }
+    }
+
+    private static class Acumulador {
+        private final String serie;
+        private final String turno;
+        private int turmas;
+        private long capacidade;
+        private long matriculasAtivas;
+        private long vagasLivres;
+
+        Acumulador(String serie, String turno) {
+            this.serie = serie;
+            this.turno = turno;
+        }
+
+        void somar(int capacidadeTurma, long ativas) {
+            turmas++;
+            capacidade += capacidadeTurma;
+            matriculasAtivas += ativas;
+            vagasLivres += Math.max(0, capacidadeTurma - ativas);
+        }
+
+        OcupacaoGrupoDTO paraDTO() {
+            return OcupacaoGrupoDTO.builder()
+                    .serie(serie)
+                    .turno(turno)
+                    .turmas(turmas)
+                    .capacidade(capacidade)
+                    .matriculasAtivas(matriculasAtivas)
+                    .vagasLivres(vagasLivres)
+                    .taxaOcupacao(taxa(matriculasAtivas, capacidade))
+                    .build();
+        }
+    }
+
+    private static class Serializado {
+        private final long versao;
+        private final JsonSerializado json;
+
+        Serializado(long versao, JsonSerializado json) {
+            this.versao = versao;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.matricula.service;
+
+import com.matricula.config.LeituraAposEscrita;
+import com.matricula.config.RoteamentoDataSource;
+import com.matricula.dto.MatriculaDTO;
+import com.matricula.dto.MatriculaLoteResultadoDTO;
+import com.matricula.repository.MatriculaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Executor particionado de matrículas
+ * Cada turma é atendida sempre pela mesma partição (thread única), que processa em ordem
+ * as matrículas e cancelamentos da turma. Matrículas consecutivas da mesma partição são
+ * gravadas juntas via registrarLote (uma transação, INSERTs em lote), eliminando a disputa
+ * por locks entre requisições da mesma turma; turmas de partições diferentes seguem em paralelo.
+ * A contagem de vagas continua no VagaService, que é compartilhado entre instâncias.
+ * Um comando cujo prazo (timeout-ms) se esgota ainda na fila é descartado e não será executado;
+ * se a partição já o iniciou, quem chamou aguarda o resultado, que é sempre o que ocorreu.
+ * As threads das partições não têm o usuário da requisição: quem chamou marca a própria escrita
+ * (leitura após escrita) e relê a matrícula gravada no primário.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ParticaoMatriculaExecutor {
+
+    private final MatriculaService matriculaService;
+    private final MatriculaRepository matriculaRepository;
+    private final LeituraAposEscrita leituraAposEscrita;
+
+    @Value("${matricula.particoes.enabled:false}")
+    private boolean habilitado;
+
+    @Value("${matricula.particoes.quantidade:0}")
+    private int quantidade;
+
+    @Value("${matricula.particoes.capacidade-fila:5000}")
+    private int capacidadeFila;
+
+    @Value("${matricula.particoes.lote-maximo:200}")
+    private int loteMaximo;
+
+    @Value("${matricula.particoes.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private Particao[] particoes;
+    private volatile boolean ativo;
+
+    @PostConstruct
+    public void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+
+        int total = quantidade > 0 ? quantidade : Runtime.getRuntime().availableProcessors();
+        particoes = new Particao[total];
+        ativo = true;
+        for (int i = 0; i < total; i++) {
+            particoes[i] = new Particao(i);
+            particoes[i].thread.start();
+        }
+
+        log.info("Executor particionado de matrículas iniciado com {} partições", total);
+    }
+
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        ativo = false;
+        if (particoes != null) {
+            for (Particao particao : particoes) {
+                particao.thread.join(timeoutMs);
+            }
+        }
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Registra a matrícula pela partição da turma e aguarda o resultado
+     * @throws RuntimeException com a mensagem de negócio se a matrícula não foi registrada
+     */
+    public MatriculaDTO registrar(MatriculaDTO matriculaDTO) {
+        Comando comando = new Comando(matriculaDTO, null, null);
+        submeter(matriculaDTO.getTurmaId(), comando);
+
+        MatriculaLoteResultadoDTO resultado = (MatriculaLoteResultadoDTO) aguardar(comando);
+        if (!resultado.isSucesso()) {
+            throw new RuntimeException(resultado.getMensagem());
+        }
+
+        // Gravada por outra thread: a réplica pode ainda não ter a matrícula
+        leituraAposEscrita.registrarEscritaConcluida();
+        return RoteamentoDataSource.noPrimario(() -> matriculaService.buscarPorId(resultado.getMatriculaId()));
+    }
+
+    /**
+     * Cancela a matrícula pela partição da turma e aguarda a conclusão
+     */
+    public void cancelar(Integer matriculaId, String motivo) {
+        Integer turmaId = matriculaRepository.findTurmaIdById(matriculaId)
+                .orElseThrow(() -> new RuntimeException("Matrícula não encontrada"));
+
+        Comando comando = new Comando(null, matriculaId, motivo);
+        submeter(turmaId, comando);
+        aguardar(comando);
+        leituraAposEscrita.registrarEscritaConcluida();
+    }
+
+    private void submeter(Integer turmaId, Comando comando) {
+        Particao particao = particoes[Math.floorMod(turmaId.hashCode(), particoes.length)];
+        if (!particao.fila.offer(comando)) {
+            throw new RuntimeException("Serviço de matrículas sobrecarregado, tente novamente");
+        }
+    }
+
+    private Object aguardar(Comando comando) {
+        try {
+            try {
+                return comando.resultado.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (comando.iniciar()) {
+                    // Ainda na fila: a partição o descarta
+                    comando.resultado.cancel(false);
+                    throw new RuntimeException("Tempo esgotado aguardando o processamento da matrícula");
+                }
+                // Já em execução: o resultado informado precisa ser o que de fato ocorreu
+                return comando.resultado.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            throw causa instanceof RuntimeException runtime ? runtime : new RuntimeException(causa.getMessage(), causa);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Processamento da matrícula interrompido");
+        }
+    }
+
+    /**
+     * Matrícula (registro != null) ou cancelamento (matriculaId != null)
+     */
+    private static class Comando {
+        private final MatriculaDTO registro;
+        private final Integer matriculaId;
+        private final String motivo;
+        private final CompletableFuture<Object> resultado = new CompletableFuture<>();
+        private final AtomicBoolean iniciado = new AtomicBoolean();
+
+        Comando(MatriculaDTO registro, Integer matriculaId, String motivo) {
+            this.registro = registro;
+            this.matriculaId = matriculaId;
+            this.motivo = motivo;
+        }
+
+        /**
+         * Reserva o comando para a partição (execução) ou para quem chamou (desistência por
+         * timeout); só o primeiro consegue
+         */
+        boolean iniciar() {
+            return iniciado.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * Partição: fila limitada consumida por uma única thread
+     */
+    private class Particao implements Runnable {
+        private final BlockingQueue<Comando> fila = new ArrayBlockingQueue<>(capacidadeFila);
+        private final Thread thread;
+
+        Particao(int indice) {
+            thread = new Thread(this, "matricula-particao-" + indice);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Comando> comandos = new ArrayList<>();
+            while (ativo || !fila.isEmpty()) {
+                try {
+                    Comando primeiro = fila.poll(1, TimeUnit.SECONDS);
+                    if (primeiro == null) {
+                        continue;
+                    }
+                    comandos.add(primeiro);
+                    fila.drainTo(comandos, loteMaximo - 1);
+                    executar(comandos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    log.error("Erro inesperado na partição {}", thread.getName(), e);
+                    comandos.forEach(comando -> comando.resultado.completeExceptionally(e));
+                } finally {
+                    comandos.clear();
+                }
+            }
+        }
+
+        /**
+         * Executa os comandos em ordem, agrupando matrículas consecutivas em um único lote
+         * Comandos dos quais quem chamou já desistiu (timeout) são descartados
+         */
+        private void executar(List<Comando> comandos) {
+            List<Comando> registros = new ArrayList<>();
+            for (Comando comando : comandos) {
+                if (comando.resultado.isDone() || !comando.iniciar()) {
+                    continue;
+                }
+                if (comando.registro != null) {
+                    registros.add(comando);
+                    continue;
+                }
+                registrarLote(registros);
+                cancelar(comando);
+            }
+            registrarLote(registros);
+        }
+
+        private void registrarLote(List<Comando> registros) {
+            if (registros.isEmpty()) {
+                return;
+            }
+
+            try {
+                List<MatriculaLoteResultadoDTO> resultados = matriculaService.registrarLote(registros.stream()
+                        .map(comando -> comando.registro)
+                        .toList());
+                for (int i = 0; i < registros.size(); i++) {
+                    registros.get(i).resultado.complete(resultados.get(i));
+                }
+            } catch (Exception e) {
+                registros.forEach(comando -> comando.resultado.completeExceptionally(e));
+            } finally {
+                registros.clear();
+            }
+        }
+
+        private void cancelar(Comando comando) {
+            try {
+                matriculaService.cancelarMatricula(comando.matriculaId, comando.motivo);
+                comando.resultado.complete(Boolean.TRUE);
+            } catch (Exception e) {
+                comando.resultado.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.matricula.service;
+
+import com.matricula.model.Matricula;
+import com.matricula.model.Turma;
+import com.matricula.repository.MatriculaRepository;
+import com.matricula.repository.MatriculaRepository.OcupacaoTurma;
+import com.matricula.repository.TurmaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reconciliação da ocupação das turmas
+ * Percorre as turmas em blocos (paginação por ID) e compara turmas.ocupacao com o COUNT de
+ * matrículas ativas, que é a fonte autoritativa. Cada bloco é corrigido em uma transação curta;
+ * se uma matrícula concorrente alterar a turma, o @Version detecta o conflito e o bloco é
+ * recalculado.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReconciliadorOcupacao {
+
+    private final TurmaRepository turmaRepository;
+    private final MatriculaRepository matriculaRepository;
+    private final TransacaoOtimista transacaoOtimista;
+
+    @Value("${turma.ocupacao.reconciliacao.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${turma.ocupacao.reconciliacao.lote:100}")
+    private int tamanhoLote;
+
+    @Scheduled(initialDelayString = "${turma.ocupacao.reconciliacao.atraso-inicial-ms:60000}",
+            fixedDelayString = "${turma.ocupacao.reconciliacao.intervalo-ms:900000}")
+    public void reconciliar() {
+        if (!habilitado) {
+            return;
+        }
+
+        int corrigidas = 0;
+        Integer ultimoId = 0;
+        try {
+            List<Integer> ids;
+            do {
+                ids = turmaRepository.findIdsAposId(ultimoId, PageRequest.of(0, tamanhoLote));
+                if (ids.isEmpty()) {
+                    break;
+                }
+
+                List<Integer> bloco = ids;
+                corrigidas += transacaoOtimista.executar(() -> reconciliarBloco(bloco));
+                ultimoId = ids.get(ids.size() - 1);
+            } while (ids.size() == tamanhoLote);
+        } catch (Exception e) {
+            log.warn("Erro na reconciliação da ocupação das turmas após o ID {}", ultimoId, e);
+        }
+
+        if (corrigidas > 0) {
+            log.warn("Reconciliação corrigiu a ocupação de {} turma(s)", corrigidas);
+        }
+    }
+
+    private int reconciliarBloco(List<Integer> ids) {
+        Map<Integer, Long> totais = matriculaRepository.countPorTurma(ids, Matricula.Status.ATIVA).stream()
+                .collect(Collectors.toMap(OcupacaoTurma::getTurmaId, OcupacaoTurma::getTotal));
+
+        int corrigidas = 0;
+        for (Turma turma : turmaRepository.findAllById(ids)) {
+            int ocupacao = totais.getOrDefault(turma.getId(), 0L).intValue();
+            if (turma.getOcupacao() != ocupacao) {
+                log.info("Ocupação da turma {} corrigida de {} para {}", turma.getId(), turma.getOcupacao(), ocupacao);
+                turma.setOcupacao(ocupacao);
+                corrigidas++;
+            }
+        }
+
+        return corrigidas;
+    }
+}
@@ -0,0 +1,335 @@
+package com.matricula.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Serviço: RevogacaoTokenService
+ * Responsável pela revogação de tokens JWT antes do "exp": o logout revoga um token (pelo
+ * "jti") e o administrador revoga todos os tokens de um usuário (época: tokens com "iat" até
+ * ela deixam de valer). As revogações ficam no Redis; cada instância mantém um filtro de Bloom
+ * local com os jtis e usuários revogados, remontado a cada sincronizacao-ms e alimentado via
+ * pub/sub. O filtro JWT só consulta o Redis quando o filtro de Bloom responde "talvez
+ * revogado"; as respostas do Redis ficam em cache por consulta-ttl-ms.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RevogacaoTokenService implements MessageListener {
+
+    /**
+     * jti -> instante de expiração do token (ms); expirados são removidos na sincronização
+     */
+    private static final String CHAVE_TOKENS = "jwt:revogacao:tokens";
+
+    /**
+     * email -> época da revogação (segundos); removida quando todos os tokens anteriores expiraram
+     */
+    private static final String CHAVE_USUARIOS = "jwt:revogacao:usuarios";
+
+    private static final String TOKEN = "t:";
+    private static final String USUARIO = "u:";
+    private static final String SEPARADOR = ";";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final LongAdder verificacoes = new LongAdder();
+    private final LongAdder dispensadas = new LongAdder();
+    private final LongAdder consultasRedis = new LongAdder();
+    private final LongAdder recusados = new LongAdder();
+
+    @Value("${jwt.expiration}")
+    private long jwtExpirationMs;
+
+    @Value("${jwt.revogacao.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${jwt.revogacao.taxa-falsos-positivos:0.01}")
+    private double taxaFalsosPositivos;
+
+    @Value("${jwt.revogacao.capacidade-minima:100000}")
+    private long capacidadeMinima;
+
+    @Value("${jwt.revogacao.consulta-ttl-ms:30000}")
+    private long consultaTtlMs;
+
+    @Value("${jwt.revogacao.canal:jwt:revogacao}")
+    private String canal;
+
+    /**
+     * Filtro em uso (null até a primeira sincronização: toda verificação vai ao Redis)
+     */
+    private volatile FiltroBloom filtro;
+    private FiltroBloom emConstrucao;
+
+    /**
+     * Respostas do Redis: 1/0 para um jti, época (ou 0) para um usuário
+     */
+    private Cache<String, Long> consultas;
+
+    @PostConstruct
+    public void iniciar() {
+        consultas = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(consultaTtlMs))
+                .build();
+
+        if (habilitado) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(canal));
+        }
+    }
+
+    /**
+     * Indica se o token foi revogado (logout do próprio token ou revogação do usuário)
+     * Se o Redis falhar depois de o filtro indicar uma possível revogação, o token é recusado;
+     * sem filtro montado, é aceito.
+     * @param jti ID do token (null em tokens emitidos antes da revogação)
+     * @param username Email do usuário
+     * @param emitidoEm "iat" do token
+     */
+    public boolean revogado(String jti, String username, Date emitidoEm) {
+        if (!habilitado) {
+            return false;
+        }
+        verificacoes.increment();
+
+        FiltroBloom atual = filtro;
+        try {
+            if (jti != null && possivel(atual, TOKEN + jti)
+                    && consultar(TOKEN + jti, () -> tokenNoRedis(jti)) > 0) {
+                recusados.increment();
+                return true;
+            }
+            if (username != null && possivel(atual, USUARIO + username)) {
+                long epoca = consultar(USUARIO + username, () -> epocaNoRedis(username));
+                if (epoca > 0 && (emitidoEm == null || TimeUnit.MILLISECONDS.toSeconds(emitidoEm.getTime()) <= epoca)) {
+                    recusados.increment();
+                    return true;
+                }
+            }
+            return false;
+        } catch (DataAccessException e) {
+            log.warn("Redis indisponível ao verificar a revogação do token de {}", username, e);
+            if (atual != null) {
+                recusados.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Revoga um token até a sua expiração
+     * Tokens sem jti não podem ser revogados sozinhos: revoga todos os tokens do usuário
+     * @throws IllegalStateException se o Redis estiver indisponível
+     */
+    public void revogarToken(String jti, String username, Date expiracao) {
+        if (jti == null) {
+            revogarUsuario(username);
+            return;
+        }
+
+        long expiraEm = expiracao != null ? expiracao.getTime() : System.currentTimeMillis() + jwtExpirationMs;
+        if (expiraEm <= System.currentTimeMillis()) {
+            return;
+        }
+
+        try {
+            stringRedisTemplate.opsForZSet().add(CHAVE_TOKENS, jti, expiraEm);
+        } catch (DataAccessException e) {
+            log.error("Falha ao revogar o token {} no Redis", jti, e);
+            throw new IllegalStateException("Não foi possível revogar o token, tente novamente");
+        }
+
+        incluir(TOKEN + jti);
+        consultas.put(TOKEN + jti, 1L);
+        publicar(TOKEN + jti);
+        log.info("Token {} de {} revogado", jti, username);
+    }
+
+    /**
+     * Revoga todos os tokens do usuário emitidos até agora
+     * @throws IllegalStateException se o Redis estiver indisponível
+     */
+    public void revogarUsuario(String username) {
+        long epoca = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        try {
+            stringRedisTemplate.opsForHash().put(CHAVE_USUARIOS, username, String.valueOf(epoca));
+        } catch (DataAccessException e) {
+            log.error("Falha ao revogar os tokens de {} no Redis", username, e);
+            throw new IllegalStateException("Não foi possível revogar os tokens, tente novamente");
+        }
+
+        incluir(USUARIO + username);
+        consultas.put(USUARIO + username, epoca);
+        publicar(USUARIO + username);
+        log.info("Tokens de {} emitidos até {} revogados", username, epoca);
+    }
+
+    /**
+     * Remonta o filtro com as revogações ainda vigentes no Redis e descarta as expiradas
+     */
+    @Scheduled(fixedDelayString = "${jwt.revogacao.sincronizacao-ms:60000}")
+    public void sincronizar() {
+        if (!habilitado) {
+            return;
+        }
+
+        long inicio = System.currentTimeMillis();
+        try {
+            ZSetOperations<String, String> tokens = stringRedisTemplate.opsForZSet();
+            tokens.removeRangeByScore(CHAVE_TOKENS, 0, inicio);
+            Long quantidadeTokens = tokens.zCard(CHAVE_TOKENS);
+            Long quantidadeUsuarios = stringRedisTemplate.opsForHash().size(CHAVE_USUARIOS);
+            long total = (quantidadeTokens != null ? quantidadeTokens : 0) + (quantidadeUsuarios != null ? quantidadeUsuarios : 0);
+
+            // Revogações feitas a partir daqui entram também no novo filtro (incluir)
+            FiltroBloom novo = FiltroBloom.dimensionado(Math.max(capacidadeMinima, total * 2), taxaFalsosPositivos);
+            synchronized (this) {
+                emConstrucao = novo;
+            }
+
+            try (Cursor<ZSetOperations.TypedTuple<String>> cursor =
+                         tokens.scan(CHAVE_TOKENS, ScanOptions.scanOptions().count(1000).build())) {
+                cursor.forEachRemaining(token -> novo.incluir(TOKEN + token.getValue()));
+            }
+
+            List<Object> expiradas = new ArrayList<>();
+            try (Cursor<Map.Entry<Object, Object>> cursor = stringRedisTemplate.opsForHash()
+                    .scan(CHAVE_USUARIOS, ScanOptions.scanOptions().count(1000).build())) {
+                cursor.forEachRemaining(usuario -> {
+                    long epoca = Long.parseLong(usuario.getValue().toString());
+                    if (TimeUnit.SECONDS.toMillis(epoca) + jwtExpirationMs < inicio) {
+                        expiradas.add(usuario.getKey());
+                    } else {
+                        novo.incluir(USUARIO + usuario.getKey());
+                    }
+                });
+            }
+            if (!expiradas.isEmpty()) {
+                stringRedisTemplate.opsForHash().delete(CHAVE_USUARIOS, expiradas.toArray());
+            }
+
+            synchronized (this) {
+                filtro = novo;
+                emConstrucao = null;
+            }
+            log.debug("Filtro de revogação montado com {} entradas em {} ms",
+                    novo.getElementos(), System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            synchronized (this) {
+                emConstrucao = null;
+            }
+            log.warn("Falha ao sincronizar o filtro de revogação de tokens, mantendo o atual", e);
+        }
+    }
+
+    /**
+     * Filtro e contadores da revogação nesta instância
+     */
+    public Map<String, Object> obterEstatisticas() {
+        FiltroBloom atual = filtro;
+        long verificadas = verificacoes.sum();
+
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("pronto", atual != null);
+        if (atual != null) {
+            estatisticas.put("elementos", atual.getElementos());
+            estatisticas.put("capacidade", atual.getCapacidade());
+            estatisticas.put("tamanhoBytes", atual.getTamanhoBytes());
+            estatisticas.put("taxaEstimada", atual.taxaEstimada());
+        }
+        estatisticas.put("verificacoes", verificadas);
+        estatisticas.put("consultasDispensadas", dispensadas.sum());
+        estatisticas.put("consultasRedis", consultasRedis.sum());
+        estatisticas.put("tokensRecusados", recusados.sum());
+        return estatisticas;
+    }
+
+    /**
+     * Revogação feita por esta ou outra instância
+     * Formato: t:jti ou u:email
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String entrada = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (!entrada.startsWith(TOKEN) && !entrada.startsWith(USUARIO)) {
+            log.warn("Mensagem de revogação de token inválida ignorada");
+            return;
+        }
+        incluir(entrada);
+        consultas.invalidate(entrada);
+    }
+
+    private boolean possivel(FiltroBloom atual, String entrada) {
+        if (atual == null || atual.podeConter(entrada)) {
+            return true;
+        }
+        dispensadas.increment();
+        return false;
+    }
+
+    private long consultar(String entrada, Supplier<Long> redis) {
+        return consultas.get(entrada, chave -> {
+            consultasRedis.increment();
+            return redis.get();
+        });
+    }
+
+    private long tokenNoRedis(String jti) {
+        Double expiraEm = stringRedisTemplate.opsForZSet().score(CHAVE_TOKENS, jti);
+        return expiraEm != null && expiraEm > System.currentTimeMillis() ? 1L : 0L;
+    }
+
+    private long epocaNoRedis(String username) {
+        Object epoca = stringRedisTemplate.opsForHash().get(CHAVE_USUARIOS, username);
+        return epoca != null ? Long.parseLong(epoca.toString()) : 0L;
+    }
+
+    /**
+     * Inclui no filtro atual e no que estiver sendo montado, para que nenhuma revogação feita
+     * durante a sincronização se perca na troca
+     */
+    private synchronized void incluir(String entrada) {
+        if (filtro != null) {
+            filtro.incluir(entrada);
+        }
+        if (emConstrucao != null) {
+            emConstrucao.incluir(entrada);
+        }
+    }
+
+    private void publicar(String entrada) {
+        try {
+            stringRedisTemplate.convertAndSend(canal, entrada);
+        } catch (Exception e) {
+            log.warn("Falha ao publicar revogação {}; as demais instâncias a verão na próxima sincronização", entrada, e);
+        }
+    }
+}
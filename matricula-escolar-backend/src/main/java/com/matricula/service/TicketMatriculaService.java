@@ -0,0 +1,174 @@
+package com.matricula.service;
+
+import com.matricula.dto.MatriculaDTO;
+import com.matricula.dto.TicketMatriculaDTO;
+import com.matricula.fila.SolicitacaoMatricula;
+import com.matricula.model.Matricula;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Serviço: TicketMatriculaService
+ * Responsável pelo modo assíncrono de matrícula
+ * A solicitação é validada, colocada em uma fila limitada no Redis e o cliente recebe
+ * um ticket para consultar o resultado. O processamento é feito pelos workers da fila.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketMatriculaService {
+
+    public static final String FILA_SOLICITACOES_KEY = "fila:solicitacoes-matricula";
+
+    private static final String TICKET_KEY_PREFIX = "matricula:ticket:";
+
+    public enum Status {
+        PENDENTE, CONCLUIDA, REJEITADA
+    }
+
+    /**
+     * Enfileira a solicitação somente se a fila não atingiu a capacidade e cria o ticket
+     * Retorna 0 quando a fila está cheia
+     */
+    private static final RedisScript<Long> ENFILEIRAR_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('LLEN', KEYS[1]) >= tonumber(ARGV[1]) then return 0 end "
+                    + "redis.call('RPUSH', KEYS[1], ARGV[2]) "
+                    + "redis.call('HSET', KEYS[2], 'status', 'PENDENTE', 'criadoEm', ARGV[3], 'atualizadoEm', ARGV[3]) "
+                    + "redis.call('EXPIRE', KEYS[2], ARGV[4]) "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * Grava o resultado somente se o ticket ainda estiver PENDENTE (uma nova entrega da mesma
+     * solicitação não sobrescreve o resultado já gravado)
+     * ARGV = status, mensagem, matriculaId ('' se não houver), atualizadoEm e TTL em segundos
+     * Retorna 1 se gravado ou 0 se o ticket já foi finalizado ou expirou
+     */
+    private static final RedisScript<Long> FINALIZAR_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[1], 'status') ~= 'PENDENTE' then return 0 end "
+                    + "redis.call('HSET', KEYS[1], 'status', ARGV[1], 'mensagem', ARGV[2], 'atualizadoEm', ARGV[4]) "
+                    + "if ARGV[3] ~= '' then redis.call('HSET', KEYS[1], 'matriculaId', ARGV[3]) end "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[5]) "
+                    + "return 1",
+            Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${matricula.assincrona.capacidade-fila:10000}")
+    private int capacidadeFila;
+
+    @Value("${matricula.assincrona.ticket-ttl-segundos:3600}")
+    private long ticketTtlSegundos;
+
+    /**
+     * Valida a solicitação e a coloca na fila de entrada
+     * @return Ticket criado, ou vazio se a fila está cheia
+     */
+    public Optional<TicketMatriculaDTO> enfileirar(MatriculaDTO matriculaDTO) {
+        try {
+            Matricula.Turno.valueOf(matriculaDTO.getTurno());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Turno inválido");
+        }
+
+        long agora = System.currentTimeMillis();
+        SolicitacaoMatricula solicitacao = SolicitacaoMatricula.builder()
+                .ticketId(UUID.randomUUID().toString())
+                .alunoId(matriculaDTO.getAlunoId())
+                .turmaId(matriculaDTO.getTurmaId())
+                .turno(matriculaDTO.getTurno())
+                .timestamp(agora)
+                .build();
+
+        Long resultado = redisTemplate.execute(ENFILEIRAR_SCRIPT,
+                List.of(FILA_SOLICITACOES_KEY, TICKET_KEY_PREFIX + solicitacao.getTicketId()),
+                capacidadeFila, solicitacao, agora, ticketTtlSegundos);
+
+        if (resultado == null || resultado == 0L) {
+            log.warn("Fila de solicitações de matrícula cheia ({} itens)", capacidadeFila);
+            return Optional.empty();
+        }
+
+        log.info("Solicitação de matrícula enfileirada: ticket {}", solicitacao.getTicketId());
+
+        return Optional.of(TicketMatriculaDTO.builder()
+                .ticketId(solicitacao.getTicketId())
+                .status(Status.PENDENTE.name())
+                .criadoEm(agora)
+                .atualizadoEm(agora)
+                .build());
+    }
+
+    /**
+     * Consulta a situação de um ticket
+     */
+    public Optional<TicketMatriculaDTO> buscar(String ticketId) {
+        Map<Object, Object> campos = stringRedisTemplate.opsForHash().entries(TICKET_KEY_PREFIX + ticketId);
+        if (campos.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(TicketMatriculaDTO.builder()
+                .ticketId(ticketId)
+                .status((String) campos.get("status"))
+                .matriculaId(campos.containsKey("matriculaId") ? Integer.valueOf((String) campos.get("matriculaId")) : null)
+                .mensagem((String) campos.get("mensagem"))
+                .criadoEm(campos.containsKey("criadoEm") ? Long.valueOf((String) campos.get("criadoEm")) : null)
+                .atualizadoEm(campos.containsKey("atualizadoEm") ? Long.valueOf((String) campos.get("atualizadoEm")) : null)
+                .build());
+    }
+
+    /**
+     * Indica se a solicitação do ticket ainda não foi processada
+     */
+    public boolean pendente(String ticketId) {
+        Object status = stringRedisTemplate.opsForHash().get(TICKET_KEY_PREFIX + ticketId, "status");
+        return Status.PENDENTE.name().equals(status);
+    }
+
+    /**
+     * Marca o ticket como concluído com a matrícula criada
+     * @return false se o ticket já não estava PENDENTE
+     */
+    public boolean concluir(String ticketId, Integer matriculaId) {
+        return finalizar(ticketId, Status.CONCLUIDA, "Matrícula registrada com sucesso", String.valueOf(matriculaId));
+    }
+
+    /**
+     * Marca o ticket como rejeitado com o motivo
+     * @return false se o ticket já não estava PENDENTE
+     */
+    public boolean rejeitar(String ticketId, String motivo) {
+        return finalizar(ticketId, Status.REJEITADA, motivo != null ? motivo : "Erro ao registrar matrícula", "");
+    }
+
+    /**
+     * Obtém o tamanho da fila de solicitações
+     */
+    public long obterTamanhoFila() {
+        Long tamanho = redisTemplate.opsForList().size(FILA_SOLICITACOES_KEY);
+        return tamanho != null ? tamanho : 0;
+    }
+
+    private boolean finalizar(String ticketId, Status status, String mensagem, String matriculaId) {
+        Long resultado = stringRedisTemplate.execute(FINALIZAR_SCRIPT, List.of(TICKET_KEY_PREFIX + ticketId),
+                status.name(), mensagem, matriculaId,
+                String.valueOf(System.currentTimeMillis()), String.valueOf(ticketTtlSegundos));
+        if (resultado == null || resultado == 0L) {
+            log.warn("Ticket {} não estava pendente, resultado {} descartado", ticketId, status);
+            return false;
+        }
+        return true;
+    }
+}
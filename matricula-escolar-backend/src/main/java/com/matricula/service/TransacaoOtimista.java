@@ -0,0 +1,88 @@
+package com.matricula.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.StaleObjectStateException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Executor de transações com retentativa em conflito de versão (@Version)
+ * A ação é executada em uma nova transação; se o commit falhar porque outra transação
+ * alterou a mesma linha (ex.: ocupação da turma), a ação inteira é repetida com os dados
+ * atualizados, após uma espera aleatória que dobra a cada tentativa (até espera-maxima-ms)
+ * para desencontrar as tentativas em turmas muito disputadas.
+ * A entidade em conflito é descartada do cache de segundo nível antes de repetir, pois a
+ * cópia cacheada pode estar desatualizada (alteração feita por outra instância).
+ */
+@Component
+@Slf4j
+public class TransacaoOtimista {
+
+    private final TransactionTemplate transactionTemplate;
+    private final CacheSegundoNivelService cacheSegundoNivelService;
+
+    @Value("${transacao.retentativas.maximo:10}")
+    private int maximoTentativas;
+
+    @Value("${transacao.retentativas.espera-ms:20}")
+    private long esperaMs;
+
+    @Value("${transacao.retentativas.espera-maxima-ms:500}")
+    private long esperaMaximaMs;
+
+    public TransacaoOtimista(PlatformTransactionManager transactionManager,
+                             CacheSegundoNivelService cacheSegundoNivelService) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheSegundoNivelService = cacheSegundoNivelService;
+    }
+
+    /**
+     * Executa a ação em uma transação, repetindo-a em caso de conflito de versão
+     * Se já houver uma transação ativa, a ação participa dela e o conflito é propagado
+     * @throws RuntimeException se o conflito persistir após o número máximo de tentativas
+     */
+    public <T> T executar(Supplier<T> acao) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return acao.get();
+        }
+
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return transactionTemplate.execute(status -> acao.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (tentativa >= maximoTentativas) {
+                    log.warn("Conflito de versão persistiu após {} tentativas", tentativa, e);
+                    throw new RuntimeException("Registro alterado por outra operação, tente novamente", e);
+                }
+                log.debug("Conflito de versão na tentativa {}, repetindo", tentativa);
+                descartarDoCache(e);
+                aguardar(tentativa);
+            }
+        }
+    }
+
+    private void descartarDoCache(Throwable erro) {
+        for (Throwable causa = erro; causa != null; causa = causa.getCause()) {
+            if (causa instanceof StaleObjectStateException stale) {
+                cacheSegundoNivelService.descartar(stale.getEntityName(), stale.getIdentifier());
+                return;
+            }
+        }
+    }
+
+    private void aguardar(int tentativa) {
+        try {
+            long limite = Math.min(esperaMaximaMs, esperaMs << Math.min(tentativa - 1, 20));
+            Thread.sleep(ThreadLocalRandom.current().nextLong(limite + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Operação interrompida", e);
+        }
+    }
+}
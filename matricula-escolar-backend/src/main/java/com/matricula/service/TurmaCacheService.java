@@ -0,0 +1,402 @@
+package com.matricula.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.matricula.config.RoteamentoDataSource;
+import com.matricula.dto.PaginaDTO;
+import com.matricula.dto.TurmaDTO;
+import com.matricula.model.Turma;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Serviço: TurmaCacheService
+ * Responsável pelo cache de leitura das consultas de turmas (GET /turmas e GET /turmas/{id}).
+ * Guarda o JSON já serializado (em gzip acima de um tamanho mínimo) em dois níveis: um cache
+ * local pequeno (Caffeine) na frente do Redis. Faltas simultâneas da mesma chave na instância
+ * são coalescidas pelo cache local, de modo que apenas uma requisição reconstrói a entrada.
+ *
+ * A invalidação acontece após o commit de qualquer alteração em Turma (listeners do Hibernate):
+ * mudanças de ocupação, capacidade, professor etc. descartam apenas a turma e as páginas que a
+ * contêm; mudanças de nome/ativo e novas turmas alteram a ordem das páginas e descartam todas.
+ * Uma versão no Redis, incrementada a cada invalidação, impede que uma reconstrução iniciada
+ * antes da alteração grave dados antigos. As chaves descartadas são publicadas via pub/sub
+ * para que cada instância limpe o seu cache local.
+ *
+ * Cada entrada leva o ETag e a última modificação da resposta (ver JsonSerializado), descartados
+ * junto com ela: o GET condicional é respondido pelo cache, sem consulta de versão ao banco.
+ */
+@Service
+@Slf4j
+public class TurmaCacheService implements MessageListener, PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final String PREFIXO = "turma:cache:";
+    private static final String CHAVE_VERSAO = PREFIXO + "versao";
+    private static final String CHAVE_LISTAGENS = PREFIXO + "listagens";
+    private static final String PREFIXO_ID = PREFIXO + "id:";
+    private static final String PREFIXO_LISTAGEM = PREFIXO + "lista:";
+    private static final String PREFIXO_PAGINAS = PREFIXO + "paginas:";
+
+    private static final String TODAS_LISTAGENS = "L";
+    private static final String APENAS_TURMA = "T";
+
+    /**
+     * Propriedades que definem a ordem e o filtro da listagem (nome, id) das turmas ativas
+     */
+    private static final Set<String> PROPRIEDADES_DA_LISTAGEM = Set.of("nome", "ativo");
+
+    /**
+     * Grava a entrada somente se nenhuma invalidação ocorreu desde o início da reconstrução
+     * KEYS[1] = versão, KEYS[2] = chave da entrada, KEYS[3..n] = índices que referenciam a entrada
+     * ARGV[1] = versão lida antes da reconstrução, ARGV[2] = TTL em ms, ARGV[3] = valor
+     */
+    private static final byte[] ARMAZENAR_SCRIPT = """
+            if (redis.call('GET', KEYS[1]) or '0') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[2], ARGV[3], 'PX', ARGV[2])
+            for i = 3, #KEYS do
+                redis.call('SADD', KEYS[i], KEYS[2])
+                redis.call('PEXPIRE', KEYS[i], ARGV[2])
+            end
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Incrementa a versão e remove a turma e as páginas afetadas, devolvendo as chaves removidas
+     * KEYS[1] = versão, KEYS[2] = chave da turma, KEYS[3] = páginas da turma, KEYS[4] = todas as páginas
+     * ARGV[1] = '1' para remover todas as páginas
+     */
+    private static final byte[] INVALIDAR_SCRIPT = """
+            redis.call('INCR', KEYS[1])
+            local indice = KEYS[3]
+            if ARGV[1] == '1' then
+                indice = KEYS[4]
+            end
+            local chaves = redis.call('SMEMBERS', indice)
+            table.insert(chaves, KEYS[2])
+            for _, chave in ipairs(chaves) do
+                redis.call('DEL', chave)
+            end
+            redis.call('DEL', KEYS[3])
+            if ARGV[1] == '1' then
+                redis.call('DEL', KEYS[4])
+            end
+            return chaves
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final TurmaService turmaService;
+    private final ObjectMapper objectMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final SessionFactoryImplementor sessionFactory;
+
+    @Value("${turma.cache.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${turma.cache.ttl-segundos:300}")
+    private long ttlSegundos;
+
+    @Value("${turma.cache.gzip:true}")
+    private boolean gzip;
+
+    @Value("${turma.cache.gzip-tamanho-minimo:2048}")
+    private int gzipTamanhoMinimo;
+
+    @Value("${turma.cache.local.tamanho-maximo:500}")
+    private long tamanhoLocal;
+
+    @Value("${turma.cache.local.ttl-segundos:30}")
+    private long ttlLocalSegundos;
+
+    @Value("${turma.cache.canal:turma:cache:invalidacao}")
+    private String canal;
+
+    private Cache<String, Entrada> cacheLocal;
+
+    public TurmaCacheService(TurmaService turmaService,
+                             ObjectMapper objectMapper,
+                             StringRedisTemplate stringRedisTemplate,
+                             RedisMessageListenerContainer listenerContainer,
+                             EntityManagerFactory entityManagerFactory) {
+        this.turmaService = turmaService;
+        this.objectMapper = objectMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+
+        cacheLocal = Caffeine.newBuilder()
+                .maximumSize(tamanhoLocal)
+                .expireAfterWrite(Duration.ofSeconds(ttlLocalSegundos))
+                .build();
+
+        EventListenerRegistry registro = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registro.appendListeners(EventType.POST_COMMIT_DELETE, this);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(canal));
+    }
+
+    /**
+     * Página da listagem de turmas ativas, já serializada
+     * @param cursor Cursor devolvido pela página anterior (null na primeira página)
+     */
+    public JsonSerializado listarTodas(String cursor, Integer limite) {
+        int tamanho = CursorPaginacao.limitar(limite);
+        String chave = PREFIXO_LISTAGEM + tamanho + ":" + (cursor != null ? cursor : "");
+
+        return obter(chave, () -> {
+            // Lido do primário: uma réplica atrasada gravaria dados antigos sob a versão atual
+            PaginaDTO<TurmaDTO> pagina = RoteamentoDataSource.noPrimario(() -> turmaService.listarTodas(cursor, tamanho));
+            List<String> indices = new ArrayList<>();
+            indices.add(CHAVE_LISTAGENS);
+            pagina.getItens().forEach(turma -> indices.add(PREFIXO_PAGINAS + turma.getId()));
+            return new Construcao(serializar(pagina.getItens(), pagina.getProximoCursor()), indices);
+        });
+    }
+
+    /**
+     * Turma por ID, já serializada
+     */
+    public JsonSerializado buscarPorId(Integer id) {
+        return obter(PREFIXO_ID + id, () -> new Construcao(
+                serializar(RoteamentoDataSource.noPrimario(() -> turmaService.buscarPorId(id)), null), List.of()));
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Turma turma) {
+            invalidar(turma.getId(), true);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Turma turma) {
+            invalidar(turma.getId(), alteraListagens(event));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Turma turma) {
+            invalidar(turma.getId(), true);
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return Turma.class.getName().equals(persister.getEntityName());
+    }
+
+    /**
+     * Recebe as chaves invalidadas (por esta ou por outra instância) e limpa o cache local
+     * Formato: L|T seguido das chaves, uma por linha
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] linhas = new String(message.getBody(), StandardCharsets.UTF_8).split("\n");
+        descartarLocal(TODAS_LISTAGENS.equals(linhas[0]), List.of(linhas).subList(1, linhas.length));
+    }
+
+    /**
+     * Descarta a turma do cache; com todasListagens, descarta também todas as páginas
+     */
+    public void invalidar(Integer turmaId, boolean todasListagens) {
+        if (!habilitado) {
+            return;
+        }
+
+        List<String> chaves = new ArrayList<>();
+        chaves.add(PREFIXO_ID + turmaId);
+        try {
+            List<Object> removidas = stringRedisTemplate.execute((RedisCallback<List<Object>>) connection ->
+                    connection.scriptingCommands().eval(INVALIDAR_SCRIPT, ReturnType.MULTI, 4,
+                            bytes(CHAVE_VERSAO), bytes(PREFIXO_ID + turmaId), bytes(PREFIXO_PAGINAS + turmaId),
+                            bytes(CHAVE_LISTAGENS), bytes(todasListagens ? "1" : "0")));
+            if (removidas != null) {
+                removidas.forEach(chave -> chaves.add(new String((byte[]) chave, StandardCharsets.UTF_8)));
+            }
+
+            descartarLocal(todasListagens, chaves);
+            stringRedisTemplate.convertAndSend(canal,
+                    (todasListagens ? TODAS_LISTAGENS : APENAS_TURMA) + "\n" + String.join("\n", chaves));
+        } catch (DataAccessException e) {
+            log.warn("Falha ao invalidar o cache da turma {} no Redis", turmaId, e);
+            descartarLocal(true, chaves);
+        }
+    }
+
+    private JsonSerializado obter(String chave, Supplier<Construcao> construtor) {
+        if (!habilitado) {
+            return construtor.get().json;
+        }
+
+        Entrada entrada = cacheLocal.get(chave, ignorada -> carregar(chave, construtor));
+        if (!entrada.valida) {
+            // Reconstruída durante uma invalidação ou sem Redis: serve esta requisição e descarta
+            cacheLocal.asMap().remove(chave, entrada);
+        }
+        return entrada.json;
+    }
+
+    /**
+     * Busca a entrada no Redis; na falta, reconstrói a partir do banco e grava no Redis
+     */
+    private Entrada carregar(String chave, Supplier<Construcao> construtor) {
+        JsonSerializado armazenado;
+        String versao;
+        try {
+            byte[] valor = stringRedisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.stringCommands().get(bytes(chave)));
+            // Entrada em formato anterior (sem ETag) é tratada como falta e regravada
+            armazenado = valor != null ? JsonSerializado.deBytes(valor) : null;
+            versao = armazenado == null ? stringRedisTemplate.opsForValue().get(CHAVE_VERSAO) : null;
+        } catch (DataAccessException e) {
+            log.warn("Cache de turmas indisponível no Redis, consultando o banco", e);
+            return new Entrada(construtor.get().json, false);
+        }
+
+        if (armazenado != null) {
+            return new Entrada(armazenado, true);
+        }
+
+        Construcao construcao = construtor.get();
+        return new Entrada(construcao.json, armazenar(chave, versao != null ? versao : "0", construcao));
+    }
+
+    private boolean armazenar(String chave, String versao, Construcao construcao) {
+        List<byte[]> argumentos = new ArrayList<>();
+        argumentos.add(bytes(CHAVE_VERSAO));
+        argumentos.add(bytes(chave));
+        construcao.indices.forEach(indice -> argumentos.add(bytes(indice)));
+        int quantidadeChaves = argumentos.size();
+        argumentos.add(bytes(versao));
+        argumentos.add(bytes(String.valueOf(ttlSegundos * 1000)));
+        argumentos.add(construcao.json.paraBytes());
+
+        try {
+            Long gravada = stringRedisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.scriptingCommands().eval(ARMAZENAR_SCRIPT, ReturnType.INTEGER, quantidadeChaves,
+                            argumentos.toArray(new byte[0][])));
+            return gravada != null && gravada == 1L;
+        } catch (DataAccessException e) {
+            log.warn("Falha ao gravar o cache de turmas no Redis", e);
+            return false;
+        }
+    }
+
+    private void descartarLocal(boolean todasListagens, List<String> chaves) {
+        if (cacheLocal == null) {
+            return;
+        }
+        cacheLocal.invalidateAll(chaves);
+        if (todasListagens) {
+            cacheLocal.asMap().keySet().removeIf(chave -> chave.startsWith(PREFIXO_LISTAGEM));
+        }
+    }
+
+    private boolean alteraListagens(PostUpdateEvent event) {
+        int[] alteradas = event.getDirtyProperties();
+        if (alteradas == null) {
+            return true;
+        }
+
+        String[] propriedades = event.getPersister().getPropertyNames();
+        for (int indice : alteradas) {
+            if (PROPRIEDADES_DA_LISTAGEM.contains(propriedades[indice])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private JsonSerializado serializar(Object valor, String proximoCursor) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(valor);
+            return JsonSerializado.de(json, gzip && json.length >= gzipTamanhoMinimo, proximoCursor);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erro ao serializar turmas", e);
+        }
+    }
+
+    private static byte[] bytes(String valor) {
+        return valor.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Corpo reconstruído e índices (por turma e geral) que devem referenciar a entrada no Redis
+     */
+    private static class Construcao {
+        private final JsonSerializado json;
+        private final List<String> indices;
+
+        Construcao(JsonSerializado json, List<String> indices) {
+            this.json = json;
+            this.indices = indices;
+        }
+    }
+
+    /**
+     * Entrada do cache local; inválida quando não pôde ser gravada no Redis
+     */
+    private static class Entrada {
+        private final JsonSerializado json;
+        private final boolean valida;
+
+        Entrada(JsonSerializado json, boolean valida) {
+            this.json = json;
+            this.valida = valida;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.matricula.service;
+
+/**
+ * Exceção: matrícula recusada porque a turma não possui vagas livres
+ * Distingue a falta de vagas das demais falhas (ex.: promoção da lista de espera, em que o
+ * aluno volta à lista em vez de a vaga passar ao próximo)
+ */
+public class TurmaSemVagasException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TurmaSemVagasException() {
+        super("Turma sem vagas disponíveis");
+    }
+}
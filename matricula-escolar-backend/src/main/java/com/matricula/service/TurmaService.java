@@ -1,16 +1,19 @@
 package com.matricula.service;
 
+import com.matricula.dto.PaginaDTO;
 import com.matricula.dto.TurmaDTO;
 import com.matricula.model.Turma;
 import com.matricula.model.Usuario;
 import com.matricula.repository.TurmaRepository;
+import com.matricula.repository.TurmaRepository.TurmaResumo;
 import com.matricula.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Serviço: TurmaService
@@ -23,28 +26,49 @@ public class TurmaService {
 
     private final TurmaRepository turmaRepository;
     private final UsuarioRepository usuarioRepository;
+    private final VagaService vagaService;
+    private final TransacaoOtimista transacaoOtimista;
 
     /**
-     * Lista todas as turmas ativas
+     * Lista as turmas ativas paginadas por (nome, id)
+     * @param cursor Cursor devolvido pela página anterior (null na primeira página)
      */
-    public List<TurmaDTO> listarTodas() {
-        log.info("Listando todas as turmas");
-        return turmaRepository.findByAtivoTrueOrderBySerieAscTurnoAsc()
-                .stream()
-                .map(this::converterParaDTO)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public PaginaDTO<TurmaDTO> listarTodas(String cursor, Integer limite) {
+        log.info("Listando turmas ativas");
+        CursorPaginacao posicao = CursorPaginacao.decodificar(cursor);
+        int tamanho = CursorPaginacao.limitar(limite);
+        PageRequest pagina = PageRequest.of(0, tamanho + 1);
+
+        List<TurmaResumo> turmas = posicao == null
+                ? turmaRepository.findAtivasPaginadas(pagina)
+                : turmaRepository.findAtivasPaginadasApos(posicao.getChave(), posicao.getId(), pagina);
+
+        return CursorPaginacao.montarPagina(turmas, tamanho, this::converterResumoParaDTO,
+                turma -> CursorPaginacao.codificar(turma.getNome(), turma.getId()));
     }
 
     /**
      * Busca uma turma por ID
      */
+    @Transactional(readOnly = true)
     public TurmaDTO buscarPorId(Integer id) {
         log.info("Buscando turma com ID: {}", id);
-        return turmaRepository.findById(id)
-                .map(this::converterParaDTO)
+        return turmaRepository.findResumoById(id)
+                .map(this::converterResumoParaDTO)
                 .orElseThrow(() -> new RuntimeException("Turma não encontrada"));
     }
 
+    /**
+     * Turmas alteradas após a posição (dataAtualizacao, id) e antes de ate, em ordem
+     * Usado pelo feed de alterações (até limite linhas, inclusive as desativadas)
+     */
+    public List<TurmaDTO> listarAlteradasApos(LocalDateTime data, Integer id, LocalDateTime ate, int limite) {
+        return turmaRepository.findAlteradasApos(data, id, ate, PageRequest.of(0, limite)).stream()
+                .map(this::converterResumoParaDTO)
+                .toList();
+    }
+
     /**
      * Cria uma nova turma
      */
@@ -57,6 +81,7 @@ public class TurmaService {
         turma.setSerie(turmaDTO.getSerie());
         turma.setTurno(Turma.Turno.valueOf(turmaDTO.getTurno()));
         turma.setCapacidade(turmaDTO.getCapacidade());
+        turma.setOcupacao(0);
         turma.setAtivo(true);
 
         // Associar professor se fornecido
@@ -74,14 +99,23 @@ public class TurmaService {
 
     /**
      * Atualiza uma turma existente
+     * A transação é repetida se a ocupação da turma for alterada concorrentemente
      */
-    @Transactional
     public TurmaDTO atualizar(Integer id, TurmaDTO turmaDTO) {
+        return transacaoOtimista.executar(() -> atualizarNaTransacao(id, turmaDTO));
+    }
+
+    private TurmaDTO atualizarNaTransacao(Integer id, TurmaDTO turmaDTO) {
         log.info("Atualizando turma com ID: {}", id);
 
         Turma turma = turmaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Turma não encontrada"));
 
+        boolean capacidadeAlterada = !turma.getCapacidade().equals(turmaDTO.getCapacidade());
+        if (turmaDTO.getCapacidade() < turma.getOcupacao()) {
+            throw new RuntimeException("Capacidade menor que a ocupação atual da turma");
+        }
+
         turma.setNome(turmaDTO.getNome());
         turma.setSerie(turmaDTO.getSerie());
         turma.setTurno(Turma.Turno.valueOf(turmaDTO.getTurno()));
@@ -94,6 +128,12 @@ public class TurmaService {
         }
 
         Turma turmaAtualizada = turmaRepository.save(turma);
+
+        // Contador de vagas é recalculado a partir da nova capacidade
+        if (capacidadeAlterada) {
+            vagaService.invalidar(id);
+        }
+
         log.info("Turma atualizada com sucesso: ID {}", id);
 
         return converterParaDTO(turmaAtualizada);
@@ -125,6 +165,8 @@ public class TurmaService {
                 .serie(turma.getSerie())
                 .turno(turma.getTurno().toString())
                 .capacidade(turma.getCapacidade())
+                .ocupacao(turma.getOcupacao())
+                .vagasDisponiveis(calcularVagasDisponiveis(turma.getCapacidade(), turma.getOcupacao()))
                 .professorId(turma.getProfessor() != null ? turma.getProfessor().getId() : null)
                 .professorNome(turma.getProfessor() != null ? turma.getProfessor().getNome() : null)
                 .ativo(turma.getAtivo())
@@ -132,4 +174,28 @@ public class TurmaService {
                 .dataAtualizacao(turma.getDataAtualizacao())
                 .build();
     }
+
+    /**
+     * Converte a projeção das listagens para TurmaDTO
+     */
+    private TurmaDTO converterResumoParaDTO(TurmaResumo turma) {
+        return TurmaDTO.builder()
+                .id(turma.getId())
+                .nome(turma.getNome())
+                .serie(turma.getSerie())
+                .turno(turma.getTurno().toString())
+                .capacidade(turma.getCapacidade())
+                .ocupacao(turma.getOcupacao())
+                .vagasDisponiveis(calcularVagasDisponiveis(turma.getCapacidade(), turma.getOcupacao()))
+                .professorId(turma.getProfessorId())
+                .professorNome(turma.getProfessorNome())
+                .ativo(turma.getAtivo())
+                .dataCriacao(turma.getDataCriacao())
+                .dataAtualizacao(turma.getDataAtualizacao())
+                .build();
+    }
+
+    private int calcularVagasDisponiveis(int capacidade, int ocupacao) {
+        return Math.max(0, capacidade - ocupacao);
+    }
 }
@@ -0,0 +1,399 @@
+package com.matricula.service;
+
+import com.matricula.config.RoteamentoDataSource;
+import com.matricula.model.Aluno;
+import com.matricula.model.Usuario;
+import com.matricula.repository.AlunoRepository;
+import com.matricula.repository.ChavesUnicas;
+import com.matricula.repository.UsuarioRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Serviço: UnicidadeService
+ * Responsável pela pré-verificação de CPF e email já cadastrados (alunos e usuários) com
+ * filtros de Bloom em memória. Quando o filtro responde "ausente" a consulta ao banco é
+ * dispensada; quando responde "talvez presente" o banco decide. As restrições UNIQUE das
+ * tabelas (cpf e email de alunos e usuários) continuam sendo a fonte da verdade: um valor que
+ * falte no filtro (pub/sub é no máximo uma vez) é recusado pelo índice único ao gravar.
+ * Os filtros são montados na subida (streaming das colunas) e alimentados após o commit de
+ * cada inclusão/alteração; as demais instâncias recebem os novos valores via Redis pub/sub.
+ * Enquanto um filtro não está pronto, toda verificação vai ao banco.
+ */
+@Service
+@Slf4j
+public class UnicidadeService implements MessageListener, PostCommitInsertEventListener,
+        PostCommitUpdateEventListener {
+
+    private static final String SEPARADOR = ";";
+
+    /**
+     * Coluna única verificada por um filtro
+     */
+    public enum Chave {
+        ALUNO_CPF("alunos.cpf"),
+        ALUNO_EMAIL("alunos.email"),
+        USUARIO_CPF("usuarios.cpf"),
+        USUARIO_EMAIL("usuarios.email");
+
+        private final String coluna;
+
+        Chave(String coluna) {
+            this.coluna = coluna;
+        }
+
+        public String getColuna() {
+            return coluna;
+        }
+    }
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final AlunoRepository alunoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final TransactionTemplate transacaoLeitura;
+    private final String instancia = UUID.randomUUID().toString();
+
+    private final Map<Chave, FiltroBloom> filtros = new EnumMap<>(Chave.class);
+    private final Map<Chave, FiltroBloom> emConstrucao = new EnumMap<>(Chave.class);
+    private final Map<Chave, Contadores> contadores = new EnumMap<>(Chave.class);
+    private final AtomicBoolean reconstruindo = new AtomicBoolean();
+
+    @Value("${unicidade.filtro.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${unicidade.filtro.taxa-falsos-positivos:0.01}")
+    private double taxaFalsosPositivos;
+
+    @Value("${unicidade.filtro.capacidade-minima:100000}")
+    private long capacidadeMinima;
+
+    @Value("${unicidade.filtro.canal:unicidade:filtro:inclusao}")
+    private String canal;
+
+    public UnicidadeService(EntityManagerFactory entityManagerFactory,
+                            AlunoRepository alunoRepository,
+                            UsuarioRepository usuarioRepository,
+                            StringRedisTemplate stringRedisTemplate,
+                            RedisMessageListenerContainer listenerContainer,
+                            PlatformTransactionManager transactionManager) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.alunoRepository = alunoRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+
+        for (Chave chave : Chave.values()) {
+            contadores.put(chave, new Contadores());
+        }
+    }
+
+    /**
+     * Registra os listeners pós-commit no Hibernate
+     */
+    @PostConstruct
+    public void registrar() {
+        EventListenerRegistry registro = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    }
+
+    /**
+     * Assina o canal de inclusões e monta os filtros em segundo plano
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+        listenerContainer.addMessageListener(this, new ChannelTopic(canal));
+        reconstruirEmSegundoPlano();
+    }
+
+    /**
+     * Remonta os filtros quando a capacidade é excedida ou a taxa estimada passa do dobro da
+     * desejada (emails alterados continuam marcados no filtro antigo)
+     */
+    @Scheduled(fixedDelayString = "${unicidade.filtro.verificacao-ms:600000}")
+    public void verificarSaturacao() {
+        if (!habilitado) {
+            return;
+        }
+
+        boolean saturado;
+        synchronized (this) {
+            saturado = filtros.values().stream().anyMatch(filtro -> filtro.getElementos() > filtro.getCapacidade()
+                    || filtro.taxaEstimada() > 2 * taxaFalsosPositivos);
+        }
+        if (saturado) {
+            log.info("Filtros de unicidade saturados, remontando");
+            reconstruirEmSegundoPlano();
+        }
+    }
+
+    /**
+     * Indica se o valor já está cadastrado na coluna
+     * Consulta o banco apenas se o filtro não puder descartar o valor
+     * @param consulta Verificação no banco (ex.: alunoRepository::existsByCpf)
+     */
+    public boolean existe(Chave chave, String valor, Predicate<String> consulta) {
+        FiltroBloom filtro;
+        synchronized (this) {
+            filtro = filtros.get(chave);
+        }
+        if (valor == null || filtro == null) {
+            return consulta.test(valor);
+        }
+
+        Contadores contador = contadores.get(chave);
+        if (!filtro.podeConter(normalizar(valor))) {
+            contador.descartadas.increment();
+            return false;
+        }
+
+        boolean existe = consulta.test(valor);
+        if (existe) {
+            contador.confirmadas.increment();
+        } else {
+            contador.falsosPositivos.increment();
+        }
+        return existe;
+    }
+
+    /**
+     * Tamanho, ocupação e taxas (estimada e observada) de cada filtro nesta instância
+     * Taxa observada = falsos positivos / (falsos positivos + consultas descartadas)
+     */
+    public Map<String, Object> obterEstatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        for (Chave chave : Chave.values()) {
+            FiltroBloom filtro;
+            synchronized (this) {
+                filtro = filtros.get(chave);
+            }
+
+            Contadores contador = contadores.get(chave);
+            long descartadas = contador.descartadas.sum();
+            long falsosPositivos = contador.falsosPositivos.sum();
+            long negativas = descartadas + falsosPositivos;
+
+            Map<String, Object> dados = new LinkedHashMap<>();
+            dados.put("pronto", filtro != null);
+            if (filtro != null) {
+                dados.put("elementos", filtro.getElementos());
+                dados.put("capacidade", filtro.getCapacidade());
+                dados.put("bits", filtro.getBits());
+                dados.put("hashes", filtro.getHashes());
+                dados.put("tamanhoBytes", filtro.getTamanhoBytes());
+                dados.put("taxaEstimada", filtro.taxaEstimada());
+            }
+            dados.put("consultasDescartadas", descartadas);
+            dados.put("positivasConfirmadas", contador.confirmadas.sum());
+            dados.put("falsosPositivos", falsosPositivos);
+            dados.put("taxaObservada", negativas == 0 ? 0.0 : (double) falsosPositivos / negativas);
+            estatisticas.put(chave.getColuna(), dados);
+        }
+        return estatisticas;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        incluirEntidade(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        incluirEntidade(event.getEntity());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> classe = persister.getMappedClass();
+        return classe == Aluno.class || classe == Usuario.class;
+    }
+
+    /**
+     * Recebe um valor incluído por outra instância
+     * Formato: instancia;chave;valor
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] partes = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARADOR, 3);
+        if (partes.length != 3 || instancia.equals(partes[0])) {
+            return;
+        }
+
+        try {
+            incluir(Chave.valueOf(partes[1]), partes[2]);
+        } catch (Exception e) {
+            log.warn("Mensagem de inclusão no filtro de unicidade inválida: {}", partes[1], e);
+        }
+    }
+
+    private void incluirEntidade(Object entidade) {
+        if (entidade instanceof Aluno aluno) {
+            incluirEPublicar(Chave.ALUNO_CPF, aluno.getCpf());
+            incluirEPublicar(Chave.ALUNO_EMAIL, aluno.getEmail());
+        } else if (entidade instanceof Usuario usuario) {
+            incluirEPublicar(Chave.USUARIO_CPF, usuario.getCpf());
+            incluirEPublicar(Chave.USUARIO_EMAIL, usuario.getEmail());
+        }
+    }
+
+    private void incluirEPublicar(Chave chave, String valor) {
+        if (valor == null || !habilitado) {
+            return;
+        }
+
+        incluir(chave, valor);
+        try {
+            stringRedisTemplate.convertAndSend(canal, instancia + SEPARADOR + chave.name() + SEPARADOR + valor);
+        } catch (Exception e) {
+            log.warn("Falha ao publicar inclusão no filtro {}", chave.getColuna(), e);
+        }
+    }
+
+    /**
+     * Inclui o valor no filtro atual e no que estiver sendo montado, para que nenhuma inclusão
+     * feita durante a remontagem se perca na troca
+     */
+    private synchronized void incluir(Chave chave, String valor) {
+        String normalizado = normalizar(valor);
+        FiltroBloom atual = filtros.get(chave);
+        if (atual != null) {
+            atual.incluir(normalizado);
+        }
+        FiltroBloom novo = emConstrucao.get(chave);
+        if (novo != null) {
+            novo.incluir(normalizado);
+        }
+    }
+
+    private void reconstruirEmSegundoPlano() {
+        if (!reconstruindo.compareAndSet(false, true)) {
+            return;
+        }
+
+        Thread construcao = new Thread(() -> {
+            try {
+                reconstruir();
+            } finally {
+                reconstruindo.set(false);
+            }
+        }, "unicidade-filtros");
+        construcao.setDaemon(true);
+        construcao.start();
+    }
+
+    private void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        try {
+            long alunos = alunoRepository.count();
+            long usuarios = usuarioRepository.count();
+
+            synchronized (this) {
+                emConstrucao.put(Chave.ALUNO_CPF, novoFiltro(alunos));
+                emConstrucao.put(Chave.ALUNO_EMAIL, novoFiltro(alunos));
+                emConstrucao.put(Chave.USUARIO_CPF, novoFiltro(usuarios));
+                emConstrucao.put(Chave.USUARIO_EMAIL, novoFiltro(usuarios));
+            }
+
+            // Do primário: um valor já commitado e ainda não replicado faltaria no novo filtro
+            RoteamentoDataSource.noPrimario(() -> transacaoLeitura.execute(status -> {
+                try (Stream<ChavesUnicas> chaves = alunoRepository.streamChavesUnicas()) {
+                    chaves.forEach(aluno -> carregar(Chave.ALUNO_CPF, Chave.ALUNO_EMAIL, aluno));
+                }
+                try (Stream<ChavesUnicas> chaves = usuarioRepository.streamChavesUnicas()) {
+                    chaves.forEach(usuario -> carregar(Chave.USUARIO_CPF, Chave.USUARIO_EMAIL, usuario));
+                }
+                return null;
+            }));
+
+            long tamanhoBytes;
+            synchronized (this) {
+                filtros.putAll(emConstrucao);
+                emConstrucao.clear();
+                tamanhoBytes = filtros.values().stream().mapToLong(FiltroBloom::getTamanhoBytes).sum();
+            }
+
+            log.info("Filtros de unicidade montados: {} alunos, {} usuários em {} ms ({} bytes)",
+                    alunos, usuarios, System.currentTimeMillis() - inicio, tamanhoBytes);
+        } catch (Exception e) {
+            synchronized (this) {
+                emConstrucao.clear();
+            }
+            log.error("Erro ao montar os filtros de unicidade", e);
+        }
+    }
+
+    /**
+     * Capacidade com folga para o crescimento até a próxima remontagem
+     */
+    private FiltroBloom novoFiltro(long total) {
+        return FiltroBloom.dimensionado(Math.max(capacidadeMinima, total * 2), taxaFalsosPositivos);
+    }
+
+    private void carregar(Chave chaveCpf, Chave chaveEmail, ChavesUnicas linha) {
+        if (linha.getCpf() != null) {
+            incluir(chaveCpf, linha.getCpf());
+        }
+        if (linha.getEmail() != null) {
+            incluir(chaveEmail, linha.getEmail());
+        }
+    }
+
+    /**
+     * A colação das tabelas (utf8mb4_unicode_ci) não diferencia acentos, maiúsculas nem espaços
+     * finais: valores iguais para o banco precisam cair nas mesmas posições do filtro
+     */
+    private static String normalizar(String valor) {
+        return BuscaAlunoService.normalizar(valor.strip());
+    }
+
+    private static class Contadores {
+        private final LongAdder descartadas = new LongAdder();
+        private final LongAdder confirmadas = new LongAdder();
+        private final LongAdder falsosPositivos = new LongAdder();
+    }
+}
@@ -0,0 +1,434 @@
+package com.matricula.service;
+
+import com.matricula.model.Matricula;
+import com.matricula.model.Turma;
+import com.matricula.repository.MatriculaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serviço: VagaService
+ * Responsável pela admissão de vagas nas turmas
+ * Mantém um contador de vagas livres por turma no Redis (decremento atômico via script Lua),
+ * evitando o COUNT sobre matrículas a cada requisição. Em caso de falha do Redis,
+ * utiliza um contador em memória até que o Redis volte a responder.
+ * Vagas liberadas por cancelamentos são entregues primeiro ao início da lista de espera da
+ * turma, no mesmo script que atualiza o contador, de modo que cada vaga vai para exatamente
+ * um destino; a promoção fica registrada no Redis (turma:espera:promocoes) até ser concluída.
+ * Vagas reservadas por transações revertidas apenas voltam ao contador.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VagaService {
+
+    private final MatriculaRepository matriculaRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final String VAGAS_KEY_PREFIX = "turma:vagas:";
+    private static final String PROMOCOES_KEY = "turma:espera:promocoes";
+
+    private static final long CONTADOR_AUSENTE = -1L;
+    private static final long VAGAS_DISPONIVEIS = -2L;
+
+    /**
+     * Decrementa o contador em até ARGV[1] vagas, sem ficar negativo
+     * Retorna -1 se o contador não existe ou a quantidade de vagas reservadas
+     */
+    private static final RedisScript<Long> RESERVAR_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('GET', KEYS[1]) "
+                    + "if not v then return -1 end "
+                    + "local n = math.min(tonumber(v), tonumber(ARGV[1])) "
+                    + "if n > 0 then redis.call('DECRBY', KEYS[1], n) return n end "
+                    + "return 0",
+            Long.class);
+
+    /**
+     * Devolve ARGV[2] vagas: cada vaga é transferida ao primeiro aluno da lista de espera (KEYS[2])
+     * e as restantes incrementam o contador sem ultrapassar a capacidade da turma (ARGV[1])
+     * Cada aluno retirado da lista é registrado nas promoções pendentes (KEYS[3]) como
+     * turmaId:alunoId:score, com o horário ARGV[4]
+     * Retorna os membros registrados nas promoções pendentes
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LIBERAR_SCRIPT = new DefaultRedisScript<>(
+            "local promovidos = {} "
+                    + "local restantes = tonumber(ARGV[2]) "
+                    + "while restantes > 0 do "
+                    + "  local primeiro = redis.call('ZPOPMIN', KEYS[2]) "
+                    + "  if not primeiro[1] then break end "
+                    + "  local chave = ARGV[3] .. ':' .. primeiro[1] .. ':' .. string.format('%d', tonumber(primeiro[2])) "
+                    + "  redis.call('ZADD', KEYS[3], ARGV[4], chave) "
+                    + "  table.insert(promovidos, chave) "
+                    + "  restantes = restantes - 1 "
+                    + "end "
+                    + "if restantes > 0 then "
+                    + "  local v = redis.call('GET', KEYS[1]) "
+                    + "  if v then redis.call('SET', KEYS[1], math.min(tonumber(v) + restantes, tonumber(ARGV[1]))) end "
+                    + "end "
+                    + "return promovidos",
+            List.class);
+
+    /**
+     * Incrementa o contador (KEYS[1]) em ARGV[2] vagas sem ultrapassar a capacidade (ARGV[1])
+     */
+    private static final RedisScript<Long> DEVOLVER_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('GET', KEYS[1]) "
+                    + "if v then redis.call('SET', KEYS[1], math.min(tonumber(v) + tonumber(ARGV[2]), tonumber(ARGV[1]))) end "
+                    + "return 0",
+            Long.class);
+
+    /**
+     * Remove a promoção pendente ARGV[1] (KEYS[1]) e devolve o aluno ARGV[3] à lista de espera
+     * (KEYS[2]) com o score original ARGV[2]
+     * Retorna 0 se a promoção já não estava pendente (tratada por outra instância)
+     */
+    private static final RedisScript<Long> REINSERIR_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('ZREM', KEYS[1], ARGV[1]) == 0 then return 0 end "
+                    + "redis.call('ZADD', KEYS[2], ARGV[2], ARGV[3]) "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * Reivindica até ARGV[3] promoções pendentes registradas até ARGV[1] (KEYS[1]), renovando o
+     * horário para ARGV[2], de modo que cada uma seja retomada por uma única instância
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REIVINDICAR_SCRIPT = new DefaultRedisScript<>(
+            "local expiradas = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[3])) "
+                    + "for _, chave in ipairs(expiradas) do redis.call('ZADD', KEYS[1], 'XX', ARGV[2], chave) end "
+                    + "return expiradas",
+            List.class);
+
+    /**
+     * Inclui o aluno ARGV[2] na lista de espera (KEYS[2]) com score ARGV[1], somente se a turma
+     * não tiver vagas livres; a posição existente é mantida em uma nova inclusão
+     * Retorna a posição (base 0), -1 se o contador não existe ou -2 se há vagas disponíveis
+     */
+    private static final RedisScript<Long> ENTRAR_ESPERA_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('GET', KEYS[1]) "
+                    + "if not v then return -1 end "
+                    + "if tonumber(v) > 0 then return -2 end "
+                    + "redis.call('ZADD', KEYS[2], 'NX', ARGV[1], ARGV[2]) "
+                    + "return redis.call('ZRANK', KEYS[2], ARGV[2])",
+            Long.class);
+
+    private final Map<Integer, AtomicInteger> contadoresLocais = new ConcurrentHashMap<>();
+    private final Set<Integer> turmasEmFallback = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Reserva uma vaga na turma
+     * Se a transação corrente sofrer rollback, a vaga é devolvida automaticamente
+     * @throws TurmaSemVagasException se a turma não possui vagas disponíveis
+     */
+    public void reservarVaga(Turma turma) {
+        if (reservarVagas(turma, 1) == 0) {
+            throw new TurmaSemVagasException();
+        }
+    }
+
+    /**
+     * Reserva até a quantidade solicitada de vagas na turma em uma única operação
+     * Se a transação corrente sofrer rollback, as vagas são devolvidas automaticamente
+     * @return Quantidade de vagas efetivamente reservadas (pode ser menor que a solicitada)
+     */
+    public int reservarVagas(Turma turma, int quantidade) {
+        Integer turmaId = turma.getId();
+        int capacidade = turma.getCapacidade();
+
+        int reservadas;
+        try {
+            reservadas = reservarNoRedis(turmaId, capacidade, quantidade);
+        } catch (DataAccessException e) {
+            log.warn("Redis indisponível, usando contador local de vagas para turma {}", turmaId, e);
+            reservadas = reservarLocal(turmaId, capacidade, quantidade);
+        }
+
+        if (reservadas > 0) {
+            devolverEmRollback(turmaId, capacidade, reservadas);
+        }
+
+        return reservadas;
+    }
+
+    /**
+     * Devolve a vaga transferida a um aluno que não pode ser matriculado na turma (ex.: já
+     * matriculado ou removido) e conclui a sua promoção pendente
+     * A vaga passa ao próximo aluno da lista de espera ou volta ao contador. Não deve ser usado
+     * quando a turma não tem vagas: a vaga transferida não existe e o próximo aluno também
+     * seria recusado.
+     */
+    public void devolverVagaTransferida(Turma turma, VagaTransferidaEvent promocao) {
+        log.info("Devolvendo vaga transferida ao aluno {} da turma {}", promocao.getAlunoId(), turma.getId());
+        concluirPromocao(promocao);
+        liberarVagas(turma.getId(), turma.getCapacidade(), 1);
+    }
+
+    /**
+     * Remove a promoção das pendentes, após a matrícula do aluno promovido ser gravada
+     * Se o Redis falhar, a recuperação encontra a matrícula e remove a promoção depois
+     */
+    public void concluirPromocao(VagaTransferidaEvent promocao) {
+        try {
+            stringRedisTemplate.opsForZSet().remove(PROMOCOES_KEY, promocao.chave());
+        } catch (DataAccessException e) {
+            log.warn("Erro ao concluir promoção pendente {} no Redis", promocao.chave(), e);
+        }
+    }
+
+    /**
+     * Devolve o aluno promovido à lista de espera, na posição original, e remove a promoção
+     * das pendentes; usado quando a turma não tinha a vaga transferida (contador divergente)
+     * Se o Redis falhar, a promoção continua pendente e é retomada pela recuperação
+     */
+    public void reinserirNaListaEspera(VagaTransferidaEvent promocao) {
+        Integer turmaId = promocao.getTurmaId();
+        try {
+            stringRedisTemplate.execute(REINSERIR_SCRIPT,
+                    List.of(PROMOCOES_KEY, ListaEsperaService.ESPERA_KEY_PREFIX + turmaId),
+                    promocao.chave(), String.valueOf(promocao.getScore()), String.valueOf(promocao.getAlunoId()));
+        } catch (DataAccessException e) {
+            log.warn("Erro ao devolver aluno {} à lista de espera da turma {}", promocao.getAlunoId(), turmaId, e);
+        }
+    }
+
+    /**
+     * Reivindica as promoções pendentes registradas antes de limiteMs (época, em ms)
+     * Cada promoção reivindicada tem o horário renovado e só é retomada por esta instância
+     */
+    public List<VagaTransferidaEvent> reivindicarPromocoesExpiradas(long limiteMs, int quantidade) {
+        List<?> expiradas = stringRedisTemplate.execute(REIVINDICAR_SCRIPT, List.of(PROMOCOES_KEY),
+                String.valueOf(limiteMs), String.valueOf(System.currentTimeMillis()), String.valueOf(quantidade));
+        if (expiradas == null) {
+            return List.of();
+        }
+        return expiradas.stream()
+                .map(chave -> VagaTransferidaEvent.deChave(chave.toString()))
+                .toList();
+    }
+
+    /**
+     * Inclui o aluno na lista de espera da turma, de forma atômica com o contador de vagas
+     * @param score Ordem na lista (menor score é atendido primeiro)
+     * @return Posição do aluno na lista (base 0)
+     * @throws RuntimeException se a turma possui vagas disponíveis ou o Redis está indisponível
+     */
+    public long entrarNaListaEspera(Turma turma, Integer alunoId, long score) {
+        Integer turmaId = turma.getId();
+        List<String> keys = List.of(VAGAS_KEY_PREFIX + turmaId, ListaEsperaService.ESPERA_KEY_PREFIX + turmaId);
+
+        Long resultado;
+        try {
+            resultado = stringRedisTemplate.execute(ENTRAR_ESPERA_SCRIPT, keys,
+                    String.valueOf(score), String.valueOf(alunoId));
+            if (resultado != null && resultado == CONTADOR_AUSENTE) {
+                stringRedisTemplate.opsForValue().setIfAbsent(keys.get(0),
+                        String.valueOf(calcularVagasLivres(turmaId, turma.getCapacidade())));
+                resultado = stringRedisTemplate.execute(ENTRAR_ESPERA_SCRIPT, keys,
+                        String.valueOf(score), String.valueOf(alunoId));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Redis indisponível ao incluir aluno {} na lista de espera da turma {}", alunoId, turmaId, e);
+            throw new RuntimeException("Lista de espera indisponível no momento, tente novamente");
+        }
+
+        if (resultado == null || resultado == CONTADOR_AUSENTE) {
+            throw new RuntimeException("Lista de espera indisponível no momento, tente novamente");
+        }
+        if (resultado == VAGAS_DISPONIVEIS) {
+            throw new RuntimeException("Turma possui vagas disponíveis, realize a matrícula diretamente");
+        }
+
+        return resultado;
+    }
+
+    private void devolverEmRollback(Integer turmaId, int capacidade, int quantidade) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    // Só volta ao contador: a reserva pode ter sido recusada por falta de vagas
+                    // (contador divergente) e promover a lista de espera não teria vaga a entregar
+                    log.info("Transação revertida, devolvendo {} vaga(s) ao contador da turma {}", quantidade, turmaId);
+                    devolverAoContador(turmaId, capacidade, quantidade);
+                }
+            }
+        });
+    }
+
+    /**
+     * Devolve uma vaga à turma após o commit da transação corrente
+     * Utilizado no cancelamento de matrículas
+     */
+    public void liberarVagaAposCommit(Turma turma) {
+        Integer turmaId = turma.getId();
+        int capacidade = turma.getCapacidade();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            liberarVagas(turmaId, capacidade, 1);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                liberarVagas(turmaId, capacidade, 1);
+            }
+        });
+    }
+
+    /**
+     * Descarta o contador de uma turma após o commit da transação corrente
+     * Deve ser chamado quando a capacidade muda; o contador é recalculado no próximo acesso
+     */
+    public void invalidar(Integer turmaId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            descartarContador(turmaId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                descartarContador(turmaId);
+            }
+        });
+    }
+
+    /**
+     * Descarta o contador da turma ao fim da transação corrente, com commit ou rollback
+     * Usado quando a ocupação da turma mostra que o contador admitiu além da capacidade
+     * (ex.: recontagem após invalidar ou contador local do fallback)
+     */
+    public void descartarContadorDivergente(Integer turmaId) {
+        log.warn("Contador de vagas da turma {} diverge da ocupação, descartando", turmaId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            descartarContador(turmaId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                descartarContador(turmaId);
+            }
+        });
+    }
+
+    private void descartarContador(Integer turmaId) {
+        contadoresLocais.remove(turmaId);
+        try {
+            stringRedisTemplate.delete(VAGAS_KEY_PREFIX + turmaId);
+        } catch (DataAccessException e) {
+            log.warn("Erro ao invalidar contador de vagas da turma {} no Redis", turmaId, e);
+            turmasEmFallback.add(turmaId);
+        }
+    }
+
+    private void devolverAoContador(Integer turmaId, int capacidade, int quantidade) {
+        try {
+            stringRedisTemplate.execute(DEVOLVER_SCRIPT, List.of(VAGAS_KEY_PREFIX + turmaId),
+                    String.valueOf(capacidade), String.valueOf(quantidade));
+        } catch (DataAccessException e) {
+            log.warn("Redis indisponível ao devolver vaga da turma {}", turmaId, e);
+            turmasEmFallback.add(turmaId);
+        }
+
+        AtomicInteger local = contadoresLocais.get(turmaId);
+        if (local != null) {
+            local.updateAndGet(v -> Math.min(v + quantidade, capacidade));
+        }
+    }
+
+    private void liberarVagas(Integer turmaId, int capacidade, int quantidade) {
+        List<?> promovidos = List.of();
+        try {
+            List<?> resultado = stringRedisTemplate.execute(LIBERAR_SCRIPT,
+                    List.of(VAGAS_KEY_PREFIX + turmaId, ListaEsperaService.ESPERA_KEY_PREFIX + turmaId, PROMOCOES_KEY),
+                    String.valueOf(capacidade), String.valueOf(quantidade), String.valueOf(turmaId),
+                    String.valueOf(System.currentTimeMillis()));
+            if (resultado != null) {
+                promovidos = resultado;
+            }
+            log.debug("{} vaga(s) devolvida(s) à turma {}, {} transferida(s) à lista de espera",
+                    quantidade, turmaId, promovidos.size());
+        } catch (DataAccessException e) {
+            log.warn("Redis indisponível ao devolver vaga da turma {}", turmaId, e);
+            turmasEmFallback.add(turmaId);
+        }
+
+        for (Object promocao : promovidos) {
+            eventPublisher.publishEvent(VagaTransferidaEvent.deChave(promocao.toString()));
+        }
+
+        int devolvidas = quantidade - promovidos.size();
+        AtomicInteger local = contadoresLocais.get(turmaId);
+        if (local != null && devolvidas > 0) {
+            local.updateAndGet(v -> Math.min(v + devolvidas, capacidade));
+        }
+    }
+
+    private int reservarNoRedis(Integer turmaId, int capacidade, int quantidade) {
+        String key = VAGAS_KEY_PREFIX + turmaId;
+
+        // Contador do Redis ficou desatualizado enquanto o fallback local estava em uso
+        if (turmasEmFallback.remove(turmaId)) {
+            stringRedisTemplate.delete(key);
+            contadoresLocais.remove(turmaId);
+        }
+
+        String argQuantidade = String.valueOf(quantidade);
+        Long resultado = stringRedisTemplate.execute(RESERVAR_SCRIPT, List.of(key), argQuantidade);
+        if (resultado != null && resultado == CONTADOR_AUSENTE) {
+            stringRedisTemplate.opsForValue().setIfAbsent(key, String.valueOf(calcularVagasLivres(turmaId, capacidade)));
+            resultado = stringRedisTemplate.execute(RESERVAR_SCRIPT, List.of(key), argQuantidade);
+        }
+
+        return resultado != null && resultado > 0 ? resultado.intValue() : 0;
+    }
+
+    private int reservarLocal(Integer turmaId, int capacidade, int quantidade) {
+        turmasEmFallback.add(turmaId);
+        AtomicInteger contador = contadoresLocais.computeIfAbsent(turmaId,
+                id -> new AtomicInteger(calcularVagasLivres(id, capacidade)));
+
+        int atual;
+        int reservadas;
+        do {
+            atual = contador.get();
+            reservadas = Math.min(atual, quantidade);
+            if (reservadas <= 0) {
+                return 0;
+            }
+        } while (!contador.compareAndSet(atual, atual - reservadas));
+
+        return reservadas;
+    }
+
+    /**
+     * Calcula as vagas livres a partir do banco
+     * Executado apenas na inicialização do contador, fora do caminho quente
+     */
+    private int calcularVagasLivres(Integer turmaId, int capacidade) {
+        long ocupacao = matriculaRepository.countByTurmaIdAndStatus(turmaId, Matricula.Status.ATIVA);
+        return (int) Math.max(0, capacidade - ocupacao);
+    }
+}
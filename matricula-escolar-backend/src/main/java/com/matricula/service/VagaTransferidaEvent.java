@@ -0,0 +1,37 @@
+package com.matricula.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Evento: vaga devolvida foi transferida ao primeiro aluno da lista de espera da turma
+ * A vaga já está retirada do contador e a promoção fica registrada como pendente no Redis
+ * até ser concluída; o ouvinte deve registrar a matrícula do aluno
+ */
+@Getter
+@AllArgsConstructor
+public class VagaTransferidaEvent {
+
+    private final Integer turmaId;
+    private final Integer alunoId;
+
+    /**
+     * Score do aluno na lista de espera, usado para devolvê-lo à mesma posição
+     */
+    private final long score;
+
+    /**
+     * Membro do conjunto de promoções pendentes (turmaId:alunoId:score)
+     */
+    public String chave() {
+        return turmaId + ":" + alunoId + ":" + score;
+    }
+
+    /**
+     * Reconstrói o evento a partir do membro do conjunto de promoções pendentes
+     */
+    public static VagaTransferidaEvent deChave(String chave) {
+        String[] partes = chave.split(":");
+        return new VagaTransferidaEvent(Integer.valueOf(partes[0]), Integer.valueOf(partes[1]), Long.parseLong(partes[2]));
+    }
+}
@@ -0,0 +1,527 @@
+package com.matricula.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matricula.dto.VagasTurmaDTO;
+import com.matricula.model.Turma;
+import com.matricula.repository.TurmaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serviço: VagasStreamService
+ * Responsável pelos streams de vagas das turmas (Server-Sent Events), por turma e geral.
+ * As mudanças de ocupação, capacidade e situação das turmas (matrícula, cancelamento, lote,
+ * reconciliação) chegam pelos listeners pós-commit do Hibernate já com os valores gravados e a
+ * versão (@Version) da turma, sem consulta ao banco. A cada turma.vagas.stream.intervalo-ms as
+ * mudanças acumuladas são publicadas no Redis em uma única mensagem e enviadas aos assinantes
+ * desta instância: uma rajada produz no máximo um evento por turma por intervalo, com o estado
+ * de maior versão. As conexões ficam no modo assíncrono do servlet, sem thread por assinante;
+ * os envios rodam em poucas threads, com no máximo um envio em andamento por assinante: enquanto
+ * ele não termina, os eventos seguintes do assinante se acumulam (um por turma). O assinante cujo
+ * envio passa de envio-maximo-ms (cliente que parou de ler) é desligado, sem atrasar os demais,
+ * e um heartbeat descarta conexões encerradas.
+ */
+@Service
+@Slf4j
+public class VagasStreamService implements MessageListener, PostCommitInsertEventListener,
+        PostCommitUpdateEventListener {
+
+    private static final String SEPARADOR = ";";
+    private static final String EVENTO = "vagas";
+
+    /**
+     * Chave do heartbeat entre os eventos pendentes de um assinante (as demais são ids de turma)
+     */
+    private static final Integer PING = -1;
+
+    /**
+     * Propriedades da turma que alteram as vagas
+     */
+    private static final Set<String> PROPRIEDADES_DE_VAGAS = Set.of("capacidade", "ocupacao", "ativo");
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final TurmaRepository turmaRepository;
+    private final ObjectMapper objectMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final String instancia = UUID.randomUUID().toString();
+
+    private final Map<Integer, Set<Assinante>> assinantesPorTurma = new ConcurrentHashMap<>();
+    private final Set<Assinante> assinantesGerais = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalAssinantes = new AtomicInteger();
+
+    /**
+     * Mudanças desta instância ainda não publicadas no Redis
+     */
+    private final Map<Integer, VagasTurmaDTO> naoPublicadas = new ConcurrentHashMap<>();
+
+    /**
+     * Mudanças (desta e das demais instâncias) ainda não enviadas aos assinantes
+     */
+    private final Map<Integer, VagasTurmaDTO> pendentes = new ConcurrentHashMap<>();
+
+    /**
+     * Última versão enviada de cada turma: mensagens atrasadas de outra instância são descartadas
+     */
+    private final Map<Integer, Long> versoesEnviadas = new ConcurrentHashMap<>();
+
+    private ExecutorService envio;
+
+    @Value("${turma.vagas.stream.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${turma.vagas.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${turma.vagas.stream.maximo-assinantes:25000}")
+    private int maximoAssinantes;
+
+    @Value("${turma.vagas.stream.threads-envio:4}")
+    private int threadsEnvio;
+
+    @Value("${turma.vagas.stream.envio-maximo-ms:10000}")
+    private long envioMaximoMs;
+
+    @Value("${turma.vagas.stream.canal:turma:vagas:stream}")
+    private String canal;
+
+    public VagasStreamService(EntityManagerFactory entityManagerFactory,
+                              TurmaRepository turmaRepository,
+                              ObjectMapper objectMapper,
+                              StringRedisTemplate stringRedisTemplate,
+                              RedisMessageListenerContainer listenerContainer) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.turmaRepository = turmaRepository;
+        this.objectMapper = objectMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+
+        AtomicInteger contador = new AtomicInteger();
+        envio = Executors.newFixedThreadPool(threadsEnvio, runnable -> {
+            Thread thread = new Thread(runnable, "vagas-stream-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        EventListenerRegistry registro = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(canal));
+    }
+
+    @PreDestroy
+    public void parar() {
+        if (envio == null) {
+            return;
+        }
+        envio.shutdownNow();
+        assinantesGerais.forEach(Assinante::concluir);
+        assinantesPorTurma.values().forEach(assinantes -> assinantes.forEach(Assinante::concluir));
+    }
+
+    /**
+     * Stream das vagas de uma turma; o primeiro evento é o estado atual
+     * @throws IllegalStateException se o stream está desabilitado ou a instância atingiu o limite de assinantes
+     */
+    public SseEmitter assinarTurma(Integer turmaId) {
+        verificarHabilitado();
+        Turma turma = turmaRepository.findById(turmaId)
+                .orElseThrow(() -> new RuntimeException("Turma não encontrada"));
+
+        Assinante assinante = new Assinante(turmaId);
+        assinantesPorTurma.compute(turmaId, (id, assinantes) -> {
+            Set<Assinante> conjunto = assinantes != null ? assinantes : ConcurrentHashMap.newKeySet();
+            conjunto.add(assinante);
+            return conjunto;
+        });
+
+        log.debug("Novo assinante do stream de vagas da turma {} ({} na instância)", turmaId, totalAssinantes.get());
+        assinante.enviarAgora(Map.of(turmaId, evento(vagas(turma))));
+        return assinante.emissor;
+    }
+
+    /**
+     * Stream das vagas de todas as turmas, apenas com as mudanças
+     * O estado inicial vem de GET /dashboard/ocupacao
+     * @throws IllegalStateException se o stream está desabilitado ou a instância atingiu o limite de assinantes
+     */
+    public SseEmitter assinarTodas() {
+        verificarHabilitado();
+        Assinante assinante = new Assinante(null);
+        assinantesGerais.add(assinante);
+
+        log.debug("Novo assinante do stream geral de vagas ({} na instância)", totalAssinantes.get());
+        assinante.enviarAgora(Map.of(PING, SseEmitter.event().comment("conectado").build()));
+        return assinante.emissor;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Turma turma) {
+            registrarMudanca(vagas(turma));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Turma turma && alteraVagas(event)) {
+            registrarMudanca(vagas(turma));
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return Turma.class.getName().equals(persister.getEntityName());
+    }
+
+    /**
+     * Recebe as mudanças publicadas pelas demais instâncias
+     * Formato: instancia na primeira linha e uma turma por linha (id;capacidade;ocupacao;ativo;versao)
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] linhas = new String(message.getBody(), StandardCharsets.UTF_8).split("\n");
+        if (instancia.equals(linhas[0])) {
+            return;
+        }
+
+        for (int i = 1; i < linhas.length; i++) {
+            String[] campos = linhas[i].split(SEPARADOR);
+            try {
+                VagasTurmaDTO vagas = vagas(Integer.valueOf(campos[0]), Integer.valueOf(campos[1]),
+                        Integer.valueOf(campos[2]), Boolean.valueOf(campos[3]), Long.valueOf(campos[4]));
+                pendentes.merge(vagas.getTurmaId(), vagas, VagasStreamService::maisRecente);
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                log.warn("Mensagem de vagas inválida ignorada: {}", linhas[i]);
+            }
+        }
+    }
+
+    /**
+     * Publica as mudanças desta instância e envia as pendentes aos assinantes
+     * Não espera envios anteriores: o assinante ainda ocupado acumula os eventos até terminar
+     */
+    @Scheduled(fixedDelayString = "${turma.vagas.stream.intervalo-ms:250}")
+    public void emitir() {
+        if (!habilitado) {
+            return;
+        }
+
+        publicar(drenar(naoPublicadas));
+        if (pendentes.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Set<DataWithMediaType>> eventos = new HashMap<>();
+        for (VagasTurmaDTO vagas : drenar(pendentes)) {
+            Long enviada = versoesEnviadas.get(vagas.getTurmaId());
+            if (enviada != null && enviada >= vagas.getVersao()) {
+                continue;
+            }
+            versoesEnviadas.put(vagas.getTurmaId(), vagas.getVersao());
+            eventos.put(vagas.getTurmaId(), evento(vagas));
+        }
+        if (eventos.isEmpty()) {
+            return;
+        }
+
+        // Cada assinante pertence a um único conjunto: o geral ou o de uma turma
+        Map<Assinante, Map<Integer, Set<DataWithMediaType>>> envios = new HashMap<>();
+        Map<Integer, Set<DataWithMediaType>> todos = Map.copyOf(eventos);
+        assinantesGerais.forEach(assinante -> envios.put(assinante, todos));
+        eventos.forEach((turmaId, evento) -> {
+            Set<Assinante> assinantes = assinantesPorTurma.get(turmaId);
+            if (assinantes != null) {
+                Map<Integer, Set<DataWithMediaType>> daTurma = Map.of(turmaId, evento);
+                assinantes.forEach(assinante -> envios.put(assinante, daTurma));
+            }
+        });
+        distribuir(envios);
+    }
+
+    /**
+     * Comentário periódico: mantém as conexões abertas em proxies e detecta clientes desconectados
+     */
+    @Scheduled(fixedDelayString = "${turma.vagas.stream.heartbeat-ms:20000}")
+    public void manterConexoes() {
+        if (!habilitado || totalAssinantes.get() == 0) {
+            return;
+        }
+
+        Map<Integer, Set<DataWithMediaType>> ping = Map.of(PING, SseEmitter.event().comment("ping").build());
+        Map<Assinante, Map<Integer, Set<DataWithMediaType>>> envios = new HashMap<>();
+        assinantesGerais.forEach(assinante -> envios.put(assinante, ping));
+        assinantesPorTurma.values().forEach(assinantes -> assinantes.forEach(assinante -> envios.put(assinante, ping)));
+        distribuir(envios);
+    }
+
+    private void registrarMudanca(VagasTurmaDTO vagas) {
+        naoPublicadas.merge(vagas.getTurmaId(), vagas, VagasStreamService::maisRecente);
+        pendentes.merge(vagas.getTurmaId(), vagas, VagasStreamService::maisRecente);
+    }
+
+    private void publicar(List<VagasTurmaDTO> mudancas) {
+        if (mudancas.isEmpty()) {
+            return;
+        }
+
+        StringBuilder mensagem = new StringBuilder(instancia);
+        for (VagasTurmaDTO vagas : mudancas) {
+            mensagem.append('\n').append(vagas.getTurmaId())
+                    .append(SEPARADOR).append(vagas.getCapacidade())
+                    .append(SEPARADOR).append(vagas.getOcupacao())
+                    .append(SEPARADOR).append(vagas.getAtivo())
+                    .append(SEPARADOR).append(vagas.getVersao());
+        }
+        try {
+            stringRedisTemplate.convertAndSend(canal, mensagem.toString());
+        } catch (Exception e) {
+            log.warn("Falha ao publicar {} mudança(s) de vagas no Redis", mudancas.size(), e);
+        }
+    }
+
+    /**
+     * Entrega os eventos a cada assinante; um envio por assinante é agendado nas threads de envio
+     * O assinante com envio em andamento só acumula os eventos, e o que passou de envio-maximo-ms
+     * é desligado: um cliente que parou de ler não segura os eventos dos demais
+     */
+    private void distribuir(Map<Assinante, Map<Integer, Set<DataWithMediaType>>> envios) {
+        long agora = System.currentTimeMillis();
+        envios.forEach((assinante, eventos) -> {
+            if (assinante.atrasado(agora)) {
+                log.debug("Assinante do stream de vagas desligado: envio em andamento há mais de {} ms", envioMaximoMs);
+                assinante.encerrar();
+                return;
+            }
+            if (!assinante.agendar(eventos, agora)) {
+                return;
+            }
+            try {
+                envio.execute(assinante::enviarPendentes);
+            } catch (RejectedExecutionException e) {
+                // Aplicação encerrando
+                assinante.concluir();
+            }
+        });
+    }
+
+    private Set<DataWithMediaType> evento(VagasTurmaDTO vagas) {
+        try {
+            return SseEmitter.event()
+                    .name(EVENTO)
+                    .data(objectMapper.writeValueAsString(vagas), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erro ao serializar vagas da turma", e);
+        }
+    }
+
+    private void verificarHabilitado() {
+        if (!habilitado) {
+            throw new IllegalStateException("Stream de vagas desabilitado");
+        }
+    }
+
+    private boolean alteraVagas(PostUpdateEvent event) {
+        int[] alteradas = event.getDirtyProperties();
+        if (alteradas == null) {
+            return true;
+        }
+
+        String[] propriedades = event.getPersister().getPropertyNames();
+        for (int indice : alteradas) {
+            if (PROPRIEDADES_DE_VAGAS.contains(propriedades[indice])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<VagasTurmaDTO> drenar(Map<Integer, VagasTurmaDTO> mudancas) {
+        List<VagasTurmaDTO> drenadas = new ArrayList<>();
+        for (Integer turmaId : mudancas.keySet()) {
+            VagasTurmaDTO vagas = mudancas.remove(turmaId);
+            if (vagas != null) {
+                drenadas.add(vagas);
+            }
+        }
+        return drenadas;
+    }
+
+    private static VagasTurmaDTO maisRecente(VagasTurmaDTO atual, VagasTurmaDTO nova) {
+        return nova.getVersao() >= atual.getVersao() ? nova : atual;
+    }
+
+    private static VagasTurmaDTO vagas(Turma turma) {
+        return vagas(turma.getId(), turma.getCapacidade(), turma.getOcupacao(), turma.getAtivo(), turma.getVersao());
+    }
+
+    private static VagasTurmaDTO vagas(Integer turmaId, Integer capacidade, Integer ocupacao, Boolean ativo, Long versao) {
+        return VagasTurmaDTO.builder()
+                .turmaId(turmaId)
+                .capacidade(capacidade)
+                .ocupacao(ocupacao)
+                .vagasLivres(Boolean.TRUE.equals(ativo) ? Math.max(0, capacidade - ocupacao) : 0)
+                .ativo(ativo)
+                .versao(versao != null ? versao : 0L)
+                .build();
+    }
+
+    /**
+     * Conexão de um assinante; turmaId nulo para o stream geral
+     * Os eventos aguardam em aEnviar (um por turma, o mais recente) e são enviados por uma única
+     * tarefa por vez; envioDesde marca quando ela foi agendada (0 quando não há envio)
+     */
+    private final class Assinante {
+        private final Integer turmaId;
+        private final SseEmitter emissor = new SseEmitter(timeoutMs);
+        private final AtomicBoolean encerrado = new AtomicBoolean();
+        private final Map<Integer, Set<DataWithMediaType>> aEnviar = new LinkedHashMap<>();
+        private long envioDesde;
+
+        Assinante(Integer turmaId) {
+            if (totalAssinantes.incrementAndGet() > maximoAssinantes) {
+                totalAssinantes.decrementAndGet();
+                throw new IllegalStateException("Limite de assinantes do stream de vagas atingido nesta instância");
+            }
+            this.turmaId = turmaId;
+            emissor.onCompletion(this::encerrar);
+            emissor.onTimeout(this::encerrar);
+            emissor.onError(erro -> encerrar());
+        }
+
+        /**
+         * Envio na própria thread da requisição (primeiro evento da conexão)
+         */
+        void enviarAgora(Map<Integer, Set<DataWithMediaType>> eventos) {
+            if (agendar(eventos, System.currentTimeMillis())) {
+                enviarPendentes();
+            }
+        }
+
+        /**
+         * Acumula os eventos; true se não havia envio em andamento e quem chamou deve iniciá-lo
+         */
+        synchronized boolean agendar(Map<Integer, Set<DataWithMediaType>> eventos, long agora) {
+            if (encerrado.get()) {
+                return false;
+            }
+            aEnviar.putAll(eventos);
+            if (envioDesde != 0) {
+                return false;
+            }
+            envioDesde = agora;
+            return true;
+        }
+
+        synchronized boolean atrasado(long agora) {
+            return envioDesde != 0 && agora - envioDesde > envioMaximoMs;
+        }
+
+        /**
+         * Envia os eventos acumulados até não restar nenhum, inclusive os que chegaram durante o envio
+         */
+        void enviarPendentes() {
+            try {
+                List<Set<DataWithMediaType>> eventos;
+                while (!(eventos = retirar()).isEmpty()) {
+                    for (Set<DataWithMediaType> evento : eventos) {
+                        emissor.send(evento);
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado ou emissor já concluído; o container encerra a requisição
+                encerrar();
+                return;
+            }
+            if (encerrado.get()) {
+                // Desligado por atraso enquanto o envio estava bloqueado
+                emissor.complete();
+            }
+        }
+
+        private synchronized List<Set<DataWithMediaType>> retirar() {
+            if (encerrado.get() || aEnviar.isEmpty()) {
+                envioDesde = 0;
+                return List.of();
+            }
+            List<Set<DataWithMediaType>> eventos = new ArrayList<>(aEnviar.values());
+            aEnviar.clear();
+            envioDesde = System.currentTimeMillis();
+            return eventos;
+        }
+
+        void concluir() {
+            encerrar();
+            emissor.complete();
+        }
+
+        void encerrar() {
+            if (!encerrado.compareAndSet(false, true)) {
+                return;
+            }
+            if (turmaId == null) {
+                assinantesGerais.remove(this);
+            } else {
+                assinantesPorTurma.computeIfPresent(turmaId, (id, assinantes) -> {
+                    assinantes.remove(this);
+                    return assinantes.isEmpty() ? null : assinantes;
+                });
+            }
+            totalAssinantes.decrementAndGet();
+        }
+    }
+}
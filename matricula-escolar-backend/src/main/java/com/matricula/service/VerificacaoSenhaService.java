@@ -0,0 +1,203 @@
+package com.matricula.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serviço: VerificacaoSenhaService
+ * Responsável por executar o BCrypt do login fora das threads do Tomcat, em um pool limitado
+ * ao número de processadores: uma rajada de logins ocupa no máximo esses núcleos e as demais
+ * requisições (matrículas etc.) continuam sendo atendidas. A admissão é pela fila: se a espera
+ * estimada (hashes pendentes / threads x tempo médio de um hash) passar de espera-maxima-ms, ou a fila
+ * estiver cheia, o login é recusado de imediato (503 com Retry-After) em vez de enfileirado.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VerificacaoSenhaService {
+
+    /**
+     * Custo de um hash BCrypt ($2a$10$...)
+     */
+    private static final Pattern CUSTO_BCRYPT = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    /**
+     * Peso da última medição na média móvel do tempo de um hash
+     */
+    private static final double PESO_MEDICAO = 0.1;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final LongAdder verificacoes = new LongAdder();
+    private final LongAdder recusadas = new LongAdder();
+    private final LongAdder rehashes = new LongAdder();
+
+    @Value("${auth.senha.threads:0}")
+    private int threads;
+
+    @Value("${auth.senha.fila-maxima:0}")
+    private int filaMaxima;
+
+    @Value("${auth.senha.espera-maxima-ms:2000}")
+    private long esperaMaximaMs;
+
+    @Value("${auth.senha.bcrypt-custo:10}")
+    private int custo;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Média móvel do tempo de um hash (ns); começa em 100 ms (custo 10) até a primeira medição
+     */
+    private volatile double mediaHashNanos = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @PostConstruct
+    public void iniciar() {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        if (filaMaxima <= 0) {
+            filaMaxima = threads * 8;
+        }
+
+        AtomicInteger contador = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(filaMaxima), runnable -> {
+                    Thread thread = new Thread(runnable, "verificacao-senha-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        log.info("Verificação de senhas com {} thread(s) e fila de {}", threads, filaMaxima);
+    }
+
+    @PreDestroy
+    public void parar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Compara a senha com o hash no pool de verificação
+     * @throws VerificacaoSobrecarregadaException se o pool está sobrecarregado (o login deve ser repetido depois)
+     */
+    public boolean verificar(String senha, String hash) {
+        if (estimarEsperaMs() > esperaMaximaMs) {
+            recusadas.increment();
+            throw new VerificacaoSobrecarregadaException();
+        }
+
+        Future<Boolean> resultado;
+        try {
+            resultado = executor.submit(() -> medir(() -> passwordEncoder.matches(senha, hash)));
+        } catch (RejectedExecutionException e) {
+            recusadas.increment();
+            throw new VerificacaoSobrecarregadaException();
+        }
+
+        try {
+            return resultado.get(esperaMaximaMs + Math.round(mediaHashNanos / 1_000_000) * 2, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            resultado.cancel(true);
+            recusadas.increment();
+            throw new VerificacaoSobrecarregadaException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Verificação de senha interrompida");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Erro ao verificar senha", e.getCause());
+        } finally {
+            verificacoes.increment();
+        }
+    }
+
+    /**
+     * Indica se o hash foi gerado com um custo diferente do configurado
+     */
+    public boolean precisaRehash(String hash) {
+        Matcher matcher = CUSTO_BCRYPT.matcher(hash);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != custo;
+    }
+
+    /**
+     * Gera o hash da senha com o custo atual no pool e entrega ao consumidor
+     * Descartado se o pool estiver ocupado: será feito em um próximo login
+     */
+    public void rehashEmSegundoPlano(String senha, Consumer<String> gravar) {
+        if (executor.getQueue().size() > filaMaxima / 2) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    gravar.accept(medir(() -> passwordEncoder.encode(senha)));
+                    rehashes.increment();
+                } catch (Exception e) {
+                    log.warn("Falha ao atualizar o hash de senha com o custo {}", custo, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Pool de verificação ocupado, atualização do hash adiada");
+        }
+    }
+
+    /**
+     * Segundos sugeridos no Retry-After quando o login é recusado por sobrecarga
+     */
+    public long sugerirEsperaSegundos() {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(estimarEsperaMs()));
+    }
+
+    /**
+     * Threads, fila, tempo médio de um hash e contadores do pool nesta instância
+     */
+    public Map<String, Object> obterEstatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("threads", threads);
+        estatisticas.put("ativas", executor.getActiveCount());
+        estatisticas.put("fila", executor.getQueue().size());
+        estatisticas.put("filaMaxima", filaMaxima);
+        estatisticas.put("custoBcrypt", custo);
+        estatisticas.put("tempoMedioHashMs", Math.round(mediaHashNanos / 100_000) / 10.0);
+        estatisticas.put("esperaEstimadaMs", estimarEsperaMs());
+        estatisticas.put("verificacoes", verificacoes.sum());
+        estatisticas.put("recusadas", recusadas.sum());
+        estatisticas.put("rehashes", rehashes.sum());
+        return estatisticas;
+    }
+
+    private long estimarEsperaMs() {
+        // Hashes na fila e em execução, divididos entre as threads, mais o próprio hash
+        int pendentes = executor.getQueue().size() + executor.getActiveCount();
+        double esperaNanos = (pendentes / (double) threads + 1) * mediaHashNanos;
+        return Math.round(esperaNanos / 1_000_000);
+    }
+
+    private <T> T medir(Supplier<T> operacao) {
+        long inicio = System.nanoTime();
+        try {
+            return operacao.get();
+        } finally {
+            long duracao = System.nanoTime() - inicio;
+            mediaHashNanos = mediaHashNanos + PESO_MEDICAO * (duracao - mediaHashNanos);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.matricula.service;
+
+/**
+ * Exceção: login recusado porque o pool de verificação de senhas está sobrecarregado
+ * O login deve ser repetido depois (503 com Retry-After)
+ */
+public class VerificacaoSobrecarregadaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public VerificacaoSobrecarregadaException() {
+        super("Muitos logins simultâneos, tente novamente em instantes");
+    }
+}
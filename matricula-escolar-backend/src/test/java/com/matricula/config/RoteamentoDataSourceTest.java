@@ -0,0 +1,149 @@
+package com.matricula.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Teste: RoteamentoDataSourceTest
+ * Roteamento entre primário e réplica com dois bancos H2 em memória, montados como em
+ * DataSourceConfig (LazyConnectionDataSourceProxy sobre o RoteamentoDataSource). Cada banco tem
+ * uma linha com o próprio nome, então a consulta mostra de onde a leitura veio.
+ * Cobre a leitura após escrita: o usuário que escreveu lê do primário durante a janela, inclusive
+ * quando a escrita foi feita por outra thread (partições de matrícula) e marcada por quem chamou.
+ */
+class RoteamentoDataSourceTest {
+
+    private HikariDataSource primario;
+    private HikariDataSource replica;
+    private RoteamentoDataSource roteamento;
+    private LeituraAposEscrita leituraAposEscrita;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate escrita;
+    private TransactionTemplate leitura;
+
+    @BeforeEach
+    void preparar() {
+        primario = banco("primario");
+        replica = banco("replica");
+
+        // Marcas só nesta instância: o Redis não é usado
+        leituraAposEscrita = new LeituraAposEscrita(null);
+        ReflectionTestUtils.setField(leituraAposEscrita, "janelaMs", 5000L);
+        ReflectionTestUtils.setField(leituraAposEscrita, "compartilhada", false);
+
+        roteamento = new RoteamentoDataSource(primario, List.of(replica), leituraAposEscrita);
+        roteamento.afterPropertiesSet();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(roteamento);
+        PlatformTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        escrita = new TransactionTemplate(transactionManager);
+        leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+    }
+
+    @AfterEach
+    void encerrar() {
+        SecurityContextHolder.clearContext();
+        roteamento.close();
+        primario.close();
+    }
+
+    @Test
+    void leituraVaiParaReplica() {
+        assertThat(origem(leitura)).isEqualTo("replica");
+    }
+
+    @Test
+    void escritaVaiParaPrimario() {
+        assertThat(origem(escrita)).isEqualTo("primario");
+    }
+
+    @Test
+    void semTransacaoVaiParaPrimario() {
+        assertThat(jdbcTemplate.queryForObject("SELECT nome FROM origem", String.class)).isEqualTo("primario");
+    }
+
+    @Test
+    void noPrimarioForcaLeituraNoPrimario() {
+        assertThat(RoteamentoDataSource.noPrimario(() -> origem(leitura))).isEqualTo("primario");
+        assertThat(origem(leitura)).isEqualTo("replica");
+    }
+
+    @Test
+    void usuarioQueEscreveuLeDoPrimario() {
+        autenticar("secretaria@escola.com");
+        escrever();
+
+        assertThat(origem(leitura)).isEqualTo("primario");
+
+        autenticar("professor@escola.com");
+        assertThat(origem(leitura)).isEqualTo("replica");
+    }
+
+    @Test
+    void escritaRevertidaNaoMarcaUsuario() {
+        autenticar("secretaria@escola.com");
+        escrita.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO registro (id) VALUES (1)");
+            status.setRollbackOnly();
+        });
+
+        assertThat(origem(leitura)).isEqualTo("replica");
+    }
+
+    @Test
+    void escritaEmOutraThreadMarcadaPorQuemChamou() throws InterruptedException {
+        autenticar("secretaria@escola.com");
+
+        // Como nas partições de matrícula: a thread que grava não tem o usuário da requisição
+        Thread particao = new Thread(this::escrever);
+        particao.start();
+        particao.join();
+        assertThat(origem(leitura)).isEqualTo("replica");
+
+        leituraAposEscrita.registrarEscritaConcluida();
+        assertThat(origem(leitura)).isEqualTo("primario");
+    }
+
+    private void escrever() {
+        escrita.executeWithoutResult(status -> jdbcTemplate.update("INSERT INTO registro (id) VALUES (1)"));
+    }
+
+    private String origem(TransactionTemplate transacao) {
+        return transacao.execute(status -> jdbcTemplate.queryForObject("SELECT nome FROM origem", String.class));
+    }
+
+    private static void autenticar(String usuario) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(usuario, null, List.of()));
+    }
+
+    private static HikariDataSource banco(String nome) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + nome + "-" + UUID.randomUUID());
+        dataSource.setPoolName(nome);
+        dataSource.setMaximumPoolSize(2);
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE origem (nome VARCHAR(20))");
+        jdbc.execute("CREATE TABLE registro (id INT)");
+        jdbc.update("INSERT INTO origem (nome) VALUES (?)", nome);
+        return dataSource;
+    }
+}
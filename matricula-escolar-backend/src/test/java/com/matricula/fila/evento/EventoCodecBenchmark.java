@@ -0,0 +1,85 @@
+package com.matricula.fila.evento;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matricula.model.Matricula;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark: EventoCodecBenchmark
+ * Compara o codec binário dos eventos com o serializer JSON com default typing (o formato
+ * anterior das filas): ns para codificar/decodificar cada evento. Os bytes por mensagem de cada
+ * formato são impressos na preparação.
+ * Execução: mvn -Pjmh test -Djmh.benchmarks=EventoCodec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventoCodecBenchmark {
+
+    @Param({"MatriculaCriada", "MatriculaCancelada"})
+    private String tipo;
+
+    private RedisSerializer<Object> json;
+    private RedisSerializer<Object> binario;
+    private EventoMatricula evento;
+    private byte[] bytesJson;
+    private byte[] bytesBinario;
+
+    @Setup
+    public void preparar() {
+        // Mesma configuração do Jackson em RedisConfig.redisValueSerializer
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.activateDefaultTyping(
+                objectMapper.getPolymorphicTypeValidator(),
+                ObjectMapper.DefaultTyping.NON_FINAL,
+                JsonTypeInfo.As.PROPERTY);
+        json = new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
+        binario = new EventoRedisSerializer(json);
+
+        long agora = System.currentTimeMillis();
+        evento = "MatriculaCriada".equals(tipo)
+                ? new MatriculaCriada(123456, 98765, 42, Matricula.Turno.MATUTINO, agora)
+                : new MatriculaCancelada(123456, 98765, 42, Matricula.Turno.MATUTINO, agora, "Transferência de escola");
+
+        bytesJson = json.serialize(evento);
+        bytesBinario = binario.serialize(evento);
+        System.out.printf("%n%s: JSON %d bytes, binário %d bytes%n", tipo, bytesJson.length, bytesBinario.length);
+    }
+
+    @Benchmark
+    public byte[] codificarJson() {
+        return json.serialize(evento);
+    }
+
+    @Benchmark
+    public byte[] codificarBinario() {
+        return binario.serialize(evento);
+    }
+
+    @Benchmark
+    public Object decodificarJson() {
+        return json.deserialize(bytesJson);
+    }
+
+    @Benchmark
+    public Object decodificarBinario() {
+        return binario.deserialize(bytesBinario);
+    }
+}
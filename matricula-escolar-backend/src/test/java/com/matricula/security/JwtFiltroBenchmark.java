@@ -0,0 +1,150 @@
+package com.matricula.security;
+
+import com.matricula.service.RevogacaoTokenService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Benchmark: JwtFiltroBenchmark
+ * Custo do filtro JWT por requisição autenticada (mesmo token a cada requisição):
+ * - anterior: o filtro antes do JwtTokenProvider com chave/parser únicos (validateToken e
+ *   getUsernameFromToken, cada um derivando a chave, montando o parser e verificando o HMAC)
+ * - semCache: JwtAuthenticationFilter atual com jwt.cache.enabled=false (uma verificação)
+ * - comCache: JwtAuthenticationFilter atual com o cache de tokens verificados
+ * Os dois últimos incluem as checagens de revogação e versão das permissões, com os serviços
+ * substituídos (sem Redis) como se o token não estivesse revogado e as permissões vigentes.
+ * Execução: mvn -Pjmh test -Djmh.benchmarks=JwtFiltro
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFiltroBenchmark {
+
+    private static final String SEGREDO = "sua_chave_secreta_super_segura_aqui_com_mais_de_256_bits_para_hs256";
+    private static final long VALIDADE_MS = 86_400_000L;
+
+    @Param({"anterior", "semCache", "comCache"})
+    private String filtro;
+
+    private OncePerRequestFilter alvo;
+    private String cabecalho;
+
+    @Setup
+    public void preparar() {
+        JwtTokenProvider jwtTokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret", SEGREDO);
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpirationMs", VALIDADE_MS);
+        ReflectionTestUtils.setField(jwtTokenProvider, "cacheHabilitado", "comCache".equals(filtro));
+        ReflectionTestUtils.setField(jwtTokenProvider, "tamanhoMaximoCache", 10_000L);
+        jwtTokenProvider.iniciar();
+
+        long permissoes = Permissao.compilar(List.of(Permissao.READ.name(), Permissao.WRITE.name()));
+        cabecalho = "Bearer " + jwtTokenProvider.generateToken("secretaria@escola.com", 2, permissoes, 0L);
+
+        if ("anterior".equals(filtro)) {
+            alvo = new FiltroAnterior();
+            return;
+        }
+
+        // Subclasses em vez de stubs do Mockito: cada chamada a um mock custa mais que o próprio filtro
+        VersaoPermissoes versaoPermissoes = new VersaoPermissoes(mock(EntityManagerFactory.class), null, null) {
+            @Override
+            public boolean vigente(Integer grupoId, long versaoToken) {
+                return true;
+            }
+        };
+        RevogacaoTokenService revogacaoTokenService = new RevogacaoTokenService(null, null) {
+            @Override
+            public boolean revogado(String jti, String username, Date emitidoEm) {
+                return false;
+            }
+        };
+        alvo = new JwtAuthenticationFilter(jwtTokenProvider, versaoPermissoes, revogacaoTokenService);
+    }
+
+    @Benchmark
+    public Authentication filtrar() throws Exception {
+        // Requisição nova a cada chamada: OncePerRequestFilter ignora requisições já filtradas
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/turmas");
+        request.addHeader("Authorization", cabecalho);
+        try {
+            alvo.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * Reprodução do filtro e do provedor anteriores: chave e parser a cada chamada, token
+     * verificado duas vezes (validar e extrair o username)
+     */
+    private static class FiltroAnterior extends OncePerRequestFilter {
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain filterChain) throws ServletException, IOException {
+            String bearerToken = request.getHeader("Authorization");
+            String jwt = bearerToken != null && bearerToken.startsWith("Bearer ") ? bearerToken.substring(7) : null;
+
+            if (jwt != null && validar(jwt)) {
+                String username = verificar(jwt).getSubject();
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(username, null, null));
+            }
+            filterChain.doFilter(request, response);
+        }
+
+        private static boolean validar(String token) {
+            try {
+                verificar(token);
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+
+        private static Claims verificar(String token) {
+            return Jwts.parser()
+                    .verifyWith(Keys.hmacShaKeyFor(SEGREDO.getBytes(StandardCharsets.UTF_8)))
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+        }
+    }
+}
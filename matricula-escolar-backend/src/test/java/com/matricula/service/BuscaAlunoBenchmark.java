@@ -0,0 +1,156 @@
+package com.matricula.service;
+
+import com.matricula.dto.AlunoBuscaDTO;
+import com.matricula.model.Aluno;
+import com.matricula.repository.AlunoRepository;
+import com.matricula.repository.AlunoRepository.AlunoBusca;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmark: BuscaAlunoBenchmark
+ * Latência da busca incremental com 500 mil alunos indexados (nomes e CPFs sintéticos, gerados
+ * com semente fixa), de prefixos curtos (muitos candidatos, limitados por max-candidatos) a nomes
+ * completos e CPF. Modo SampleTime: a meta é p0.99 abaixo de 5 ms em cada consulta.
+ * O índice é construído pelo próprio serviço a partir de um repositório simulado (sem MySQL nem
+ * Redis), com os limites padrão de application.properties.
+ * Execução: mvn -Pjmh test -Djmh.benchmarks=BuscaAluno
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class BuscaAlunoBenchmark {
+
+    private static final int ALUNOS = 500_000;
+
+    private static final String[] NOMES = {
+            "Ana", "Maria", "João", "José", "Pedro", "Lucas", "Gabriel", "Rafael", "Mariana", "Juliana",
+            "Beatriz", "Larissa", "Felipe", "Gustavo", "Matheus", "Letícia", "Camila", "Bruno", "Thiago", "Carlos",
+            "Fernanda", "Amanda", "Vitória", "Luiz", "Marcos", "Isabela", "Heloísa", "Caio", "Daniel", "Sofia",
+            "Antônio", "Francisco", "Paulo", "Eduarda", "Giovana", "Helena", "Laura", "Valentina", "Enzo", "Miguel"};
+
+    private static final String[] SOBRENOMES = {
+            "Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira", "Alves", "Pereira", "Lima", "Gomes",
+            "Costa", "Ribeiro", "Martins", "Carvalho", "Almeida", "Lopes", "Soares", "Fernandes", "Vieira", "Barbosa",
+            "Rocha", "Dias", "Nascimento", "Andrade", "Moreira", "Nunes", "Marques", "Machado", "Mendes", "Freitas",
+            "Cardoso", "Ramos", "Gonçalves", "Santana", "Teixeira", "Araújo", "Conceição", "Monteiro", "Moura", "Pinto"};
+
+    @Param({"ma", "mar", "maria so", "jose carlos oliv", "conceicao", "48213"})
+    private String consulta;
+
+    private BuscaAlunoService buscaAlunoService;
+
+    @Setup
+    public void preparar() throws InterruptedException {
+        AlunoRepository alunoRepository = mock(AlunoRepository.class);
+        when(alunoRepository.streamParaBusca(Aluno.Status.CANCELADO))
+                .thenAnswer(invocacao -> IntStream.rangeClosed(1, ALUNOS).mapToObj(BuscaAlunoBenchmark::gerar));
+
+        buscaAlunoService = new BuscaAlunoService(alunoRepository, mock(StringRedisTemplate.class),
+                mock(RedisMessageListenerContainer.class), mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(buscaAlunoService, "limitePadrao", 10);
+        ReflectionTestUtils.setField(buscaAlunoService, "limiteMaximo", 50);
+        ReflectionTestUtils.setField(buscaAlunoService, "maxCandidatos", 5000);
+        ReflectionTestUtils.setField(buscaAlunoService, "canal", "aluno:busca:atualizacao");
+        ReflectionTestUtils.setField(buscaAlunoService, "esperaConstrucaoMs", 1000L);
+        ReflectionTestUtils.setField(buscaAlunoService, "esperaMaximaConstrucaoMs", 60000L);
+
+        long inicio = System.currentTimeMillis();
+        buscaAlunoService.iniciar();
+        while (true) {
+            try {
+                buscaAlunoService.buscar("a", 1);
+                break;
+            } catch (IllegalStateException e) {
+                Thread.sleep(100);
+            }
+        }
+        System.out.printf("%nÍndice com %d alunos construído em %d ms%n", ALUNOS, System.currentTimeMillis() - inicio);
+    }
+
+    @Benchmark
+    public List<AlunoBuscaDTO> buscar() {
+        return buscaAlunoService.buscar(consulta, null);
+    }
+
+    /**
+     * Aluno sintético: nome com dois sobrenomes, CPF e responsável derivados do ID
+     */
+    private static AlunoBusca gerar(int id) {
+        SplittableRandom aleatorio = new SplittableRandom(id);
+        String sobrenomes = sorteio(aleatorio, SOBRENOMES) + " " + sorteio(aleatorio, SOBRENOMES);
+        String nome = sorteio(aleatorio, NOMES) + " " + (aleatorio.nextInt(4) == 0 ? sorteio(aleatorio, NOMES) + " " : "") + sobrenomes;
+        String responsavel = sorteio(aleatorio, NOMES) + " " + sobrenomes;
+        String digitos = String.format("%011d", aleatorio.nextLong(100_000_000_000L));
+        String cpf = digitos.substring(0, 3) + "." + digitos.substring(3, 6) + "." + digitos.substring(6, 9) + "-" + digitos.substring(9);
+        return new AlunoSintetico(id, nome, cpf, responsavel);
+    }
+
+    private static String sorteio(SplittableRandom aleatorio, String[] opcoes) {
+        return opcoes[aleatorio.nextInt(opcoes.length)];
+    }
+
+    private static final class AlunoSintetico implements AlunoBusca {
+        private final Integer id;
+        private final String nome;
+        private final String cpf;
+        private final String responsavelNome;
+
+        AlunoSintetico(Integer id, String nome, String cpf, String responsavelNome) {
+            this.id = id;
+            this.nome = nome;
+            this.cpf = cpf;
+            this.responsavelNome = responsavelNome;
+        }
+
+        @Override
+        public Integer getId() {
+            return id;
+        }
+
+        @Override
+        public String getNome() {
+            return nome;
+        }
+
+        @Override
+        public String getCpf() {
+            return cpf;
+        }
+
+        @Override
+        public String getResponsavelNome() {
+            return responsavelNome;
+        }
+
+        @Override
+        public Aluno.Status getStatus() {
+            return Aluno.Status.ATIVO;
+        }
+    }
+}
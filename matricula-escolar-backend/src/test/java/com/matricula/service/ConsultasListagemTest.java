@@ -0,0 +1,252 @@
+package com.matricula.service;
+
+import com.matricula.dto.MatriculaDTO;
+import com.matricula.dto.PaginaDTO;
+import com.matricula.model.Aluno;
+import com.matricula.model.GrupoUsuario;
+import com.matricula.model.Matricula;
+import com.matricula.model.Turma;
+import com.matricula.model.Usuario;
+import com.matricula.repository.AlunoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.redis.core.RedisTemplate;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Teste: ConsultasListagemTest
+ * Quantidade de comandos SQL das listagens e consultas por ID de alunos, turmas e matrículas:
+ * cada uma deve ser um único SELECT (projeção com JOIN), qualquer que seja o número de linhas.
+ * Um retorno a carregamento de entidades/associações por linha (N+1) faz o teste falhar.
+ * Usa H2 em modo MySQL com o esquema gerado pelo Hibernate, sem cache de segundo nível (cada
+ * consulta precisa chegar ao banco para ser contada); Redis e demais serviços são simulados.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:listagens;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ConsultasListagemTest {
+
+    private static final int TURMAS = 3;
+    private static final int ALUNOS_POR_TURMA = 4;
+
+    /**
+     * Configuração própria: o @ComponentScan da aplicação carregaria todos os componentes
+     * (Redis, filas, agendamentos); aqui entram só JPA e os serviços das consultas
+     */
+    @SpringBootConfiguration
+    @EntityScan(basePackageClasses = Aluno.class)
+    @EnableJpaRepositories(basePackageClasses = AlunoRepository.class)
+    @ImportAutoConfiguration(JacksonAutoConfiguration.class)
+    @Import({AlunoService.class, TurmaService.class, MatriculaService.class})
+    static class Configuracao {
+    }
+
+    @MockBean
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @MockBean
+    private VagaService vagaService;
+
+    @MockBean
+    private OutboxService outboxService;
+
+    @MockBean
+    private TransacaoOtimista transacaoOtimista;
+
+    @MockBean
+    private BuscaAlunoService buscaAlunoService;
+
+    @MockBean
+    private UnicidadeService unicidadeService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AlunoService alunoService;
+
+    @Autowired
+    private TurmaService turmaService;
+
+    @Autowired
+    private MatriculaService matriculaService;
+
+    private Statistics estatisticas;
+    private Turma primeiraTurma;
+    private Matricula primeiraMatricula;
+
+    /**
+     * Turmas com professor (associação exibida na listagem), alunos e matrículas em todas elas
+     * O contexto de persistência é limpo ao final: nada é servido do cache de primeiro nível
+     */
+    @BeforeEach
+    void preparar() {
+        GrupoUsuario grupo = entityManager.persist(GrupoUsuario.builder()
+                .nome("Professores")
+                .permissoes("[\"READ\"]")
+                .build());
+
+        for (int t = 0; t < TURMAS; t++) {
+            Usuario professor = entityManager.persist(Usuario.builder()
+                    .nome("Professor " + letra(t))
+                    .email("professor" + t + "@escola.com")
+                    .senhaHash("$2a$10$hashDeTeste")
+                    .grupoUsuario(grupo)
+                    .build());
+
+            Turma turma = entityManager.persist(Turma.builder()
+                    .nome("Turma " + t)
+                    .serie("1º Ano")
+                    .turno(Turma.Turno.MATUTINO)
+                    .capacidade(30)
+                    .ocupacao(ALUNOS_POR_TURMA)
+                    .professor(professor)
+                    .build());
+            if (primeiraTurma == null) {
+                primeiraTurma = turma;
+            }
+
+            for (int a = 0; a < ALUNOS_POR_TURMA; a++) {
+                Aluno aluno = entityManager.persist(Aluno.builder()
+                        .nome("Aluno " + letra(t) + " " + letra(a))
+                        .cpf(String.format("%011d", t * 100 + a))
+                        .telefone("(11) 99999-0000")
+                        .endereco("Rua da Escola, " + a)
+                        .idade(10)
+                        .dataNascimento(LocalDate.of(2015, 1, 1))
+                        .responsavelNome("Responsável " + letra(t) + " " + letra(a))
+                        .turma(turma)
+                        .turno(Aluno.Turno.MATUTINO)
+                        .build());
+
+                Matricula matricula = entityManager.persist(Matricula.builder()
+                        .aluno(aluno)
+                        .turma(turma)
+                        .turno(Matricula.Turno.MATUTINO)
+                        .build());
+                if (primeiraMatricula == null) {
+                    primeiraMatricula = matricula;
+                }
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void listagemDeAlunosUsaUmComando() {
+        PaginaDTO<?> pagina = contar(() -> alunoService.listarTodos(null, 10));
+        assertThat(pagina.getItens()).hasSize(10);
+        assertThat(comandos()).isEqualTo(1);
+    }
+
+    @Test
+    void paginaSeguinteDeAlunosUsaUmComando() {
+        String cursor = alunoService.listarTodos(null, 5).getProximoCursor();
+        PaginaDTO<?> pagina = contar(() -> alunoService.listarTodos(cursor, 5));
+        assertThat(pagina.getItens()).hasSize(5);
+        assertThat(comandos()).isEqualTo(1);
+    }
+
+    @Test
+    void alunosDaTurmaUsaUmComando() {
+        List<?> alunos = contar(() -> alunoService.listarPorTurma(primeiraTurma.getId()));
+        assertThat(alunos).hasSize(ALUNOS_POR_TURMA);
+        assertThat(comandos()).isEqualTo(1);
+    }
+
+    @Test
+    void listagemDeTurmasUsaUmComando() {
+        PaginaDTO<?> pagina = contar(() -> turmaService.listarTodas(null, null));
+        assertThat(pagina.getItens()).hasSize(TURMAS);
+        assertThat(comandos()).isEqualTo(1);
+    }
+
+    @Test
+    void turmaPorIdUsaUmComando() {
+        contar(() -> turmaService.buscarPorId(primeiraTurma.getId()));
+        assertThat(comandos()).isEqualTo(1);
+    }
+
+    @Test
+    void listagemDeMatriculasUsaUmComando() {
+        PaginaDTO<MatriculaDTO> pagina = contar(() -> matriculaService.listarAtivas(null, 10));
+        assertThat(pagina.getItens()).hasSize(10);
+        assertThat(comandos()).isEqualTo(1);
+    }
+
+    @Test
+    void paginaSeguinteDeMatriculasUsaUmComando() {
+        String cursor = matriculaService.listarAtivas(null, 5).getProximoCursor();
+        PaginaDTO<MatriculaDTO> pagina = contar(() -> matriculaService.listarAtivas(cursor, 5));
+        assertThat(pagina.getItens()).hasSize(5);
+        assertThat(comandos()).isEqualTo(1);
+    }
+
+    @Test
+    void matriculasDaTurmaUsaUmComando() {
+        List<MatriculaDTO> matriculas = contar(() -> matriculaService.listarPorTurma(primeiraTurma.getId()));
+        assertThat(matriculas).hasSize(ALUNOS_POR_TURMA);
+        assertThat(comandos()).isEqualTo(1);
+    }
+
+    @Test
+    void matriculaPorIdUsaUmComando() {
+        contar(() -> matriculaService.buscarPorId(primeiraMatricula.getId()));
+        assertThat(comandos()).isEqualTo(1);
+    }
+
+    /**
+     * Executa a consulta com o contexto de persistência vazio e as estatísticas zeradas
+     */
+    private <T> T contar(Supplier<T> consulta) {
+        entityManager.clear();
+        estatisticas.clear();
+        return consulta.get();
+    }
+
+    private long comandos() {
+        return estatisticas.getPrepareStatementCount();
+    }
+
+    /**
+     * Nomes só aceitam letras e espaços
+     */
+    private static String letra(int indice) {
+        return String.valueOf((char) ('A' + indice));
+    }
+}
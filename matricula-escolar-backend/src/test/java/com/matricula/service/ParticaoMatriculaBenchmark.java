@@ -0,0 +1,190 @@
+package com.matricula.service;
+
+import com.matricula.MatriculaEscolarApplication;
+import com.matricula.dto.MatriculaDTO;
+import com.matricula.model.Aluno;
+import com.matricula.model.Turma;
+import com.matricula.repository.AlunoRepository;
+import com.matricula.repository.MatriculaRepository;
+import com.matricula.repository.OutboxEventoRepository;
+import com.matricula.repository.TurmaRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark: ParticaoMatriculaBenchmark
+ * Carga de matrículas em turmas disputadas: 64 clientes concorrentes matriculam um aluno por
+ * vaga em 5 turmas novas (100 vagas cada) a cada rodada, pelo caminho direto
+ * (MatriculaService.registrarMatricula) ou pelo executor particionado. Mede o tempo da rodada
+ * inteira; as matrículas recusadas (ex.: conflitos de versão esgotados) são impressas ao final
+ * de cada iteração.
+ * Sobe a aplicação no perfil benchmark (application-benchmark.properties): H2 em memória, criado
+ * e descartado pelo Hibernate, e o banco lógico 15 do Redis local. Ao fim de cada rodada as
+ * matrículas, alunos e turmas são apagados, assim como as chaves das turmas no Redis.
+ * Execução: mvn -Pjmh test -Djmh.benchmarks=ParticaoMatricula
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParticaoMatriculaBenchmark {
+
+    private static final int CLIENTES = 64;
+    private static final int TURMAS = 5;
+    private static final int VAGAS = 100;
+
+    @Param({"direto", "particionado"})
+    private String caminho;
+
+    private ConfigurableApplicationContext contexto;
+    private MatriculaService matriculaService;
+    private ParticaoMatriculaExecutor particaoMatriculaExecutor;
+    private TurmaRepository turmaRepository;
+    private AlunoRepository alunoRepository;
+    private MatriculaRepository matriculaRepository;
+    private OutboxEventoRepository outboxEventoRepository;
+    private StringRedisTemplate stringRedisTemplate;
+    private ExecutorService clientes;
+
+    private List<Turma> turmas;
+    private List<MatriculaDTO> solicitacoes;
+    private int recusadas;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = new SpringApplicationBuilder(MatriculaEscolarApplication.class)
+                .profiles("benchmark")
+                .run();
+        matriculaService = contexto.getBean(MatriculaService.class);
+        particaoMatriculaExecutor = contexto.getBean(ParticaoMatriculaExecutor.class);
+        turmaRepository = contexto.getBean(TurmaRepository.class);
+        alunoRepository = contexto.getBean(AlunoRepository.class);
+        matriculaRepository = contexto.getBean(MatriculaRepository.class);
+        outboxEventoRepository = contexto.getBean(OutboxEventoRepository.class);
+        stringRedisTemplate = contexto.getBean(StringRedisTemplate.class);
+        clientes = Executors.newFixedThreadPool(CLIENTES);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        clientes.shutdownNow();
+        contexto.close();
+    }
+
+    /**
+     * Turmas novas e um aluno por vaga, intercalados entre as turmas
+     */
+    @Setup(Level.Invocation)
+    public void prepararRodada() {
+        turmas = turmaRepository.saveAll(IntStream.range(0, TURMAS)
+                .mapToObj(i -> Turma.builder()
+                        .nome("Turma Benchmark " + i)
+                        .serie("Benchmark")
+                        .turno(Turma.Turno.MATUTINO)
+                        .capacidade(VAGAS)
+                        .build())
+                .toList());
+        // Ids do H2 recomeçam a cada execução: chaves de uma execução interrompida não valem
+        removerChavesRedis();
+
+        List<Aluno> alunos = alunoRepository.saveAll(IntStream.range(0, TURMAS * VAGAS)
+                .mapToObj(i -> Aluno.builder()
+                        .nome("Aluno Benchmark")
+                        .telefone("(11) 99999-0000")
+                        .endereco("Rua do Benchmark")
+                        .idade(10)
+                        .dataNascimento(LocalDate.of(2015, 1, 1))
+                        .turno(Aluno.Turno.MATUTINO)
+                        .build())
+                .toList());
+
+        solicitacoes = new ArrayList<>(alunos.size());
+        for (int i = 0; i < alunos.size(); i++) {
+            solicitacoes.add(MatriculaDTO.builder()
+                    .alunoId(alunos.get(i).getId())
+                    .turmaId(turmas.get(i % TURMAS).getId())
+                    .turno(Turma.Turno.MATUTINO.name())
+                    .build());
+        }
+    }
+
+    /**
+     * Apaga a carga da rodada: a seguinte começa com as tabelas vazias
+     */
+    @TearDown(Level.Invocation)
+    public void limparRodada() {
+        matriculaRepository.deleteAllInBatch();
+        outboxEventoRepository.deleteAllInBatch();
+        alunoRepository.deleteAllInBatch();
+        turmaRepository.deleteAllInBatch();
+        removerChavesRedis();
+    }
+
+    @TearDown(Level.Iteration)
+    public void relatarRecusadas() {
+        System.out.printf("%n%s: %d matrícula(s) recusada(s) na iteração%n", caminho, recusadas);
+        recusadas = 0;
+    }
+
+    @Benchmark
+    public int matricular() throws Exception {
+        List<Future<Boolean>> resultados = new ArrayList<>(solicitacoes.size());
+        for (MatriculaDTO solicitacao : solicitacoes) {
+            resultados.add(clientes.submit(() -> registrar(solicitacao)));
+        }
+
+        int registradas = 0;
+        for (Future<Boolean> resultado : resultados) {
+            if (resultado.get()) {
+                registradas++;
+            }
+        }
+        recusadas += solicitacoes.size() - registradas;
+        return registradas;
+    }
+
+    private void removerChavesRedis() {
+        stringRedisTemplate.delete(turmas.stream()
+                .flatMap(turma -> Stream.of("turma:vagas:" + turma.getId(),
+                        ListaEsperaService.ESPERA_KEY_PREFIX + turma.getId()))
+                .toList());
+    }
+
+    private boolean registrar(MatriculaDTO solicitacao) {
+        try {
+            if ("particionado".equals(caminho)) {
+                particaoMatriculaExecutor.registrar(solicitacao);
+            } else {
+                matriculaService.registrarMatricula(solicitacao);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}